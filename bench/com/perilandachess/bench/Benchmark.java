@@ -0,0 +1,14 @@
+package com.perilandachess.bench;
+
+/**
+ * This interface represents one measured operation
+ */
+public interface Benchmark {
+
+    /**
+     * This method runs the operation once
+     * Result is consumed by the runner, so that the work can not be removed by the compiler
+     * @return any value computed from the result of the operation
+     */
+    int run() throws Exception;
+}
@@ -0,0 +1,208 @@
+package com.perilandachess.bench;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * This class runs the benchmarks and compares them with the checked-in baseline
+ * Each benchmark is warmed up and then measured in several timed iterations, score is the number of operations per second
+ * Allocation is measured per operation with the allocated bytes counter of the thread
+ * A benchmark whose score is lower than the baseline by more than the tolerance is a regression, and the run fails
+ *
+ * Usage: BenchmarkRunner [-positions directory] [-baseline file] [-tolerance fraction] [-write] [-filter text]
+ */
+public final class BenchmarkRunner {
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 5;
+    private static final long WARMUP_MILLIS = 200;
+    private static final long MEASUREMENT_MILLIS = 500;
+
+    // results are added here, so that the benchmarked work can not be removed
+    private static volatile int sink;
+
+    private BenchmarkRunner(){
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    /**
+     * Main method of the benchmark runner
+     * @param args arguments of the runner, see the class description
+     * @throws Exception if a benchmark or the baseline fails
+     */
+    public static void main(String[] args) throws Exception {
+        File positions = new File("bench/positions");
+        File baselineFile = new File("bench/baseline.properties");
+        double tolerance = 0.25;
+        boolean write = false;
+        String filter = "";
+        for(int i = 0; i < args.length; i++){
+            switch(args[i]){
+                case "-positions":
+                    positions = new File(args[++i]);
+                    break;
+                case "-baseline":
+                    baselineFile = new File(args[++i]);
+                    break;
+                case "-tolerance":
+                    tolerance = Double.parseDouble(args[++i]);
+                    break;
+                case "-write":
+                    write = true;
+                    break;
+                case "-filter":
+                    filter = args[++i];
+                    break;
+                default:
+                    System.err.println("Usage: BenchmarkRunner [-positions directory] [-baseline file] [-tolerance fraction] [-write] [-filter text]");
+                    System.exit(2);
+            }
+        }
+
+        final Properties baseline = new Properties();
+        if(baselineFile.exists()){
+            try(Reader reader = new FileReader(baselineFile)){
+                baseline.load(reader);
+            }
+        }
+
+        final Map<String, Double> scores = new TreeMap<>();
+        boolean regression = false;
+        System.out.println(String.format("%-32s %14s %12s %12s %10s", "Benchmark", "ops/s", "us/op", "B/op", "baseline"));
+        for(final Map.Entry<String, Benchmark> benchmark : new BoardBenchmarks(positions).getBenchmarks().entrySet()){
+            if(!benchmark.getKey().contains(filter)){
+                continue;
+            }
+            final Result result = measure(benchmark.getValue());
+            scores.put(benchmark.getKey(), result.opsPerSecond);
+
+            String comparison = "-";
+            final String baselineScore = baseline.getProperty(benchmark.getKey());
+            if(baselineScore != null){
+                final double ratio = result.opsPerSecond / Double.parseDouble(baselineScore);
+                comparison = String.format("%+.1f%%", (ratio - 1) * 100);
+                if(ratio < 1 - tolerance){
+                    comparison += " REGRESSION";
+                    regression = true;
+                }
+            }
+            System.out.println(String.format("%-32s %14.1f %12.3f %12.0f %10s", benchmark.getKey(),
+                    result.opsPerSecond, 1e6 / result.opsPerSecond, result.bytesPerOperation, comparison));
+        }
+
+        if(write){
+            writeBaseline(baselineFile, baseline, scores);
+            System.out.println("Baseline written to " + baselineFile);
+        }else if(regression){
+            System.out.println("Benchmarks are slower than the baseline by more than " + Math.round(tolerance * 100) + "%");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * This method warms up and measures one benchmark
+     * @param benchmark measured operation
+     * @return operations per second and allocated bytes per operation
+     * @throws Exception if the operation fails
+     */
+    private static Result measure(final Benchmark benchmark) throws Exception {
+        for(int i = 0; i < WARMUP_ITERATIONS; i++){
+            runIteration(benchmark, WARMUP_MILLIS);
+        }
+        final long allocatedBefore = allocatedBytes();
+        long operations = 0;
+        long nanos = 0;
+        for(int i = 0; i < MEASUREMENT_ITERATIONS; i++){
+            final long start = System.nanoTime();
+            operations += runIteration(benchmark, MEASUREMENT_MILLIS);
+            nanos += System.nanoTime() - start;
+        }
+        final long allocated = allocatedBytes() - allocatedBefore;
+        return new Result(operations * 1e9 / nanos, allocatedBefore < 0 ? Double.NaN : (double)allocated / operations);
+    }
+
+    /**
+     * This method runs the operation repeatedly for given time
+     * @param benchmark measured operation
+     * @param millis duration of the iteration
+     * @return number of operations
+     * @throws Exception if the operation fails
+     */
+    private static long runIteration(final Benchmark benchmark, final long millis) throws Exception {
+        final long end = System.nanoTime() + millis * 1_000_000;
+        long operations = 0;
+        int result = 0;
+        do{
+            result += benchmark.run();
+            operations++;
+        }while(System.nanoTime() < end);
+        sink += result;
+        return operations;
+    }
+
+    /**
+     * This method returns number of bytes allocated by the current thread
+     * @return allocated bytes, or -1 if the virtual machine can not measure them
+     */
+    private static long allocatedBytes(){
+        final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if(bean instanceof com.sun.management.ThreadMXBean){
+            return ((com.sun.management.ThreadMXBean)bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * This method writes the scores as the new baseline, baseline scores of benchmarks that were not run are kept
+     * @param baselineFile file of the baseline
+     * @param baseline old baseline
+     * @param scores new scores
+     * @throws IOException if the file can not be written
+     */
+    private static void writeBaseline(final File baselineFile, final Properties baseline, final Map<String, Double> scores) throws IOException {
+        final Map<String, String> merged = new TreeMap<>();
+        for(final String name : baseline.stringPropertyNames()){
+            merged.put(name, baseline.getProperty(name));
+        }
+        for(final Map.Entry<String, Double> score : scores.entrySet()){
+            merged.put(score.getKey(), String.format("%.1f", score.getValue()));
+        }
+        try(Writer writer = new FileWriter(baselineFile)){
+            writer.write("# Benchmark baseline in operations per second, one operation goes over the whole position corpus\n");
+            writer.write("# Scores depend on the machine, regenerate with BenchmarkRunner -write on the machine that runs the comparison\n");
+            for(final Map.Entry<String, String> score : merged.entrySet()){
+                writer.write(score.getKey() + "=" + score.getValue() + "\n");
+            }
+        }
+    }
+
+    /**
+     * This class contains the result of one benchmark
+     */
+    private static final class Result {
+
+        // operations per second
+        final double opsPerSecond;
+
+        // allocated bytes per operation
+        final double bytesPerOperation;
+
+        /**
+         * Constructor for the result
+         * @param opsPerSecond operations per second
+         * @param bytesPerOperation allocated bytes per operation
+         */
+        Result(final double opsPerSecond, final double bytesPerOperation){
+            this.opsPerSecond = opsPerSecond;
+            this.bytesPerOperation = bytesPerOperation;
+        }
+    }
+}
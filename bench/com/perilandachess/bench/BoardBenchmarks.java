@@ -0,0 +1,181 @@
+package com.perilandachess.bench;
+
+import com.perilandachess.board.Board;
+import com.perilandachess.board.Move;
+import com.perilandachess.pieces.Piece;
+import com.perilandachess.player.Player;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class contains benchmarks of the board, pieces and move subsystems
+ * Each operation goes once over a fixed corpus of midgame positions, read from the positions directory
+ */
+public final class BoardBenchmarks {
+
+    // files of the corpus positions
+    private final File[] positionFiles;
+
+    // corpus positions
+    private final List<Board> boards = new ArrayList<>();
+
+    // builders filled with the pieces of each corpus position
+    private final List<Board.Builder> builders = new ArrayList<>();
+
+    // legal moves of the player to move in each corpus position
+    private final List<List<Move>> legalMoves = new ArrayList<>();
+
+    /**
+     * Constructor for board benchmarks, it reads the corpus
+     * @param positionsDirectory directory with positions in the format of saved games
+     * @throws IOException if a position can not be read
+     */
+    public BoardBenchmarks(final File positionsDirectory) throws IOException {
+        final File[] files = positionsDirectory.listFiles((directory, name) -> name.endsWith(".txt"));
+        if(files == null || files.length == 0){
+            throw new IOException("There are no positions in " + positionsDirectory + "!");
+        }
+        Arrays.sort(files);
+        this.positionFiles = files;
+        for(final File file : files){
+            final Board board = Board.createCustomBoard(file);
+            boards.add(board);
+            final Board.Builder builder = new Board.Builder();
+            for(final Piece piece : board.getOrangePieces()){
+                builder.setPiece(piece);
+            }
+            for(final Piece piece : board.getGreenPieces()){
+                builder.setPiece(piece);
+            }
+            builder.setMoveMaker(board.getCurrentPlayer().getAlliance());
+            builders.add(builder);
+            final List<Move> moves = new ArrayList<>();
+            for(final Piece piece : board.getCurrentPlayer().getActivePieces()){
+                moves.addAll(piece.calculateLegalMoves(board));
+            }
+            legalMoves.add(Collections.unmodifiableList(moves));
+        }
+    }
+
+    /**
+     * This method returns all benchmarks, keyed by their names
+     * @return benchmarks in the order they are run
+     */
+    public Map<String, Benchmark> getBenchmarks(){
+        final Map<String, Benchmark> benchmarks = new LinkedHashMap<>();
+        benchmarks.put("Board.createStandardBoard", () -> Board.createStandardBoard().hashCode());
+        benchmarks.put("Board.Builder.build", this::buildBoards);
+        for(final Piece.PieceType pieceType : Piece.PieceType.values()){
+            benchmarks.put(pieceName(pieceType) + ".calculateLegalMoves", () -> calculateLegalMoves(pieceType));
+        }
+        benchmarks.put("Move.execute", this::executeMoves);
+        benchmarks.put("Move.MoveFactory.createMove", this::createMoves);
+        benchmarks.put("Player.isMoveLegal", this::checkMoves);
+        benchmarks.put("Board.createCustomBoard", this::readBoards);
+        return benchmarks;
+    }
+
+    /**
+     * This method returns the class name of the piece type
+     * @param pieceType type of the piece
+     * @return name of the class, for example "Advancer"
+     */
+    private static String pieceName(final Piece.PieceType pieceType){
+        final String name = pieceType.name();
+        return name.charAt(0) + name.substring(1).toLowerCase();
+    }
+
+    /**
+     * This method builds each corpus position from its builder
+     * @return sum of the board hash codes
+     */
+    private int buildBoards(){
+        int result = 0;
+        for(final Board.Builder builder : builders){
+            result += builder.build().hashCode();
+        }
+        return result;
+    }
+
+    /**
+     * This method calculates legal moves of each piece of given type of the player to move
+     * @param pieceType type of the pieces
+     * @return number of moves
+     */
+    private int calculateLegalMoves(final Piece.PieceType pieceType){
+        int result = 0;
+        for(final Board board : boards){
+            for(final Piece piece : board.getCurrentPlayer().getActivePieces()){
+                if(piece.getPieceType() == pieceType){
+                    result += piece.calculateLegalMoves(board).size();
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * This method executes each legal move of each corpus position
+     * @return sum of the board hash codes
+     */
+    private int executeMoves(){
+        int result = 0;
+        for(final List<Move> moves : legalMoves){
+            for(final Move move : moves){
+                result += move.execute().hashCode();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * This method creates each legal move of each corpus position from its coordinates
+     * @return sum of the destination coordinates
+     */
+    private int createMoves(){
+        int result = 0;
+        for(int i = 0; i < boards.size(); i++){
+            for(final Move move : legalMoves.get(i)){
+                result += Move.MoveFactory.createMove(boards.get(i), move.getCurrentCoordinate(), move.getDestinationCoordinate()).getDestinationCoordinate();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * This method checks legality of each legal move of each corpus position
+     * @return number of legal moves
+     */
+    private int checkMoves(){
+        int result = 0;
+        for(int i = 0; i < boards.size(); i++){
+            final Player player = boards.get(i).getCurrentPlayer();
+            for(final Move move : legalMoves.get(i)){
+                if(player.isMoveLegal(move)){
+                    result++;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * This method reads each corpus position from its file
+     * @return sum of the board hash codes
+     * @throws IOException if a position can not be read
+     */
+    private int readBoards() throws IOException {
+        int result = 0;
+        for(final File file : positionFiles){
+            result += Board.createCustomBoard(file).hashCode();
+        }
+        return result;
+    }
+}
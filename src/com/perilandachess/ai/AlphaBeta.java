@@ -0,0 +1,740 @@
+package com.perilandachess.ai;
+
+import com.perilandachess.board.Board;
+import com.perilandachess.board.IntMoveList;
+import com.perilandachess.board.Move;
+import com.perilandachess.board.MutableBoard;
+import com.perilandachess.board.PackedMove;
+import com.perilandachess.pieces.Piece;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * This class is a computer player that uses negamax alpha-beta search with iterative deepening
+ * Search runs on a MutableBoard with packed moves, so it creates no objects inside the tree
+ * Capturing the chief ends the game, so a position where the player to move can capture the opponent chief is won
+ * With more than one thread it uses Lazy SMP: helper threads search the same root on their own copies of the position,
+ * they share only the transposition table, and skip some depths so that they do not search the same tree in lockstep
+ * Helper threads belong to the player, it should be closed when it is no longer used
+ */
+public final class AlphaBeta implements MoveStrategy, AutoCloseable {
+
+    /**
+     * Score of a position where the opponent chief is already captured, it is lowered by one for each ply to the capture
+     */
+    public static final int CHIEF_CAPTURE_SCORE = 30000;
+
+    /**
+     * Scores at least this large mean that a chief will be captured, the band holds the distances of the endgame tables
+     * found at any depth
+     */
+    public static final int CHIEF_CAPTURE_BOUND = CHIEF_CAPTURE_SCORE - SearchLimits.MAX_DEPTH - Tablebase.MAX_VALUE - 1;
+
+    // scores are bigger than any reachable evaluation
+    private static final int INFINITY = CHIEF_CAPTURE_SCORE + 1;
+
+    // limits are checked once per this many nodes
+    private static final int CHECK_INTERVAL = 1023;
+
+    // captures that can not raise the score to alpha even with this margin are not searched in quiescence
+    private static final int DELTA_MARGIN = 200;
+
+    private static final Piece.PieceType[] PIECE_TYPES = Piece.PieceType.values();
+
+    // depth skipping of helper threads, indexed by thread id modulo 20, helper skips depth
+    // when ((depth + SKIP_PHASE) / SKIP_SIZE) is odd
+    private static final int[] SKIP_SIZE = {1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4};
+    private static final int[] SKIP_PHASE = {0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7};
+
+    // shared by all searches and all threads of this player
+    private final TranspositionTable transpositionTable;
+
+    // one searcher for each thread, searcher 0 runs on the calling thread
+    private final Searcher[] searchers;
+
+    // threads for the helper searchers, null if there is only one thread
+    private final ExecutorService helperThreads;
+
+    // notified after each completed iteration, can be null
+    private SearchListener listener;
+
+    // book of opening moves, can be null
+    private OpeningBook openingBook;
+
+    // endgame tables, can be null
+    private Tablebases tablebases;
+
+    // number of stop requests, a search runs only while it is the same as when the search was requested
+    private volatile long stopGeneration;
+
+    // set when the main searcher is done, helpers stop at their next check
+    private volatile boolean helpersStopped;
+
+    // limits given when the expected move of a pondering search was played, null until then
+    private volatile SearchLimits ponderHitLimits;
+
+    // time of the ponder hit, from System.nanoTime
+    private volatile long ponderHitTime;
+
+    /**
+     * Constructor for the alpha-beta player
+     * @param hashMegabytes size of the transposition table in megabytes
+     * @param threads number of search threads
+     */
+    public AlphaBeta(final int hashMegabytes, final int threads){
+        if(threads < 1){
+            throw new IllegalArgumentException("Number of threads must be positive!");
+        }
+        this.transpositionTable = new TranspositionTable(hashMegabytes);
+        this.searchers = new Searcher[threads];
+        for(int id = 0; id < threads; id++){
+            searchers[id] = new Searcher(id);
+        }
+        this.helperThreads = threads > 1 ? Executors.newFixedThreadPool(threads - 1, runnable -> {
+            final Thread thread = new Thread(runnable, "AlphaBeta helper");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Constructor for the single threaded alpha-beta player
+     * @param hashMegabytes size of the transposition table in megabytes
+     */
+    public AlphaBeta(final int hashMegabytes){
+        this(hashMegabytes, 1);
+    }
+
+    /**
+     * Constructor for the alpha-beta player with 16 MB transposition table
+     */
+    public AlphaBeta(){
+        this(16);
+    }
+
+    /**
+     * This method sets the listener that is notified about each completed iteration
+     * @param listener listener, or null for no notifications
+     */
+    public void setSearchListener(final SearchListener listener){
+        this.listener = listener;
+    }
+
+    /**
+     * This method sets the opening book, a legal book move of the position is played without search
+     * @param openingBook opening book, or null for no book
+     */
+    public void setOpeningBook(final OpeningBook openingBook){
+        this.openingBook = openingBook;
+    }
+
+    /**
+     * This method sets the endgame tables, positions found in them are not searched
+     * @param tablebases endgame tables, or null for no tables
+     */
+    public void setTablebases(final Tablebases tablebases){
+        this.tablebases = tablebases;
+    }
+
+    /**
+     * This method stops the running search, it returns the best move of the last completed iteration
+     * Searches requested before the call are stopped too, even if they did not start yet
+     * @return generation of the searches requested after the call
+     */
+    public synchronized long stop(){
+        return ++stopGeneration;
+    }
+
+    /**
+     * This method stops the running search and the helper threads, the player can not search after it is closed
+     */
+    @Override
+    public void close(){
+        stop();
+        if(helperThreads != null){
+            helperThreads.shutdown();
+        }
+    }
+
+    /**
+     * This method returns the generation of a search requested now, the search is stopped by any later call of stop
+     * A search that is started on another thread should be given the generation when it is requested,
+     * so that a stop that comes before the search starts is not lost
+     * @return current generation
+     */
+    public long getGeneration(){
+        return stopGeneration;
+    }
+
+    /**
+     * This method turns the pondering search into a normal search with given limits, it is called
+     * when the opponent plays the move the search expected, so the search goes on instead of starting again
+     * Time spent pondering counts for the soft limit, so the move is often played at once,
+     * the hard limit is measured from the ponder hit
+     * It can be called just before the pondering search starts, the limits are kept until they are cleared,
+     * so the caller clears them when the pondering search ends
+     * @param limits limits of the search from now on, null to clear the limits of an earlier ponder hit
+     */
+    public void ponderHit(final SearchLimits limits){
+        ponderHitTime = System.nanoTime();
+        ponderHitLimits = limits;
+    }
+
+    /**
+     * This method clears everything learned in earlier searches, it should be called before a new game
+     */
+    public void clear(){
+        transpositionTable.clear();
+    }
+
+    /**
+     * This method chooses a move for the current player of the board
+     * @param board current position
+     * @param limits limits of the search
+     * @return best move found, or Move.NULL_MOVE if the current player has no legal move
+     */
+    @Override
+    public Move execute(final Board board, final SearchLimits limits){
+        final SearchResult result = search(new MutableBoard(board), limits);
+        return Move.MoveFactory.createMove(board, result.getBestMove());
+    }
+
+    /**
+     * This method searches the position until one of the limits is reached
+     * Helper threads are started first, the main search runs on the calling thread and helpers are stopped when it ends
+     * Pondering search runs until it is stopped, or until the limits given by ponderHit are reached
+     * @param board position to search, it is not changed
+     * @param limits limits of the search
+     * @return result of the last completed iteration of the main search
+     */
+    public SearchResult search(final MutableBoard board, final SearchLimits limits){
+        return search(board, limits, getGeneration());
+    }
+
+    /**
+     * This method searches the position until one of the limits is reached or the generation is stopped
+     * @param board position to search, it is not changed
+     * @param limits limits of the search
+     * @param generation generation from getGeneration when the search was requested
+     * @return result of the last completed iteration of the main search
+     */
+    public SearchResult search(final MutableBoard board, final SearchLimits limits, final long generation){
+        final int bookMove = probeBook(board);
+        if(bookMove != PackedMove.NULL_MOVE){
+            return new SearchResult(bookMove, 0, 0, 0, 0, new int[]{bookMove});
+        }
+        final SearchResult tablebaseResult = probeTablebases(board);
+        if(tablebaseResult != null){
+            return tablebaseResult;
+        }
+        helpersStopped = false;
+        transpositionTable.newSearch();
+        final long startTime = System.nanoTime();
+        for(final Searcher searcher : searchers){
+            searcher.prepare(new MutableBoard(board), limits, generation, startTime);
+        }
+        final List<Future<?>> helpers = new ArrayList<>();
+        for(int id = 1; id < searchers.length; id++){
+            helpers.add(helperThreads.submit(searchers[id]::iterate));
+        }
+        try{
+            return searchers[0].iterate();
+        }finally{
+            helpersStopped = true;
+            for(final Future<?> helper : helpers){
+                waitFor(helper);
+            }
+        }
+    }
+
+    /**
+     * This method chooses a book move of the position, book moves are checked for legality,
+     * because different positions can have the same key
+     * @param board position to search
+     * @return legal book move, or PackedMove.NULL_MOVE if there is no book or the position is not in it
+     */
+    private int probeBook(final MutableBoard board){
+        if(openingBook == null){
+            return PackedMove.NULL_MOVE;
+        }
+        final int bookMove = openingBook.getWeightedMove(board.getZobristKey(), ThreadLocalRandom.current().nextDouble());
+        if(bookMove == PackedMove.NULL_MOVE){
+            return PackedMove.NULL_MOVE;
+        }
+        final IntMoveList moves = new IntMoveList();
+        board.generateMoves(moves);
+        for(int i = 0; i < moves.size(); i++){
+            if(moves.get(i) == bookMove){
+                return bookMove;
+            }
+        }
+        return PackedMove.NULL_MOVE;
+    }
+
+    /**
+     * This method chooses the move with the best endgame table value, wins are taken by the shortest way
+     * and losses are delayed as long as possible
+     * @param board position to search
+     * @return result with the best move, or null if there are no tables or a position is not in them
+     */
+    private SearchResult probeTablebases(final MutableBoard board){
+        if(tablebases == null || tablebases.probe(board) == Tablebases.NOT_FOUND){
+            return null;
+        }
+        final IntMoveList moves = new IntMoveList();
+        board.generateMoves(moves);
+        int bestMove = PackedMove.NULL_MOVE;
+        int bestScore = -INFINITY;
+        for(int i = 0; i < moves.size(); i++){
+            final int move = moves.get(i);
+            final int score;
+            if(PackedMove.isChiefCapture(move)){
+                score = CHIEF_CAPTURE_SCORE - 1;
+            }else{
+                board.makeMove(move);
+                final int value = tablebases.probe(board);
+                board.unmakeMove();
+                if(value == Tablebases.NOT_FOUND){
+                    return null;
+                }
+                score = -Tablebases.toScore(value, 1);
+            }
+            if(score > bestScore){
+                bestScore = score;
+                bestMove = move;
+            }
+        }
+        if(bestMove == PackedMove.NULL_MOVE){
+            return null;
+        }
+        return new SearchResult(bestMove, bestScore, 0, 0, 0, new int[]{bestMove});
+    }
+
+    /**
+     * This method waits until helper search ends
+     * @param helper running helper search
+     */
+    private static void waitFor(final Future<?> helper){
+        try{
+            helper.get();
+        }catch(final InterruptedException e){
+            Thread.currentThread().interrupt();
+        }catch(final ExecutionException e){
+            throw new IllegalStateException("Helper search failed!", e.getCause());
+        }
+    }
+
+    /**
+     * This method returns number of nodes visited by all threads of the running search
+     * Counts of helper threads are read without synchronization, so they can be slightly behind
+     * @return number of nodes
+     */
+    private long totalNodes(){
+        long nodes = 0;
+        for(final Searcher searcher : searchers){
+            nodes += searcher.nodes;
+        }
+        return nodes;
+    }
+
+    /**
+     * This method returns number of search threads
+     * @return number of threads
+     */
+    public int getThreads(){
+        return searchers.length;
+    }
+
+    /**
+     * This method converts score to the form stored in the transposition table,
+     * chief capture scores are stored as distance from the stored position instead of from the root
+     * @param score score relative to the root
+     * @param ply distance from the root
+     * @return score relative to the position
+     */
+    private static int scoreToTable(final int score, final int ply){
+        if(score >= CHIEF_CAPTURE_BOUND){
+            return score + ply;
+        }
+        if(score <= -CHIEF_CAPTURE_BOUND){
+            return score - ply;
+        }
+        return score;
+    }
+
+    /**
+     * This method converts score from the transposition table back to score relative to the root
+     * @param score score relative to the position
+     * @param ply distance from the root
+     * @return score relative to the root
+     */
+    private static int scoreFromTable(final int score, final int ply){
+        if(score >= CHIEF_CAPTURE_BOUND){
+            return score - ply;
+        }
+        if(score <= -CHIEF_CAPTURE_BOUND){
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * This class runs iterative deepening on its own copy of the position, each search thread has one
+     * It keeps move lists, move ordering tables and principal variation arrays, so the tree is searched without allocation
+     * Searcher 0 is the main searcher, it checks the limits and its result is the result of the search,
+     * other searchers are helpers that only fill the shared transposition table
+     */
+    private final class Searcher {
+
+        // id of the searcher, 0 for the main searcher
+        private final int id;
+
+        // position that is searched
+        private MutableBoard board;
+
+        // limits of the search
+        private SearchLimits limits;
+
+        // generation of the search, it is stopped when the generation changes
+        private long generation;
+
+        // start of the search, from System.nanoTime
+        private long startTime;
+
+        // move list for each ply
+        private final IntMoveList[] moveLists;
+
+        // move ordering tables of this thread
+        private final MoveOrdering ordering = new MoveOrdering();
+
+        // principal variation found at each ply, and its length
+        private final int[][] principalVariations;
+        private final int[] principalVariationLengths;
+
+        // number of visited nodes
+        private long nodes;
+
+        // true if the search ran out of time or nodes
+        private boolean aborted;
+
+        // depth of the running iteration
+        private int iterationDepth;
+
+        /**
+         * Constructor for the searcher
+         * @param id id of the searcher, 0 for the main searcher
+         */
+        Searcher(final int id){
+            this.id = id;
+            this.moveLists = new IntMoveList[SearchLimits.MAX_DEPTH + 1];
+            for(int i = 0; i < moveLists.length; i++){
+                moveLists[i] = new IntMoveList();
+            }
+            this.principalVariations = new int[SearchLimits.MAX_DEPTH + 1][SearchLimits.MAX_DEPTH + 1];
+            this.principalVariationLengths = new int[SearchLimits.MAX_DEPTH + 1];
+        }
+
+        /**
+         * This method prepares the searcher for a new search
+         * @param board own copy of the position, it is changed during the search and restored at the end
+         * @param limits limits of the search
+         * @param generation generation of the search
+         * @param startTime start of the search, from System.nanoTime
+         */
+        void prepare(final MutableBoard board, final SearchLimits limits, final long generation, final long startTime){
+            this.board = board;
+            this.limits = limits;
+            this.generation = generation;
+            this.startTime = startTime;
+            this.nodes = 0;
+            this.aborted = false;
+            this.ordering.newSearch();
+        }
+
+        /**
+         * This method runs iterative deepening until depth limit is reached, the search is stopped
+         * or the chief capture is found
+         * @return result of the last completed iteration, helpers return null
+         */
+        SearchResult iterate(){
+            SearchResult result = null;
+            for(iterationDepth = 1; iterationDepth <= limits.getDepth(); iterationDepth++){
+                // helpers skip some depths, so that threads work on different depths at the same time
+                if(id > 0 && ((iterationDepth + SKIP_PHASE[id % SKIP_PHASE.length]) / SKIP_SIZE[id % SKIP_SIZE.length]) % 2 != 0){
+                    continue;
+                }
+                final int score = negamax(iterationDepth, -INFINITY, INFINITY, 0);
+                // result of an unfinished iteration can not be trusted
+                if(aborted){
+                    break;
+                }
+                if(id > 0){
+                    continue;
+                }
+                result = createResult(score, iterationDepth);
+                if(listener != null){
+                    listener.iterationCompleted(result);
+                }
+                if(Math.abs(score) >= CHIEF_CAPTURE_BOUND || result.getBestMove() == PackedMove.NULL_MOVE){
+                    break;
+                }
+                // next iteration takes longer than all previous ones together, it would not finish in time
+                final SearchLimits active = activeLimits();
+                if(active != null && active.getSoftTime() > 0 && elapsedMillis() >= active.getSoftTime()){
+                    break;
+                }
+            }
+            return result;
+        }
+
+        /**
+         * This method creates the result from the principal variation of the root
+         * @param score score of the root
+         * @param depth completed depth
+         * @return search result
+         */
+        private SearchResult createResult(final int score, final int depth){
+            final int length = principalVariationLengths[0];
+            final int[] principalVariation = new int[length];
+            System.arraycopy(principalVariations[0], 0, principalVariation, 0, length);
+            final int bestMove = length > 0 ? principalVariation[0] : PackedMove.NULL_MOVE;
+            return new SearchResult(bestMove, score, depth, totalNodes(), elapsedMillis(), principalVariation);
+        }
+
+        /**
+         * Negamax alpha-beta search
+         * @param depth remaining depth
+         * @param alpha lower bound of the interesting scores
+         * @param beta upper bound of the interesting scores
+         * @param ply distance from the root
+         * @return score of the position from the point of view of the player to move
+         */
+        private int negamax(final int depth, int alpha, final int beta, final int ply){
+            principalVariationLengths[ply] = 0;
+            if((++nodes & CHECK_INTERVAL) == 0){
+                checkLimits();
+            }
+            if(aborted){
+                return 0;
+            }
+
+            // opponent captured the chief on the last move
+            if(!board.hasChief(board.getSideToMove())){
+                return -CHIEF_CAPTURE_SCORE + ply;
+            }
+
+            // endgame tables give the exact result, not in the root so that it always has a move
+            if(tablebases != null && ply > 0){
+                final int value = tablebases.probe(board);
+                if(value != Tablebases.NOT_FOUND){
+                    return Tablebases.toScore(value, ply);
+                }
+            }
+            if(depth <= 0 || ply >= SearchLimits.MAX_DEPTH){
+                return quiescence(alpha, beta, ply);
+            }
+
+            // transposition table cutoff, not in the root so that it always has a move
+            final long key = board.getZobristKey();
+            final long entry = transpositionTable.probe(key);
+            int hashMove = PackedMove.NULL_MOVE;
+            if(entry != TranspositionTable.MISS){
+                hashMove = TranspositionTable.getMove(entry);
+                if(ply > 0 && TranspositionTable.getDepth(entry) >= depth){
+                    final int score = scoreFromTable(TranspositionTable.getScore(entry), ply);
+                    final int bound = TranspositionTable.getBound(entry);
+                    if(bound == TranspositionTable.BOUND_EXACT
+                            || (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+                            || (bound == TranspositionTable.BOUND_UPPER && score <= alpha)){
+                        return score;
+                    }
+                }
+            }
+
+            final IntMoveList moves = moveLists[ply];
+            moves.clear();
+            board.generateMoves(moves);
+            if(moves.isEmpty()){
+                return 0;
+            }
+
+            // capturing the chief ends the game, nothing else has to be searched
+            for(int i = 0; i < moves.size(); i++){
+                if(PackedMove.isChiefCapture(moves.get(i))){
+                    principalVariations[ply][0] = moves.get(i);
+                    principalVariationLengths[ply] = 1;
+                    return CHIEF_CAPTURE_SCORE - ply - 1;
+                }
+            }
+
+            ordering.scoreMoves(moves, hashMove, ply);
+
+            final int originalAlpha = alpha;
+            int bestScore = -INFINITY;
+            int bestMove = PackedMove.NULL_MOVE;
+            for(int i = 0; i < moves.size(); i++){
+                final int move = ordering.next(moves, i, ply);
+                board.makeMove(move);
+                final int score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+                board.unmakeMove();
+                if(aborted){
+                    return 0;
+                }
+                if(score > bestScore){
+                    bestScore = score;
+                    bestMove = move;
+                    if(score > alpha){
+                        alpha = score;
+                        setPrincipalVariation(ply, move);
+                        if(score >= beta){
+                            ordering.cutoff(move, depth, ply);
+                            break;
+                        }
+                    }
+                }
+            }
+
+            final int bound = bestScore >= beta ? TranspositionTable.BOUND_LOWER
+                    : bestScore > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+            transpositionTable.store(key, bestMove, scoreToTable(bestScore, ply), depth, bound);
+            return bestScore;
+        }
+
+        /**
+         * Quiescence search, it searches only captures so that positions in the middle of an exchange are not evaluated
+         * Player to move can stand pat, that is take the static evaluation instead of capturing
+         * @param alpha lower bound of the interesting scores
+         * @param beta upper bound of the interesting scores
+         * @param ply distance from the root
+         * @return score of the position from the point of view of the player to move
+         */
+        private int quiescence(int alpha, final int beta, final int ply){
+            principalVariationLengths[ply] = 0;
+            if((++nodes & CHECK_INTERVAL) == 0){
+                checkLimits();
+            }
+            if(aborted){
+                return 0;
+            }
+
+            if(!board.hasChief(board.getSideToMove())){
+                return -CHIEF_CAPTURE_SCORE + ply;
+            }
+            final int standPat = board.evaluate();
+            if(standPat >= beta || ply >= SearchLimits.MAX_DEPTH){
+                return standPat;
+            }
+            if(standPat > alpha){
+                alpha = standPat;
+            }
+
+            final IntMoveList moves = moveLists[ply];
+            moves.clear();
+            board.generateCaptures(moves);
+            for(int i = 0; i < moves.size(); i++){
+                if(PackedMove.isChiefCapture(moves.get(i))){
+                    principalVariations[ply][0] = moves.get(i);
+                    principalVariationLengths[ply] = 1;
+                    return CHIEF_CAPTURE_SCORE - ply - 1;
+                }
+            }
+            ordering.scoreMoves(moves, PackedMove.NULL_MOVE, ply);
+
+            int bestScore = standPat;
+            for(int i = 0; i < moves.size(); i++){
+                final int move = ordering.next(moves, i, ply);
+                // delta pruning, transform changes material of the whole side so it is always searched
+                if(!PackedMove.isTransform(move)
+                        && standPat + board.getEvaluation().getMaterialValue(PIECE_TYPES[PackedMove.getCapturedType(move)]) + DELTA_MARGIN <= alpha){
+                    continue;
+                }
+                board.makeMove(move);
+                final int score = -quiescence(-beta, -alpha, ply + 1);
+                board.unmakeMove();
+                if(aborted){
+                    return 0;
+                }
+                if(score > bestScore){
+                    bestScore = score;
+                    if(score > alpha){
+                        alpha = score;
+                        setPrincipalVariation(ply, move);
+                        if(score >= beta){
+                            break;
+                        }
+                    }
+                }
+            }
+            return bestScore;
+        }
+
+        /**
+         * This method sets the principal variation of the ply to the move followed by the variation of the next ply
+         * @param ply distance from the root
+         * @param move best move at the ply
+         */
+        private void setPrincipalVariation(final int ply, final int move){
+            final int childLength = principalVariationLengths[ply + 1];
+            principalVariations[ply][0] = move;
+            System.arraycopy(principalVariations[ply + 1], 0, principalVariations[ply], 1, childLength);
+            principalVariationLengths[ply] = childLength + 1;
+        }
+
+        /**
+         * This method stops the search when a limit is reached or stop was requested
+         * First iteration of the main searcher is always completed, so that there is a move to play,
+         * helpers stop only when the main searcher ends
+         */
+        private void checkLimits(){
+            if(id > 0){
+                aborted = helpersStopped;
+            }else if(iterationDepth > 1 && (stopGeneration != generation || limitReached())){
+                aborted = true;
+            }
+        }
+
+        /**
+         * This method checks the node and time limits of the main searcher
+         * Pondering search has no limits until the ponder hit, then its hard limit is measured from the ponder hit,
+         * and it stops at once if it was pondering for longer than its soft limit
+         * @return true if a limit is reached
+         */
+        private boolean limitReached(){
+            final SearchLimits active = activeLimits();
+            if(active == null){
+                return false;
+            }
+            long hardStart = startTime;
+            if(limits.isPonder()){
+                hardStart = ponderHitTime;
+                if(active.getSoftTime() > 0 && (ponderHitTime - startTime) / 1_000_000 >= active.getSoftTime()){
+                    return true;
+                }
+            }
+            return (active.getNodes() > 0 && totalNodes() >= active.getNodes())
+                    || (active.getMoveTime() > 0 && (System.nanoTime() - hardStart) / 1_000_000 >= active.getMoveTime());
+        }
+
+        /**
+         * This method returns the limits checked by the main searcher
+         * @return limits of the search, limits given by the ponder hit, or null while pondering
+         */
+        private SearchLimits activeLimits(){
+            return limits.isPonder() ? ponderHitLimits : limits;
+        }
+
+        /**
+         * This method returns time since the start of the search
+         * @return elapsed time in milliseconds
+         */
+        private long elapsedMillis(){
+            return (System.nanoTime() - startTime) / 1_000_000;
+        }
+    }
+}
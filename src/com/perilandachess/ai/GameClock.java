@@ -0,0 +1,112 @@
+package com.perilandachess.ai;
+
+import com.perilandachess.Alliance;
+
+/**
+ * This class is a chess clock with base time and increment, one clock runs at a time
+ * The clock of a player runs from the start of its turn until its move, then the increment is added
+ */
+public final class GameClock {
+
+    // time each player starts with in milliseconds
+    private final long baseTime;
+
+    // time added after each move in milliseconds
+    private final long increment;
+
+    // time left for each player in milliseconds, indexed by alliance ordinal, without the running turn
+    private final long[] remaining = new long[Alliance.values().length];
+
+    // player whose clock runs, null if no clock runs
+    private Alliance running;
+
+    // start of the running turn, from System.nanoTime
+    private long turnStart;
+
+    /**
+     * Constructor for the clock
+     * @param baseTime time each player starts with in milliseconds
+     * @param increment time added after each move in milliseconds
+     */
+    public GameClock(final long baseTime, final long increment){
+        if(baseTime <= 0 || increment < 0){
+            throw new IllegalArgumentException("Base time must be positive and increment can not be negative!");
+        }
+        this.baseTime = baseTime;
+        this.increment = increment;
+        reset();
+    }
+
+    /**
+     * This method stops the clock and gives both players their base time
+     */
+    public synchronized void reset(){
+        running = null;
+        for(int i = 0; i < remaining.length; i++){
+            remaining[i] = baseTime;
+        }
+    }
+
+    /**
+     * This method starts the turn of a player, the running turn of the other player is ended first
+     * @param alliance player whose clock starts
+     */
+    public synchronized void startTurn(final Alliance alliance){
+        endTurn();
+        running = alliance;
+        turnStart = System.nanoTime();
+    }
+
+    /**
+     * This method ends the running turn, the time used is taken from the player and the increment is added
+     */
+    public synchronized void endTurn(){
+        if(running == null){
+            return;
+        }
+        remaining[running.ordinal()] = getRemaining(running) + increment;
+        running = null;
+    }
+
+    /**
+     * This method returns time left for a player, including the running turn
+     * @param alliance player
+     * @return time in milliseconds, not positive if the time ran out
+     */
+    public synchronized long getRemaining(final Alliance alliance){
+        final long used = alliance == running ? (System.nanoTime() - turnStart) / 1_000_000 : 0;
+        return remaining[alliance.ordinal()] - used;
+    }
+
+    /**
+     * This method returns time added after each move
+     * @return increment in milliseconds
+     */
+    public long getIncrement(){
+        return increment;
+    }
+
+    /**
+     * This method creates search limits for the move of a player from its remaining time
+     * @param alliance player to move
+     * @return search limits
+     */
+    public SearchLimits createLimits(final Alliance alliance){
+        return SearchLimits.clock(Math.max(0, getRemaining(alliance)), increment);
+    }
+
+    @Override
+    public String toString(){
+        return format(getRemaining(Alliance.ORANGE)) + " - " + format(getRemaining(Alliance.GREEN));
+    }
+
+    /**
+     * This method formats time as minutes and seconds
+     * @param millis time in milliseconds
+     * @return formatted time
+     */
+    private static String format(final long millis){
+        final long seconds = Math.max(0, millis) / 1000;
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+}
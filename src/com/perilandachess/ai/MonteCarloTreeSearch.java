@@ -0,0 +1,610 @@
+package com.perilandachess.ai;
+
+import com.perilandachess.board.Board;
+import com.perilandachess.board.IntMoveList;
+import com.perilandachess.board.Move;
+import com.perilandachess.board.MutableBoard;
+import com.perilandachess.board.PackedMove;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class is a computer player that uses Monte Carlo tree search with UCT selection
+ * All threads work on one shared tree (tree parallelism), a thread that walks through a node counts a visit at once,
+ * which works as a virtual loss and sends other threads to other nodes until the playout result is added
+ * Playouts are random games on a MutableBoard, the only bias is that a player who can capture the opponent chief does it
+ * Nodes live in a fixed size pool, and the subtree of the position that was reached is kept for the next move
+ * The player owns its search threads, it should be closed when it is no longer used
+ */
+public final class MonteCarloTreeSearch implements MoveStrategy, AutoCloseable {
+
+    // exploration constant of UCT
+    private static final double EXPLORATION = 1.4;
+
+    // leaf is expanded after it was visited this many times, so that single playouts do not fill the pool
+    private static final int EXPAND_VISITS = 2;
+
+    // playout without chief capture after this many moves is a draw
+    private static final int MAX_PLAYOUT_PLIES = 200;
+
+    // number of playouts when the limits give neither nodes nor time
+    private static final long DEFAULT_PLAYOUTS = 100_000;
+
+    // threads report their playouts and check the limits once per this many playouts
+    private static final int REPORT_INTERVAL = 32;
+
+    // states of a node in the first child array, values from 0 are indexes of the first child
+    private static final int UNEXPANDED = -1;
+    private static final int EXPANDING = -2;
+    private static final int TERMINAL_LOSS = -3;
+    private static final int TERMINAL_DRAW = -4;
+
+    // results of a game in half points, from the point of view of one player
+    private static final int WIN = 2;
+    private static final int DRAW = 1;
+    private static final int LOSS = 0;
+
+    // tree of the current search, and the spare pool the reused subtree is copied to
+    private Tree tree;
+    private Tree spareTree;
+
+    // position at the root of the tree, null if the tree is empty
+    private MutableBoard rootPosition;
+
+    // threads that run the playouts
+    private final ForkJoinPool pool;
+    private final int threads;
+
+    // incremented to stop the running search and the searches requested before it
+    private volatile long stopGeneration;
+
+    /**
+     * Constructor for the Monte Carlo tree search player
+     * @param megabytes memory cap of the tree in megabytes, it is split between the tree and the spare pool
+     * @param threads number of search threads
+     */
+    public MonteCarloTreeSearch(final int megabytes, final int threads){
+        if(megabytes <= 0 || threads < 1){
+            throw new IllegalArgumentException("Memory and number of threads must be positive!");
+        }
+        final int capacity = (int)Math.min(Integer.MAX_VALUE - 8, ((long)megabytes << 20) / (2 * Tree.BYTES_PER_NODE));
+        this.tree = new Tree(capacity);
+        this.spareTree = new Tree(capacity);
+        this.threads = threads;
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * This method stops the running search, the most visited move is returned
+     * Searches requested before the call are stopped too, even if they did not start yet
+     * @return generation of the searches requested after the call
+     */
+    public synchronized long stop(){
+        return ++stopGeneration;
+    }
+
+    /**
+     * This method returns the generation of a search requested now, any later call of stop ends the search
+     * @return current generation
+     */
+    public long getGeneration(){
+        return stopGeneration;
+    }
+
+    /**
+     * This method stops the search threads, the player can not search after it is closed
+     */
+    @Override
+    public void close(){
+        stop();
+        pool.shutdown();
+    }
+
+    /**
+     * This method chooses a move for the current player of the board
+     * @param board current position
+     * @param limits limits of the search, nodes limit the number of playouts
+     * @return most visited move, or Move.NULL_MOVE if the current player has no legal move
+     */
+    @Override
+    public Move execute(final Board board, final SearchLimits limits){
+        return Move.MoveFactory.createMove(board, search(new MutableBoard(board), limits).getBestMove());
+    }
+
+    /**
+     * This method runs playouts from the position until one of the limits is reached
+     * @param board position to search, it is not changed
+     * @param limits limits of the search, nodes limit the number of playouts
+     * @return most visited move with its win rate and the most visited line
+     */
+    public SearchResult search(final MutableBoard board, final SearchLimits limits){
+        return search(board, limits, getGeneration());
+    }
+
+    /**
+     * This method runs playouts from the position until one of the limits is reached or the generation is stopped
+     * @param board position to search, it is not changed
+     * @param limits limits of the search, nodes limit the number of playouts
+     * @param generation generation from getGeneration when the search was requested
+     * @return most visited move with its win rate and the most visited line
+     */
+    public synchronized SearchResult search(final MutableBoard board, final SearchLimits limits, final long generation){
+        final long startTime = System.nanoTime();
+        reuseTree(board);
+
+        // capturing the chief wins at once
+        final IntMoveList moves = new IntMoveList();
+        board.generateMoves(moves);
+        for(int i = 0; i < moves.size(); i++){
+            if(PackedMove.isChiefCapture(moves.get(i))){
+                return new SearchResult(moves.get(i), AlphaBeta.CHIEF_CAPTURE_SCORE - 1, 1, 0, 0, new int[]{moves.get(i)});
+            }
+        }
+        if(moves.isEmpty() || !board.hasChief(board.getSideToMove())){
+            return new SearchResult(PackedMove.NULL_MOVE, 0, 0, 0, 0, new int[0]);
+        }
+
+        final long playoutLimit = limits.getNodes() > 0 ? limits.getNodes() : limits.getMoveTime() > 0 ? Long.MAX_VALUE : DEFAULT_PLAYOUTS;
+        final long deadline = limits.getMoveTime() > 0 ? startTime + limits.getMoveTime() * 1_000_000 : Long.MAX_VALUE;
+        final AtomicLong playouts = new AtomicLong();
+        final Tree searchTree = tree;
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute(){
+                final Worker[] workers = new Worker[threads];
+                for(int i = 0; i < threads; i++){
+                    workers[i] = new Worker(searchTree, board, playouts, playoutLimit, deadline, generation, startTime + i);
+                }
+                invokeAll(workers);
+            }
+        });
+        return createResult(searchTree, playouts.get(), (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    /**
+     * This method prepares the tree for a search from the position
+     * If the position is the root of the last search or can be reached from it in one or two moves,
+     * its subtree is copied to the spare pool, which becomes the new tree, otherwise the tree is cleared
+     * @param board position of the new search
+     */
+    private void reuseTree(final MutableBoard board){
+        final int node = findNode(board);
+        if(node < 0){
+            tree.clear();
+        }else if(node > 0){
+            spareTree.copySubtree(tree, node);
+            final Tree oldTree = tree;
+            tree = spareTree;
+            spareTree = oldTree;
+        }
+        rootPosition = new MutableBoard(board);
+    }
+
+    /**
+     * This method finds the node of the position in the tree of the last search
+     * @param board position to find
+     * @return index of the node, or -1 if the position is not in the first two levels of the tree
+     */
+    private int findNode(final MutableBoard board){
+        if(rootPosition == null){
+            return -1;
+        }
+        final long key = board.getZobristKey();
+        if(rootPosition.getZobristKey() == key){
+            return 0;
+        }
+        final MutableBoard position = new MutableBoard(rootPosition);
+        final int firstChild = tree.firstChild.get(0);
+        for(int child = firstChild; firstChild >= 0 && child < firstChild + tree.childCount[0]; child++){
+            position.makeMove(tree.move[child]);
+            if(position.getZobristKey() == key){
+                return child;
+            }
+            final int firstGrandchild = tree.firstChild.get(child);
+            for(int grandchild = firstGrandchild; firstGrandchild >= 0 && grandchild < firstGrandchild + tree.childCount[child]; grandchild++){
+                position.makeMove(tree.move[grandchild]);
+                final boolean found = position.getZobristKey() == key;
+                position.unmakeMove();
+                if(found){
+                    return grandchild;
+                }
+            }
+            position.unmakeMove();
+        }
+        return -1;
+    }
+
+    /**
+     * This method creates the result from the root statistics
+     * @param searchTree searched tree
+     * @param playouts number of playouts
+     * @param time elapsed time in milliseconds
+     * @return search result
+     */
+    private static SearchResult createResult(final Tree searchTree, final long playouts, final long time){
+        final IntMoveList line = new IntMoveList();
+        int node = 0;
+        int bestChild = mostVisitedChild(searchTree, node);
+        double winRate = 0.5;
+        while(bestChild >= 0 && line.size() < SearchLimits.MAX_DEPTH){
+            if(node == 0){
+                winRate = searchTree.wins.get(bestChild) / (2.0 * Math.max(1, searchTree.visits.get(bestChild)));
+            }
+            line.add(searchTree.move[bestChild]);
+            node = bestChild;
+            bestChild = mostVisitedChild(searchTree, node);
+        }
+        final int[] principalVariation = new int[line.size()];
+        for(int i = 0; i < principalVariation.length; i++){
+            principalVariation[i] = line.get(i);
+        }
+        // win rate as a score on the usual logistic scale
+        final double clamped = Math.max(0.001, Math.min(0.999, winRate));
+        final int score = (int)Math.round(400 * Math.log10(clamped / (1 - clamped)));
+        final int bestMove = principalVariation.length > 0 ? principalVariation[0] : PackedMove.NULL_MOVE;
+        return new SearchResult(bestMove, score, principalVariation.length, playouts, time, principalVariation);
+    }
+
+    /**
+     * This method finds the most visited child of a node
+     * @param searchTree searched tree
+     * @param node index of the node
+     * @return index of the child, or -1 if the node has no visited child
+     */
+    private static int mostVisitedChild(final Tree searchTree, final int node){
+        final int firstChild = searchTree.firstChild.get(node);
+        int best = -1;
+        int bestVisits = 0;
+        for(int child = firstChild; firstChild >= 0 && child < firstChild + searchTree.childCount[node]; child++){
+            final int visits = searchTree.visits.get(child);
+            if(visits > bestVisits){
+                best = child;
+                bestVisits = visits;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * This class runs playouts on its own copy of the root position until the limits are reached
+     */
+    @SuppressWarnings("serial")
+    private final class Worker extends RecursiveAction {
+
+        // shared tree
+        private final Tree tree;
+
+        // own copy of the root position, moves are made and taken back on it
+        private final MutableBoard board;
+
+        // playouts of all workers, and their limit
+        private final AtomicLong playouts;
+        private final long playoutLimit;
+
+        // end of the search, from System.nanoTime
+        private final long deadline;
+
+        // generation of the search, it is stopped when the generation changes
+        private final long generation;
+
+        // nodes on the path from the root to the leaf
+        private final int[] path = new int[SearchLimits.MAX_DEPTH * 8];
+
+        // reusable move list
+        private final IntMoveList moves = new IntMoveList();
+
+        // state of the xorshift random generator
+        private long random;
+
+        /**
+         * Constructor for the worker
+         * @param tree shared tree
+         * @param root root position, it is copied
+         * @param playouts playouts of all workers
+         * @param playoutLimit maximum number of playouts
+         * @param deadline end of the search, from System.nanoTime
+         * @param generation generation of the search
+         * @param seed seed of the random generator
+         */
+        Worker(final Tree tree, final MutableBoard root, final AtomicLong playouts, final long playoutLimit, final long deadline,
+               final long generation, final long seed){
+            this.tree = tree;
+            this.board = new MutableBoard(root);
+            this.playouts = playouts;
+            this.playoutLimit = playoutLimit;
+            this.deadline = deadline;
+            this.generation = generation;
+            this.random = seed * 0x9E3779B97F4A7C15L | 1L;
+        }
+
+        @Override
+        protected void compute(){
+            while(true){
+                for(int i = 0; i < REPORT_INTERVAL; i++){
+                    iterate();
+                }
+                if(playouts.addAndGet(REPORT_INTERVAL) >= playoutLimit || stopGeneration != generation || System.nanoTime() >= deadline){
+                    return;
+                }
+            }
+        }
+
+        /**
+         * This method runs one iteration: selection, expansion, playout and backpropagation
+         */
+        private void iterate(){
+            int node = 0;
+            int depth = 0;
+            path[0] = 0;
+            int result;
+            while(true){
+                // visit is counted before the result is known, it is a virtual loss for other threads
+                tree.visits.incrementAndGet(node);
+                int firstChild = tree.firstChild.get(node);
+                if(firstChild == UNEXPANDED && (node == 0 || tree.visits.get(node) > EXPAND_VISITS)){
+                    firstChild = expand(node);
+                }
+                if(firstChild == TERMINAL_LOSS){
+                    result = LOSS;
+                    break;
+                }
+                if(firstChild == TERMINAL_DRAW){
+                    result = DRAW;
+                    break;
+                }
+                if(firstChild < 0 || depth + 1 == path.length){
+                    result = playout();
+                    break;
+                }
+                node = select(node, firstChild);
+                board.makeMove(tree.move[node]);
+                path[++depth] = node;
+            }
+
+            // result is for the player to move at the leaf, each node keeps the result of the player who moved into it
+            for(int i = depth; i >= 0; i--){
+                result = WIN - result;
+                tree.wins.addAndGet(path[i], result);
+                if(i > 0){
+                    board.unmakeMove();
+                }
+            }
+        }
+
+        /**
+         * This method expands a node, only one thread can expand a node, others go on with a playout
+         * @param node index of the node, board is at its position
+         * @return new state of the node
+         */
+        private int expand(final int node){
+            if(!tree.firstChild.compareAndSet(node, UNEXPANDED, EXPANDING)){
+                return tree.firstChild.get(node);
+            }
+            if(!board.hasChief(board.getSideToMove())){
+                tree.firstChild.set(node, TERMINAL_LOSS);
+                return TERMINAL_LOSS;
+            }
+            moves.clear();
+            board.generateMoves(moves);
+            if(moves.isEmpty()){
+                tree.firstChild.set(node, TERMINAL_DRAW);
+                return TERMINAL_DRAW;
+            }
+            final int firstChild = tree.allocate(moves.size());
+            if(firstChild < 0){
+                // pool is full, the node stays a leaf
+                tree.firstChild.set(node, UNEXPANDED);
+                return UNEXPANDED;
+            }
+            for(int i = 0; i < moves.size(); i++){
+                tree.move[firstChild + i] = moves.get(i);
+            }
+            tree.childCount[node] = moves.size();
+            tree.firstChild.set(node, firstChild);
+            return firstChild;
+        }
+
+        /**
+         * This method selects the child with the highest UCT value
+         * Child that captures the chief is always selected, unvisited children are selected before visited ones
+         * @param node index of the node
+         * @param firstChild index of the first child
+         * @return index of the selected child
+         */
+        private int select(final int node, final int firstChild){
+            final double logVisits = Math.log(Math.max(1, tree.visits.get(node)));
+            int best = firstChild;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for(int child = firstChild; child < firstChild + tree.childCount[node]; child++){
+                final int visits = tree.visits.get(child);
+                if(visits == 0 || PackedMove.isChiefCapture(tree.move[child])){
+                    return child;
+                }
+                final double value = tree.wins.get(child) / (2.0 * visits) + EXPLORATION * Math.sqrt(logVisits / visits);
+                if(value > bestValue){
+                    best = child;
+                    bestValue = value;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * This method plays a random game from the current position and takes its moves back
+         * @return result for the player to move, in half points
+         */
+        private int playout(){
+            final int side = board.getSideToMove().ordinal();
+            int result = DRAW;
+            int plies = 0;
+            while(plies < MAX_PLAYOUT_PLIES){
+                if(!board.hasChief(board.getSideToMove())){
+                    result = board.getSideToMove().ordinal() == side ? LOSS : WIN;
+                    break;
+                }
+                moves.clear();
+                board.generateMoves(moves);
+                if(moves.isEmpty()){
+                    break;
+                }
+                int move = moves.get(nextRandom(moves.size()));
+                if(!PackedMove.isCapture(move)){
+                    // quiet move is drawn again once, which makes captures about twice as likely
+                    move = moves.get(nextRandom(moves.size()));
+                }
+                for(int i = 0; i < moves.size(); i++){
+                    if(PackedMove.isChiefCapture(moves.get(i))){
+                        move = moves.get(i);
+                        break;
+                    }
+                }
+                board.makeMove(move);
+                plies++;
+            }
+            for(int i = 0; i < plies; i++){
+                board.unmakeMove();
+            }
+            return result;
+        }
+
+        /**
+         * This method returns a random number from the xorshift generator
+         * @param bound upper bound, exclusive
+         * @return random number between 0 and bound
+         */
+        private int nextRandom(final int bound){
+            random ^= random << 13;
+            random ^= random >>> 7;
+            random ^= random << 17;
+            return (int)((random >>> 33) % bound);
+        }
+    }
+
+    /**
+     * This class is a fixed size pool of tree nodes, stored as parallel arrays
+     * Children of a node are allocated together, so a node only keeps the index of its first child and their count
+     */
+    private static final class Tree {
+
+        // memory of one node in bytes: move, first child, child count, visits and source node, and wins
+        static final int BYTES_PER_NODE = 5 * Integer.BYTES + Long.BYTES;
+
+        // packed move that leads to the node
+        final int[] move;
+
+        // index of the first child, or the state of the node
+        final AtomicIntegerArray firstChild;
+
+        // number of children, written before the first child is published
+        final int[] childCount;
+
+        // number of visits, including visits whose result is not known yet
+        final AtomicIntegerArray visits;
+
+        // sum of the results in half points, for the player who moved into the node
+        final AtomicLongArray wins;
+
+        // number of used nodes
+        private final AtomicInteger size = new AtomicInteger();
+
+        // index of the source node of each node, used while copying a subtree
+        private final int[] sourceNodes;
+
+        /**
+         * Constructor for the tree
+         * @param capacity maximum number of nodes
+         */
+        Tree(final int capacity){
+            this.move = new int[capacity];
+            this.firstChild = new AtomicIntegerArray(capacity);
+            this.childCount = new int[capacity];
+            this.visits = new AtomicIntegerArray(capacity);
+            this.wins = new AtomicLongArray(capacity);
+            this.sourceNodes = new int[capacity];
+            clear();
+        }
+
+        /**
+         * This method removes all nodes except an unexpanded root
+         */
+        void clear(){
+            size.set(1);
+            move[0] = PackedMove.NULL_MOVE;
+            firstChild.set(0, UNEXPANDED);
+            childCount[0] = 0;
+            visits.set(0, 0);
+            wins.set(0, 0);
+        }
+
+        /**
+         * This method allocates nodes for the children of one node
+         * @param count number of children
+         * @return index of the first child, or -1 if the pool is full
+         */
+        int allocate(final int count){
+            while(true){
+                final int start = size.get();
+                if(start + count > move.length){
+                    return -1;
+                }
+                if(size.compareAndSet(start, start + count)){
+                    for(int node = start; node < start + count; node++){
+                        firstChild.set(node, UNEXPANDED);
+                        childCount[node] = 0;
+                        visits.set(node, 0);
+                        wins.set(node, 0);
+                    }
+                    return start;
+                }
+            }
+        }
+
+        /**
+         * This method replaces this tree with a copy of a subtree of another tree, the subtree root becomes node 0
+         * Nodes are copied in breadth first order, so children stay together
+         * @param source tree to copy from
+         * @param sourceRoot index of the subtree root in the source tree
+         */
+        void copySubtree(final Tree source, final int sourceRoot){
+            clear();
+            copyNode(source, sourceRoot, 0);
+            for(int node = 0; node < size.get(); node++){
+                final int sourceNode = sourceNodes[node];
+                final int sourceFirstChild = source.firstChild.get(sourceNode);
+                if(sourceFirstChild < 0){
+                    firstChild.set(node, sourceFirstChild == EXPANDING ? UNEXPANDED : sourceFirstChild);
+                    continue;
+                }
+                final int count = source.childCount[sourceNode];
+                final int start = allocate(count);
+                if(start < 0){
+                    firstChild.set(node, UNEXPANDED);
+                    continue;
+                }
+                for(int i = 0; i < count; i++){
+                    copyNode(source, sourceFirstChild + i, start + i);
+                }
+                childCount[node] = count;
+                firstChild.set(node, start);
+            }
+        }
+
+        /**
+         * This method copies move and statistics of one node
+         * @param source tree to copy from
+         * @param sourceNode index of the node in the source tree
+         * @param node index of the node in this tree
+         */
+        private void copyNode(final Tree source, final int sourceNode, final int node){
+            move[node] = source.move[sourceNode];
+            visits.set(node, source.visits.get(sourceNode));
+            wins.set(node, source.wins.get(sourceNode));
+            sourceNodes[node] = sourceNode;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.perilandachess.ai;
+
+import com.perilandachess.board.BoardUtils;
+import com.perilandachess.board.IntMoveList;
+import com.perilandachess.board.PackedMove;
+import com.perilandachess.pieces.Piece;
+
+/**
+ * This class orders moves for alpha-beta search, good moves searched first give more cutoffs
+ * Order is: move from the transposition table, captures by MVV-LVA (most valuable victim, least valuable attacker)
+ * with chief captures first, two killer moves of the ply, and then quiet moves by their history score
+ * Killer and history tables are learned during the search, so each search thread has its own ordering
+ */
+final class MoveOrdering {
+
+    // score bands, each band is above every score of the next one
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 28;
+    private static final int KILLER_SCORE = 1 << 27;
+
+    // history scores are halved when one of them reaches this value, so they stay below the killer band
+    private static final int HISTORY_LIMIT = 1 << 20;
+
+    // value of each piece type, indexed by type ordinal
+    private static final int[] PIECE_VALUES = initPieceValues();
+
+    // two killer moves for each ply, quiet moves that caused a cutoff in a sibling position
+    private final int[][] killers = new int[SearchLimits.MAX_DEPTH + 1][2];
+
+    // butterfly history, indexed by source and destination, grows for quiet moves that cause cutoffs
+    private final int[][] history = new int[BoardUtils.NUM_TILES][BoardUtils.NUM_TILES];
+
+    // order score of each move in the move list of each ply
+    private final int[][] scores = new int[SearchLimits.MAX_DEPTH + 1][256];
+
+    /**
+     * This method reads the value of each piece type
+     * @return values indexed by type ordinal
+     */
+    private static int[] initPieceValues(){
+        final Piece.PieceType[] pieceTypes = Piece.PieceType.values();
+        final int[] values = new int[pieceTypes.length];
+        for(final Piece.PieceType pieceType : pieceTypes){
+            values[pieceType.ordinal()] = pieceType.isChief() ? 1000 : pieceType.getPieceValue();
+        }
+        return values;
+    }
+
+    /**
+     * This method prepares the tables for a new search
+     * Killers are cleared, because they belong to the plies of the old root, history is kept but aged
+     */
+    void newSearch(){
+        for(final int[] plyKillers : killers){
+            plyKillers[0] = PackedMove.NULL_MOVE;
+            plyKillers[1] = PackedMove.NULL_MOVE;
+        }
+        for(final int[] fromHistory : history){
+            for(int to = 0; to < fromHistory.length; to++){
+                fromHistory[to] >>= 1;
+            }
+        }
+    }
+
+    /**
+     * This method calculates order scores of the moves, moves are then taken with next
+     * @param moves moves of the position
+     * @param hashMove move from the transposition table, or PackedMove.NULL_MOVE
+     * @param ply distance from the root
+     */
+    void scoreMoves(final IntMoveList moves, final int hashMove, final int ply){
+        if(scores[ply].length < moves.size()){
+            scores[ply] = new int[moves.size() * 2];
+        }
+        final int[] plyScores = scores[ply];
+        final int[] plyKillers = killers[ply];
+        for(int i = 0; i < moves.size(); i++){
+            final int move = moves.get(i);
+            if(move == hashMove){
+                plyScores[i] = HASH_MOVE_SCORE;
+            }else if(PackedMove.isCapture(move)){
+                plyScores[i] = CAPTURE_SCORE + PIECE_VALUES[PackedMove.getCapturedType(move)] * 16 - PIECE_VALUES[PackedMove.getMovingType(move)];
+            }else if(move == plyKillers[0]){
+                plyScores[i] = KILLER_SCORE + 1;
+            }else if(move == plyKillers[1]){
+                plyScores[i] = KILLER_SCORE;
+            }else{
+                plyScores[i] = history[PackedMove.getFrom(move)][PackedMove.getTo(move)];
+            }
+        }
+    }
+
+    /**
+     * This method moves the best of the remaining moves to given index, moves before the index are already taken
+     * @param moves moves scored by scoreMoves
+     * @param index index of the next move
+     * @param ply distance from the root
+     * @return best remaining move
+     */
+    int next(final IntMoveList moves, final int index, final int ply){
+        final int[] plyScores = scores[ply];
+        int best = index;
+        for(int i = index + 1; i < moves.size(); i++){
+            if(plyScores[i] > plyScores[best]){
+                best = i;
+            }
+        }
+        final int move = moves.get(best);
+        if(best != index){
+            moves.set(best, moves.get(index));
+            moves.set(index, move);
+            final int score = plyScores[best];
+            plyScores[best] = plyScores[index];
+            plyScores[index] = score;
+        }
+        return move;
+    }
+
+    /**
+     * This method learns from a move that caused a beta cutoff, quiet moves become killers and gain history
+     * @param move move that caused the cutoff
+     * @param depth remaining depth of the position
+     * @param ply distance from the root
+     */
+    void cutoff(final int move, final int depth, final int ply){
+        if(PackedMove.isCapture(move)){
+            return;
+        }
+        final int[] plyKillers = killers[ply];
+        if(plyKillers[0] != move){
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+        final int[] fromHistory = history[PackedMove.getFrom(move)];
+        final int to = PackedMove.getTo(move);
+        fromHistory[to] += depth * depth;
+        if(fromHistory[to] >= HISTORY_LIMIT){
+            for(final int[] row : history){
+                for(int i = 0; i < row.length; i++){
+                    row[i] >>= 1;
+                }
+            }
+        }
+    }
+}
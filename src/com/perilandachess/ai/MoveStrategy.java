@@ -0,0 +1,18 @@
+package com.perilandachess.ai;
+
+import com.perilandachess.board.Board;
+import com.perilandachess.board.Move;
+
+/**
+ * This interface represents a computer player that chooses a move for the player to move
+ */
+public interface MoveStrategy {
+
+    /**
+     * This method chooses a move for the current player of the board
+     * @param board current position
+     * @param limits limits of the search
+     * @return chosen move, or Move.NULL_MOVE if the current player has no legal move
+     */
+    Move execute(Board board, SearchLimits limits);
+}
@@ -0,0 +1,191 @@
+package com.perilandachess.ai;
+
+import com.perilandachess.board.PackedMove;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * This class is an opening book, it gives moves played in known positions
+ * Book file is a header (magic number, version and number of records) followed by fixed size records
+ * (Zobrist key, packed move, weight, games) sorted by key and move, weight is the sum of the results of the move
+ * in half points for the player who made it, games is the number of games the move was played in
+ * The file is memory-mapped and binary-searched in place, so lookups read no data into the heap and create no objects
+ * Only absolute reads of the mapped buffers are used, so one book can be used by many threads
+ */
+public final class OpeningBook {
+
+    /**
+     * Magic number at the start of the file, "PCOB"
+     */
+    public static final int MAGIC = 0x50434F42;
+
+    /**
+     * Version of the file format
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Size of the header in bytes
+     */
+    public static final int HEADER_BYTES = 16;
+
+    /**
+     * Size of one record in bytes
+     */
+    public static final int RECORD_BYTES = 20;
+
+    // offsets of the fields in the record
+    private static final int MOVE_OFFSET = 8;
+    private static final int WEIGHT_OFFSET = 12;
+    private static final int GAMES_OFFSET = 16;
+
+    // records in one mapped segment, a single mapping can not be larger than 2 GB
+    private static final int SEGMENT_RECORDS = Integer.MAX_VALUE / RECORD_BYTES;
+
+    // mapped parts of the file, each one holds SEGMENT_RECORDS records except the last
+    private final MappedByteBuffer[] segments;
+
+    // number of records
+    private final long size;
+
+    private OpeningBook(final MappedByteBuffer[] segments, final long size){
+        this.segments = segments;
+        this.size = size;
+    }
+
+    /**
+     * This method opens a book file and maps it into memory
+     * @param file book file
+     * @return opening book
+     * @throws IOException if the file can not be read or it is not a book
+     */
+    public static OpeningBook open(final File file) throws IOException {
+        try(RandomAccessFile input = new RandomAccessFile(file, "r")){
+            if(input.length() < HEADER_BYTES || input.readInt() != MAGIC || input.readInt() != VERSION){
+                throw new IOException(file + " is not an opening book!");
+            }
+            final long size = input.readLong();
+            if(size < 0 || HEADER_BYTES + size * RECORD_BYTES > input.length()){
+                throw new IOException(file + " is truncated!");
+            }
+            final FileChannel channel = input.getChannel();
+            final MappedByteBuffer[] segments = new MappedByteBuffer[(int)((size + SEGMENT_RECORDS - 1) / SEGMENT_RECORDS)];
+            for(int i = 0; i < segments.length; i++){
+                final long first = (long)i * SEGMENT_RECORDS;
+                final long records = Math.min(SEGMENT_RECORDS, size - first);
+                // mapping stays valid after the channel is closed
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * RECORD_BYTES, records * RECORD_BYTES);
+            }
+            return new OpeningBook(segments, size);
+        }
+    }
+
+    /**
+     * This method returns the number of records in the book
+     * @return number of records
+     */
+    public long size(){
+        return size;
+    }
+
+    /**
+     * This method finds the move played in the most games in the position
+     * @param key Zobrist key of the position
+     * @return packed move, or PackedMove.NULL_MOVE if the position is not in the book
+     */
+    public int getBestMove(final long key){
+        int best = PackedMove.NULL_MOVE;
+        int bestGames = 0;
+        for(long index = findFirst(key); index < size && getKey(index) == key; index++){
+            final int games = getGames(index);
+            if(games > bestGames){
+                best = getMove(index);
+                bestGames = games;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * This method chooses a move of the position at random, the chance of a move is proportional to its weight,
+     * so moves that won more often are played more often, and moves that only lost are never played
+     * @param key Zobrist key of the position
+     * @param random random number between 0 (inclusive) and 1 (exclusive)
+     * @return packed move, or PackedMove.NULL_MOVE if the position is not in the book or all its moves lost
+     */
+    public int getWeightedMove(final long key, final double random){
+        final long first = findFirst(key);
+        long totalWeight = 0;
+        long index = first;
+        for(; index < size && getKey(index) == key; index++){
+            totalWeight += getWeight(index);
+        }
+        long target = (long)(random * totalWeight);
+        for(long i = first; i < index; i++){
+            target -= getWeight(i);
+            if(target < 0){
+                return getMove(i);
+            }
+        }
+        return PackedMove.NULL_MOVE;
+    }
+
+    /**
+     * This method finds the first record with the key or a larger one
+     * @param key Zobrist key of the position
+     * @return index of the record, or size if all keys are smaller
+     */
+    private long findFirst(final long key){
+        long low = 0;
+        long high = size;
+        while(low < high){
+            final long middle = (low + high) >>> 1;
+            if(getKey(middle) < key){
+                low = middle + 1;
+            }else{
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * This method reads the key of a record
+     * @param index index of the record
+     * @return Zobrist key
+     */
+    private long getKey(final long index){
+        return segments[(int)(index / SEGMENT_RECORDS)].getLong((int)(index % SEGMENT_RECORDS) * RECORD_BYTES);
+    }
+
+    /**
+     * This method reads the move of a record
+     * @param index index of the record
+     * @return packed move
+     */
+    private int getMove(final long index){
+        return segments[(int)(index / SEGMENT_RECORDS)].getInt((int)(index % SEGMENT_RECORDS) * RECORD_BYTES + MOVE_OFFSET);
+    }
+
+    /**
+     * This method reads the weight of a record
+     * @param index index of the record
+     * @return sum of the results in half points
+     */
+    private int getWeight(final long index){
+        return segments[(int)(index / SEGMENT_RECORDS)].getInt((int)(index % SEGMENT_RECORDS) * RECORD_BYTES + WEIGHT_OFFSET);
+    }
+
+    /**
+     * This method reads the number of games of a record
+     * @param index index of the record
+     * @return number of games
+     */
+    private int getGames(final long index){
+        return segments[(int)(index / SEGMENT_RECORDS)].getInt((int)(index % SEGMENT_RECORDS) * RECORD_BYTES + GAMES_OFFSET);
+    }
+}
@@ -0,0 +1,202 @@
+package com.perilandachess.ai;
+
+import com.perilandachess.board.IntMoveList;
+import com.perilandachess.board.MutableBoard;
+import com.perilandachess.board.PackedMove;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class plays with the alpha-beta engine and thinks on the opponent's time
+ * After its move the engine searches the position after the reply it expects, the second move of its principal variation
+ * If the opponent plays that move the running search goes on with the clock limits (ponder hit),
+ * otherwise it is stopped and a new search starts, still helped by the transposition table
+ * Methods are called from one thread, the pondering search runs on a thread of its own
+ * Closing the engine stops pondering and its thread, the alpha-beta engine is closed by its owner
+ */
+public final class PonderingEngine implements AutoCloseable {
+
+    // engine shared by the normal and the pondering searches
+    private final AlphaBeta engine;
+
+    // thread of the pondering search
+    private final ExecutorService ponderThread;
+
+    // guards the end of the pondering search, so that a ponder hit never comes after the search ended
+    private final Object ponderLock = new Object();
+
+    // running or finished pondering search, null if the engine is not pondering
+    private Future<SearchResult> ponderSearch;
+
+    // set by the pondering search when it ends
+    private boolean ponderFinished;
+
+    // reply the pondering search expects
+    private int ponderMove = PackedMove.NULL_MOVE;
+
+    /**
+     * Constructor for the pondering engine
+     * @param engine engine that searches the moves
+     */
+    public PonderingEngine(final AlphaBeta engine){
+        this.engine = engine;
+        this.ponderThread = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "Ponder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * This method chooses the move of the engine, it uses the pondering search if it expected the last move
+     * @param board current position, it is not changed
+     * @param lastMove packed move the opponent just played, PackedMove.NULL_MOVE if unknown
+     * @param limits limits of the search
+     * @return result of the search
+     * @throws InterruptedException if the thread is interrupted while waiting for the search
+     */
+    public SearchResult think(final MutableBoard board, final int lastMove, final SearchLimits limits) throws InterruptedException {
+        return think(board, lastMove, limits, engine.getGeneration());
+    }
+
+    /**
+     * This method chooses the move of the engine, the search is stopped by a stop of the engine after it was requested
+     * @param board current position, it is not changed
+     * @param lastMove packed move the opponent just played, PackedMove.NULL_MOVE if unknown
+     * @param limits limits of the search
+     * @param generation generation of the engine when the move was requested
+     * @return result of the search
+     * @throws InterruptedException if the thread is interrupted while waiting for the search
+     */
+    public SearchResult think(final MutableBoard board, final int lastMove, final SearchLimits limits, final long generation) throws InterruptedException {
+        if(ponderSearch != null && lastMove != PackedMove.NULL_MOVE && lastMove == ponderMove){
+            synchronized(ponderLock){
+                if(!ponderFinished){
+                    engine.ponderHit(limits);
+                }
+            }
+            final SearchResult result = waitForPonderSearch();
+            if(result.getBestMove() != PackedMove.NULL_MOVE){
+                return result;
+            }
+        }
+        // result of a search of another position is of no use
+        long searchGeneration = generation;
+        if(ponderSearch != null){
+            // the stop of the pondering search is not meant for this search, unless the engine was stopped before
+            final long stopped = engine.stop();
+            if(stopped == generation + 1){
+                searchGeneration = stopped;
+            }
+            waitForPonderSearch();
+        }
+        return engine.search(board, limits, searchGeneration);
+    }
+
+    /**
+     * This method starts the pondering search after the move of the engine
+     * @param board position after the move of the engine, it is not changed
+     * @param result result of the search that chose the move
+     * @throws InterruptedException if the thread is interrupted while waiting for the earlier pondering search
+     */
+    public void startPondering(final MutableBoard board, final SearchResult result) throws InterruptedException {
+        stopPondering();
+        final int[] principalVariation = result.getPrincipalVariation();
+        if(principalVariation.length < 2 || !isLegal(board, principalVariation[1])){
+            return;
+        }
+        final MutableBoard ponderBoard = new MutableBoard(board);
+        ponderBoard.makeMove(principalVariation[1]);
+        ponderMove = principalVariation[1];
+        ponderFinished = false;
+        // generation is taken now, so a stop that comes before the pondering search starts is not lost
+        final long generation = engine.getGeneration();
+        ponderSearch = ponderThread.submit(() -> {
+            try{
+                return engine.search(ponderBoard, SearchLimits.ponder(), generation);
+            }finally{
+                synchronized(ponderLock){
+                    engine.ponderHit(null);
+                    ponderFinished = true;
+                }
+            }
+        });
+    }
+
+    /**
+     * This method stops the pondering search and waits for it to end
+     * @return result of the pondering search, null if the engine was not pondering
+     * @throws InterruptedException if the thread is interrupted while waiting for the search
+     */
+    public SearchResult stopPondering() throws InterruptedException {
+        if(ponderSearch == null){
+            return null;
+        }
+        engine.stop();
+        return waitForPonderSearch();
+    }
+
+    /**
+     * This method waits until the pondering search ends, it is forgotten when it ends
+     * @return result of the pondering search
+     * @throws InterruptedException if the thread is interrupted while waiting for the search
+     */
+    private SearchResult waitForPonderSearch() throws InterruptedException {
+        try{
+            final SearchResult result = ponderSearch.get();
+            ponderSearch = null;
+            ponderMove = PackedMove.NULL_MOVE;
+            return result;
+        }catch(final ExecutionException e){
+            ponderSearch = null;
+            ponderMove = PackedMove.NULL_MOVE;
+            throw new IllegalStateException("Pondering search failed!", e.getCause());
+        }
+    }
+
+    /**
+     * This method checks if a packed move is legal in the position
+     * @param board position
+     * @param move packed move
+     * @return true if the move is one of the legal moves
+     */
+    private static boolean isLegal(final MutableBoard board, final int move){
+        final IntMoveList moves = new IntMoveList();
+        board.generateMoves(moves);
+        for(int i = 0; i < moves.size(); i++){
+            if(moves.get(i) == move){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This method returns the reply the pondering search expects
+     * @return packed move, PackedMove.NULL_MOVE if the engine is not pondering
+     */
+    public int getPonderMove(){
+        return ponderMove;
+    }
+
+    /**
+     * This method stops the pondering search and its thread, it does not wait for the search to end
+     */
+    @Override
+    public void close(){
+        engine.stop();
+        ponderThread.shutdown();
+    }
+
+    /**
+     * This method stops pondering and clears everything the engine learned, it should be called before a new game
+     * @throws InterruptedException if the thread is interrupted while waiting for the pondering search
+     */
+    public void newGame() throws InterruptedException {
+        stopPondering();
+        engine.clear();
+    }
+}
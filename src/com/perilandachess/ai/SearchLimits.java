@@ -0,0 +1,217 @@
+package com.perilandachess.ai;
+
+/**
+ * This class contains limits of one search
+ * Search stops when any of the limits is reached, limit that is not set is not checked
+ */
+public final class SearchLimits {
+
+    /**
+     * Deepest search depth an engine will try
+     */
+    public static final int MAX_DEPTH = 64;
+
+    // share of the remaining time given to one move, as if this many moves were left
+    private static final int MOVES_TO_GO = 30;
+
+    // time kept back on the clock for the overhead of the caller, in milliseconds
+    private static final long SAFETY_MARGIN = 50;
+
+    // hard limit as a multiple of the soft limit, for the iteration that is still running
+    private static final int HARD_TO_SOFT = 4;
+
+    // maximum depth of the search
+    private final int depth;
+
+    // maximum number of visited nodes, 0 if there is no limit
+    private final long nodes;
+
+    // maximum time for the search in milliseconds, 0 if there is no limit
+    private final long moveTime;
+
+    // time after which no new iteration is started in milliseconds, 0 for half of moveTime
+    private final long softTime;
+
+    // true if the search ignores time and node limits until the engine is told that the expected move was played
+    private final boolean ponder;
+
+    /**
+     * Constructor for search limits, it takes Builder to set the limits
+     * @param builder builder with the limits
+     */
+    private SearchLimits(final Builder builder){
+        this.depth = builder.depth;
+        this.nodes = builder.nodes;
+        this.moveTime = builder.moveTime;
+        this.softTime = builder.softTime;
+        this.ponder = builder.ponder;
+    }
+
+    /**
+     * This method creates limits with only depth set
+     * @param depth maximum depth
+     * @return created limits
+     */
+    public static SearchLimits depth(final int depth){
+        return new Builder().setDepth(depth).build();
+    }
+
+    /**
+     * This method creates limits with only time set
+     * @param moveTime maximum time in milliseconds
+     * @return created limits
+     */
+    public static SearchLimits moveTime(final long moveTime){
+        return new Builder().setMoveTime(moveTime).build();
+    }
+
+    /**
+     * This method creates limits for a pondering search, it runs until it is stopped or told about a ponder hit
+     * @return created limits
+     */
+    public static SearchLimits ponder(){
+        return new Builder().setPonder(true).build();
+    }
+
+    /**
+     * This method allocates time for one move from a clock
+     * The soft limit is a share of the remaining time plus most of the increment, the hard limit lets
+     * the running iteration go on a few times longer, but never past what is left on the clock
+     * @param remaining time left on the clock of the player to move in milliseconds
+     * @param increment time added to the clock after each move in milliseconds
+     * @return created limits
+     */
+    public static SearchLimits clock(final long remaining, final long increment){
+        final long available = Math.max(1, remaining - SAFETY_MARGIN);
+        final long soft = Math.max(1, Math.min(available, available / MOVES_TO_GO + increment * 3 / 4));
+        final long hard = Math.min(available, soft * HARD_TO_SOFT);
+        return new Builder().setMoveTime(hard).setSoftTime(soft).build();
+    }
+
+    /**
+     * This method returns maximum depth of the search
+     * @return maximum depth
+     */
+    public int getDepth(){
+        return depth;
+    }
+
+    /**
+     * This method returns maximum number of visited nodes
+     * @return maximum number of nodes, 0 if there is no limit
+     */
+    public long getNodes(){
+        return nodes;
+    }
+
+    /**
+     * This method returns maximum time for the search
+     * @return time in milliseconds, 0 if there is no limit
+     */
+    public long getMoveTime(){
+        return moveTime;
+    }
+
+    /**
+     * This method returns time after which the search does not start a new iteration
+     * @return time in milliseconds, 0 if there is no limit
+     */
+    public long getSoftTime(){
+        return softTime > 0 ? softTime : moveTime / 2;
+    }
+
+    /**
+     * This method checks if the limits are for a pondering search
+     * @return true if time and node limits are ignored until a ponder hit
+     */
+    public boolean isPonder(){
+        return ponder;
+    }
+
+    @Override
+    public String toString(){
+        return "depth " + depth + " nodes " + nodes + " movetime " + moveTime + " softtime " + getSoftTime() + (ponder ? " ponder" : "");
+    }
+
+    /**
+     * Builder class for search limits
+     */
+    public static class Builder{
+
+        // maximum depth
+        int depth = MAX_DEPTH;
+
+        // maximum number of nodes
+        long nodes;
+
+        // maximum time in milliseconds
+        long moveTime;
+
+        // soft time in milliseconds
+        long softTime;
+
+        // pondering search
+        boolean ponder;
+
+        /**
+         * This method sets maximum depth
+         * @param depth maximum depth, between 1 and MAX_DEPTH
+         * @return builder with changed depth
+         */
+        public Builder setDepth(final int depth){
+            if(depth < 1 || depth > MAX_DEPTH){
+                throw new IllegalArgumentException("Depth must be between 1 and " + MAX_DEPTH + "!");
+            }
+            this.depth = depth;
+            return this;
+        }
+
+        /**
+         * This method sets maximum number of visited nodes
+         * @param nodes maximum number of nodes, 0 for no limit
+         * @return builder with changed node limit
+         */
+        public Builder setNodes(final long nodes){
+            this.nodes = nodes;
+            return this;
+        }
+
+        /**
+         * This method sets maximum time for the search
+         * @param moveTime time in milliseconds, 0 for no limit
+         * @return builder with changed time limit
+         */
+        public Builder setMoveTime(final long moveTime){
+            this.moveTime = moveTime;
+            return this;
+        }
+
+        /**
+         * This method sets time after which no new iteration is started
+         * @param softTime time in milliseconds, 0 for half of the maximum time
+         * @return builder with changed soft time
+         */
+        public Builder setSoftTime(final long softTime){
+            this.softTime = softTime;
+            return this;
+        }
+
+        /**
+         * This method sets if the search is pondering
+         * @param ponder true to ignore time and node limits until a ponder hit
+         * @return builder with changed pondering
+         */
+        public Builder setPonder(final boolean ponder){
+            this.ponder = ponder;
+            return this;
+        }
+
+        /**
+         * This method creates search limits
+         * @return search limits
+         */
+        public SearchLimits build(){
+            return new SearchLimits(this);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.perilandachess.ai;
+
+/**
+ * This interface is notified about the progress of a search
+ */
+public interface SearchListener {
+
+    /**
+     * This method is called after each completed iteration of iterative deepening
+     * @param result result of the iteration
+     */
+    void iterationCompleted(SearchResult result);
+}
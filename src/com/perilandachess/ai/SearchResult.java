@@ -0,0 +1,124 @@
+package com.perilandachess.ai;
+
+import com.perilandachess.board.PackedMove;
+
+/**
+ * This class contains result of one completed search iteration
+ */
+public final class SearchResult {
+
+    // best packed move
+    private final int bestMove;
+
+    // score from the point of view of the player to move
+    private final int score;
+
+    // depth of the completed iteration
+    private final int depth;
+
+    // number of visited nodes
+    private final long nodes;
+
+    // elapsed time in milliseconds
+    private final long time;
+
+    // principal variation, packed moves starting with the best move
+    private final int[] principalVariation;
+
+    /**
+     * Constructor for search result
+     * @param bestMove best packed move
+     * @param score score from the point of view of the player to move
+     * @param depth depth of the completed iteration
+     * @param nodes number of visited nodes
+     * @param time elapsed time in milliseconds
+     * @param principalVariation expected line of play, starting with the best move
+     */
+    public SearchResult(final int bestMove, final int score, final int depth, final long nodes, final long time, final int[] principalVariation){
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.time = time;
+        this.principalVariation = principalVariation;
+    }
+
+    /**
+     * This method returns the best move
+     * @return best packed move, or PackedMove.NULL_MOVE if there is no legal move
+     */
+    public int getBestMove(){
+        return bestMove;
+    }
+
+    /**
+     * This method returns the score
+     * @return score from the point of view of the player to move
+     */
+    public int getScore(){
+        return score;
+    }
+
+    /**
+     * This method returns the depth
+     * @return depth of the completed iteration
+     */
+    public int getDepth(){
+        return depth;
+    }
+
+    /**
+     * This method returns the number of visited nodes
+     * @return number of nodes
+     */
+    public long getNodes(){
+        return nodes;
+    }
+
+    /**
+     * This method returns elapsed time
+     * @return time in milliseconds
+     */
+    public long getTime(){
+        return time;
+    }
+
+    /**
+     * This method returns the principal variation
+     * @return copy of the packed moves of the expected line
+     */
+    public int[] getPrincipalVariation(){
+        return principalVariation.clone();
+    }
+
+    /**
+     * This method checks if the score means that one chief will be captured
+     * @return true if the score is a chief capture score
+     */
+    public boolean isChiefCaptureScore(){
+        return Math.abs(score) >= AlphaBeta.CHIEF_CAPTURE_BOUND;
+    }
+
+    /**
+     * String representation of the result, for example "depth 6 score 120 nodes 53210 time 42 pv Ea6-c4 Ta1-a4"
+     * @return String representation of the result
+     */
+    @Override
+    public String toString(){
+        final StringBuilder builder = new StringBuilder();
+        builder.append("depth ").append(depth);
+        if(isChiefCaptureScore()){
+            final int plies = AlphaBeta.CHIEF_CAPTURE_SCORE - Math.abs(score);
+            builder.append(" capture ").append(score > 0 ? plies : -plies);
+        }else{
+            builder.append(" score ").append(score);
+        }
+        builder.append(" nodes ").append(nodes).append(" time ").append(time);
+        builder.append(" nps ").append(time > 0 ? nodes * 1000 / time : nodes);
+        builder.append(" pv");
+        for(final int move : principalVariation){
+            builder.append(' ').append(PackedMove.toString(move));
+        }
+        return builder.toString();
+    }
+}
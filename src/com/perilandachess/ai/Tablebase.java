@@ -0,0 +1,740 @@
+package com.perilandachess.ai;
+
+import com.perilandachess.Alliance;
+import com.perilandachess.board.BoardUtils;
+import com.perilandachess.board.MutableBoard;
+import com.perilandachess.pieces.Piece;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * This class is one endgame table, it gives the distance to chief capture of every position with one set of pieces
+ * Set of pieces is the material key: number of advancers, tridents and transforming pieces (excels and tercels,
+ * which transform into each other) of each player, both chiefs are always on the board
+ *
+ * Position index is built from the player to move, transform phases of both players, tiles of the chiefs,
+ * and the tiles with one state bit of every other piece: direction for advancers and tridents, excel or tercel
+ * for transforming pieces. Moves of every piece are the same on the mirrored board, so a position with the orange chief
+ * on the right half is indexed as its mirror image, and the orange chief has only 28 tiles. Every other piece is
+ * indexed by its tile among the tiles that are still free, and pieces of the same kind of one player take
+ * one combination of free tiles, so every index is a different valid position
+ * Tables with 3 pieces have 2.3 million positions, with 4 pieces up to 210 million and with 5 pieces up to 19 billion
+ *
+ * Value of a position is 0 for a draw, odd number n if the player to move captures the opponent chief on its n-th ply,
+ * and even number n if the opponent captures the chief of the player to move on the n-th ply
+ *
+ * File is a header, an offset table and blocks of BLOCK_ENTRIES values, each block is packed with its own bit width,
+ * so blocks of draws and unreachable positions take almost nothing. The file is memory-mapped
+ */
+public final class Tablebase {
+
+    /**
+     * Magic number at the start of the file, "PCTB"
+     */
+    public static final int MAGIC = 0x50435442;
+
+    /**
+     * Version of the file format
+     */
+    public static final int VERSION = 3;
+
+    /**
+     * Extension of table files
+     */
+    public static final String EXTENSION = ".ptb";
+
+    /**
+     * Number of values in one block
+     */
+    public static final int BLOCK_ENTRIES = 4096;
+
+    /**
+     * Maximum number of pieces of one kind of one player
+     */
+    public static final int MAX_PER_KIND = 3;
+
+    /**
+     * Largest value a table can hold, the search keeps this many plies of chief capture scores for table distances
+     */
+    public static final int MAX_VALUE = 1023;
+
+    /**
+     * Kinds of pieces in the material key
+     */
+    public static final int ADVANCERS = 0;
+    public static final int TRIDENTS = 1;
+    public static final int TRANSFORMING = 2;
+    public static final int NUM_KINDS = 3;
+
+    // letters of the kinds in table names
+    private static final char[] KIND_LETTERS = {'A', 'R', 'X'};
+
+    // header: magic, version, material key, block entries, number of values, number of blocks, largest value
+    private static final int HEADER_BYTES = 32;
+
+    // player to move and transform phases of both players
+    private static final int NUM_STATES = 2 * 3 * 3;
+
+    // tiles of the orange chief: the left half of the board and the middle column
+    private static final int[] CHIEF_TILES = initChiefTiles();
+
+    // index of each tile in CHIEF_TILES, -1 for tiles on the right half
+    private static final int[] CHIEF_TILE_INDEXES = initChiefTileIndexes();
+
+    // tiles of the green chief, any tile but the one of the orange chief
+    private static final int GREEN_CHIEF_RADIX = BoardUtils.NUM_TILES - 1;
+
+    // tile on the other side of the middle column in the same row
+    private static final int[] MIRROR_TILES = initMirrorTiles();
+
+    // number of ways to choose k of n tiles, indexed by n and k
+    private static final long[][] BINOMIALS = initBinomials();
+
+    // mapped file is split into segments of this size, so files larger than 2 GB can be mapped
+    private static final long SEGMENT_BYTES = 1L << 30;
+
+    // each segment also maps the start of the next one, so a block or an offset is always read from one segment
+    private static final int SEGMENT_OVERLAP = 1 + BLOCK_ENTRIES * Short.BYTES;
+
+    private static final int CHIEF = Piece.PieceType.CHIEF.ordinal();
+    private static final int ADVANCER = Piece.PieceType.ADVANCER.ordinal();
+    private static final int TRIDENT = Piece.PieceType.TRIDENT.ordinal();
+    private static final int EXCEL = Piece.PieceType.EXCEL.ordinal();
+    private static final int TERCEL = Piece.PieceType.TERCEL.ordinal();
+
+    private static final Alliance[] ALLIANCES = Alliance.values();
+
+    // set of pieces of the table
+    private final int materialKey;
+
+    // groups of pieces of one kind of one player, in index order: alliance ordinal, kind and number of pieces
+    private final int[] groupAlliances;
+    private final int[] groupKinds;
+    private final int[] groupCounts;
+
+    // number of free tiles for each group, and the number of its placements with their state bits
+    private final int[] groupFreeTiles;
+    private final long[] groupRadices;
+
+    // product of the radices of the groups after each group
+    private final long[] groupDivisors;
+
+    // number of placements of all groups
+    private final long piecesRadix;
+
+    // number of values
+    private final long size;
+
+    // segments of the mapped file, null for a table without data
+    private final MappedByteBuffer[] segments;
+
+    // number of blocks
+    private final int blockCount;
+
+    private Tablebase(final int materialKey, final MappedByteBuffer[] segments){
+        this.materialKey = materialKey;
+        int groups = 0;
+        for(int alliance = 0; alliance < 2; alliance++){
+            for(int kind = 0; kind < NUM_KINDS; kind++){
+                groups += getCount(materialKey, alliance, kind) > 0 ? 1 : 0;
+            }
+        }
+        this.groupAlliances = new int[groups];
+        this.groupKinds = new int[groups];
+        this.groupCounts = new int[groups];
+        this.groupFreeTiles = new int[groups];
+        this.groupRadices = new long[groups];
+        this.groupDivisors = new long[groups];
+        int group = 0;
+        int freeTiles = BoardUtils.NUM_TILES - 2;
+        for(int alliance = 0; alliance < 2; alliance++){
+            for(int kind = 0; kind < NUM_KINDS; kind++){
+                final int count = getCount(materialKey, alliance, kind);
+                if(count == 0){
+                    continue;
+                }
+                groupAlliances[group] = alliance;
+                groupKinds[group] = kind;
+                groupCounts[group] = count;
+                groupFreeTiles[group] = freeTiles;
+                groupRadices[group] = BINOMIALS[freeTiles][count] << count;
+                freeTiles -= count;
+                group++;
+            }
+        }
+        long radix = 1;
+        for(group = groups - 1; group >= 0; group--){
+            groupDivisors[group] = radix;
+            radix *= groupRadices[group];
+        }
+        this.piecesRadix = radix;
+        this.size = (long)NUM_STATES * CHIEF_TILES.length * GREEN_CHIEF_RADIX * piecesRadix;
+        this.segments = segments;
+        final long blocks = (size + BLOCK_ENTRIES - 1) / BLOCK_ENTRIES;
+        if(blocks > Integer.MAX_VALUE){
+            throw new IllegalArgumentException(getName(materialKey) + " has too many positions!");
+        }
+        this.blockCount = (int)blocks;
+    }
+
+    /**
+     * This method creates a table without data, it is used to index positions while the table is generated
+     * @param materialKey set of pieces
+     * @return table without data
+     */
+    public static Tablebase create(final int materialKey){
+        if(materialKey < 0){
+            throw new IllegalArgumentException("Invalid material key!");
+        }
+        return new Tablebase(materialKey, null);
+    }
+
+    /**
+     * This method opens a table file and maps it into memory
+     * @param file table file
+     * @return table
+     * @throws IOException if the file can not be read or it is not a table
+     */
+    public static Tablebase open(final File file) throws IOException {
+        try(RandomAccessFile input = new RandomAccessFile(file, "r")){
+            if(input.length() < HEADER_BYTES || input.readInt() != MAGIC || input.readInt() != VERSION){
+                throw new IOException(file + " is not an endgame table!");
+            }
+            final int materialKey = input.readInt();
+            if(input.readInt() != BLOCK_ENTRIES){
+                throw new IOException(file + " has unsupported block size!");
+            }
+            final long length = input.length();
+            final MappedByteBuffer[] segments = new MappedByteBuffer[(int)((length + SEGMENT_BYTES - 1) / SEGMENT_BYTES)];
+            for(int i = 0; i < segments.length; i++){
+                final long start = i * SEGMENT_BYTES;
+                segments[i] = input.getChannel().map(FileChannel.MapMode.READ_ONLY, start, Math.min(length - start, SEGMENT_BYTES + SEGMENT_OVERLAP));
+            }
+            final Tablebase table = new Tablebase(materialKey, segments);
+            if(table.readLong(16) != table.size){
+                throw new IOException(file + " does not match its material!");
+            }
+            if(segments[0].getInt(28) > MAX_VALUE){
+                throw new IOException(file + " has values larger than " + MAX_VALUE + "!");
+            }
+            return table;
+        }
+    }
+
+    /**
+     * This method writes a table file
+     * @param file table file
+     * @param values value of every position, between 0 and MAX_VALUE
+     * @throws IOException if the file can not be written
+     */
+    public void write(final File file, final Values values) throws IOException {
+        if(values.size() != size){
+            throw new IllegalArgumentException("Number of values does not match the table!");
+        }
+        final int[] widths = new int[blockCount];
+        int longest = 0;
+        for(int block = 0; block < blockCount; block++){
+            int max = 0;
+            for(long i = (long)block * BLOCK_ENTRIES; i < (long)block * BLOCK_ENTRIES + entriesInBlock(block); i++){
+                max = Math.max(max, values.get(i));
+            }
+            widths[block] = 32 - Integer.numberOfLeadingZeros(max);
+            longest = Math.max(longest, max);
+        }
+        if(longest > MAX_VALUE){
+            throw new IllegalArgumentException("Values of the table are larger than " + MAX_VALUE + "!");
+        }
+        try(DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))){
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(materialKey);
+            output.writeInt(BLOCK_ENTRIES);
+            output.writeLong(size);
+            output.writeInt(blockCount);
+            output.writeInt(longest);
+
+            // offsets of the blocks from the start of the file, and the end of the last block
+            long offset = HEADER_BYTES + 8L * (blockCount + 1);
+            for(int block = 0; block < blockCount; block++){
+                output.writeLong(offset);
+                offset += 1 + blockBytes(widths[block], entriesInBlock(block));
+            }
+            output.writeLong(offset);
+
+            for(int block = 0; block < blockCount; block++){
+                output.writeByte(widths[block]);
+                long bits = 0;
+                int bitCount = 0;
+                for(long i = (long)block * BLOCK_ENTRIES; i < (long)block * BLOCK_ENTRIES + entriesInBlock(block); i++){
+                    bits |= (long)values.get(i) << bitCount;
+                    bitCount += widths[block];
+                    while(bitCount >= 8){
+                        output.writeByte((int)bits);
+                        bits >>>= 8;
+                        bitCount -= 8;
+                    }
+                }
+                if(bitCount > 0){
+                    output.writeByte((int)bits);
+                }
+            }
+        }
+    }
+
+    /**
+     * This method unpacks one block of the mapped file
+     * @param block index of the block
+     * @param values array for at least BLOCK_ENTRIES values
+     */
+    void readBlock(final int block, final short[] values){
+        final long offset = readLong(HEADER_BYTES + 8L * block);
+        final MappedByteBuffer data = segments[(int)(offset / SEGMENT_BYTES)];
+        int position = (int)(offset % SEGMENT_BYTES);
+        final int width = data.get(position++);
+        final int entries = entriesInBlock(block);
+        final int mask = (1 << width) - 1;
+        long bits = 0;
+        int bitCount = 0;
+        for(int i = 0; i < entries; i++){
+            while(bitCount < width){
+                bits |= (long)(data.get(position++) & 0xFF) << bitCount;
+                bitCount += 8;
+            }
+            values[i] = (short)(bits & mask);
+            bits >>>= width;
+            bitCount -= width;
+        }
+    }
+
+    /**
+     * This method reads a long from the mapped file
+     * @param offset offset from the start of the file
+     * @return value
+     */
+    private long readLong(final long offset){
+        return segments[(int)(offset / SEGMENT_BYTES)].getLong((int)(offset % SEGMENT_BYTES));
+    }
+
+    /**
+     * This method calculates the number of values in a block
+     * @param block index of the block
+     * @return BLOCK_ENTRIES, or less for the last block
+     */
+    private int entriesInBlock(final int block){
+        return (int)Math.min(BLOCK_ENTRIES, size - (long)block * BLOCK_ENTRIES);
+    }
+
+    /**
+     * This method calculates the size of a packed block without its width byte
+     * @param width bits of one value
+     * @param entries number of values
+     * @return size in bytes
+     */
+    private static long blockBytes(final int width, final int entries){
+        return ((long)width * entries + 7) / 8;
+    }
+
+    /**
+     * This method calculates the index of a position, the position must have the pieces of the table
+     * @param board position
+     * @return index of the position
+     */
+    public long index(final MutableBoard board){
+        final long orangeChief = board.getPieceBitboard(Alliance.ORANGE, Piece.PieceType.CHIEF);
+        final boolean mirrored = CHIEF_TILE_INDEXES[Long.numberOfTrailingZeros(orangeChief)] < 0;
+        final int side = board.getSideToMove().ordinal();
+        long index = (side * 3 + board.getMovesMade(Alliance.ORANGE) % 3) * 3 + board.getMovesMade(Alliance.GREEN) % 3;
+
+        long occupied = mirror(orangeChief, mirrored);
+        index = index * CHIEF_TILES.length + CHIEF_TILE_INDEXES[Long.numberOfTrailingZeros(occupied)];
+        final int greenChief = Long.numberOfTrailingZeros(mirror(board.getPieceBitboard(Alliance.GREEN, Piece.PieceType.CHIEF), mirrored));
+        index = index * GREEN_CHIEF_RADIX + freeRank(greenChief, occupied);
+        occupied |= BoardUtils.tileBit(greenChief);
+
+        for(int group = 0; group < groupCounts.length; group++){
+            final Alliance alliance = ALLIANCES[groupAlliances[group]];
+            final long pieces;
+            final long states;
+            if(groupKinds[group] == TRANSFORMING){
+                final long tercels = board.getPieceBitboard(alliance, Piece.PieceType.TERCEL);
+                pieces = board.getPieceBitboard(alliance, Piece.PieceType.EXCEL) | tercels;
+                states = tercels;
+            }else{
+                pieces = board.getPieceBitboard(alliance, groupKinds[group] == ADVANCERS ? Piece.PieceType.ADVANCER : Piece.PieceType.TRIDENT);
+                states = pieces & board.getReversedPieces();
+            }
+            final long tiles = mirror(pieces, mirrored);
+            final long stateTiles = mirror(states, mirrored);
+            // combination of free tiles in the combinatorial number system, state bits of the pieces in order of their tiles
+            long combination = 0;
+            int stateBits = 0;
+            int order = 1;
+            for(long rest = tiles; rest != 0; rest &= rest - 1){
+                final int coordinate = Long.numberOfTrailingZeros(rest);
+                combination += BINOMIALS[freeRank(coordinate, occupied)][order++];
+                stateBits = stateBits * 2 + (int)((stateTiles >>> coordinate) & 1L);
+            }
+            index = index * groupRadices[group] + (combination << groupCounts[group]) + stateBits;
+            occupied |= tiles;
+        }
+        return index;
+    }
+
+    /**
+     * This method sets the board to the position with given index, every index is a valid position
+     * @param index index of the position
+     * @param board board to set
+     * @param pieces array for the bitboard indexes of the pieces, at least as long as the number of pieces
+     * @param coordinates array for the tiles of the pieces, at least as long as the number of pieces
+     */
+    public void setPosition(final long index, final MutableBoard board, final int[] pieces, final int[] coordinates){
+        final long placements = index % piecesRadix;
+        long rest = index / piecesRadix;
+        final int greenChiefRank = (int)(rest % GREEN_CHIEF_RADIX);
+        rest /= GREEN_CHIEF_RADIX;
+        final int orangeChief = CHIEF_TILES[(int)(rest % CHIEF_TILES.length)];
+        final int state = (int)(rest / CHIEF_TILES.length);
+
+        long occupied = BoardUtils.tileBit(orangeChief);
+        final int greenChief = nthFreeTile(greenChiefRank, occupied);
+        occupied |= BoardUtils.tileBit(greenChief);
+        pieces[0] = CHIEF;
+        coordinates[0] = orangeChief;
+        pieces[1] = BoardUtils.NUM_PIECE_TYPES + CHIEF;
+        coordinates[1] = greenChief;
+
+        int count = 2;
+        long reversed = 0L;
+        for(int group = 0; group < groupCounts.length; group++){
+            final int groupCount = groupCounts[group];
+            final long placement = placements / groupDivisors[group] % groupRadices[group];
+            long combination = placement >>> groupCount;
+            final int stateBits = (int)(placement & ((1 << groupCount) - 1));
+            long tiles = 0L;
+            // the piece with the highest tile has the largest part of the combination and the lowest state bit
+            int rank = groupFreeTiles[group];
+            for(int order = groupCount; order >= 1; order--){
+                do{
+                    rank--;
+                }while(BINOMIALS[rank][order] > combination);
+                combination -= BINOMIALS[rank][order];
+                final int coordinate = nthFreeTile(rank, occupied);
+                tiles |= BoardUtils.tileBit(coordinate);
+                final boolean stateBit = ((stateBits >>> (groupCount - order)) & 1) != 0;
+                final int type;
+                if(groupKinds[group] == TRANSFORMING){
+                    type = stateBit ? TERCEL : EXCEL;
+                }else{
+                    type = groupKinds[group] == ADVANCERS ? ADVANCER : TRIDENT;
+                    if(stateBit){
+                        reversed |= BoardUtils.tileBit(coordinate);
+                    }
+                }
+                pieces[count] = groupAlliances[group] * BoardUtils.NUM_PIECE_TYPES + type;
+                coordinates[count] = coordinate;
+                count++;
+            }
+            occupied |= tiles;
+        }
+        board.setPosition(pieces, coordinates, count, reversed, ALLIANCES[state / 9], state / 3 % 3, state % 3);
+    }
+
+    /**
+     * This method returns the rank of a tile among the tiles that are not occupied
+     * @param coordinate free tile
+     * @param occupied occupied tiles
+     * @return number of free tiles before the tile
+     */
+    private static int freeRank(final int coordinate, final long occupied){
+        return coordinate - Long.bitCount(occupied & (BoardUtils.tileBit(coordinate) - 1));
+    }
+
+    /**
+     * This method finds a free tile by its rank
+     * @param rank rank among the free tiles
+     * @param occupied occupied tiles
+     * @return tile
+     */
+    private static int nthFreeTile(final int rank, final long occupied){
+        long free = ~occupied & BoardUtils.ALL_TILES;
+        for(int i = 0; i < rank; i++){
+            free &= free - 1;
+        }
+        return Long.numberOfTrailingZeros(free);
+    }
+
+    /**
+     * This method mirrors tiles of a bitboard around the middle column
+     * @param bitboard tiles
+     * @param mirrored false to return the tiles as they are
+     * @return mirrored tiles
+     */
+    private static long mirror(final long bitboard, final boolean mirrored){
+        if(!mirrored){
+            return bitboard;
+        }
+        long result = 0L;
+        for(long rest = bitboard; rest != 0; rest &= rest - 1){
+            result |= BoardUtils.tileBit(MIRROR_TILES[Long.numberOfTrailingZeros(rest)]);
+        }
+        return result;
+    }
+
+    /**
+     * This method lists the tiles of the orange chief in an index
+     * @return tiles of the left half of the board and the middle column
+     */
+    private static int[] initChiefTiles(){
+        final int columns = BoardUtils.NUM_TILES_PER_ROW / 2 + 1;
+        final int[] tiles = new int[BoardUtils.NUM_TILES_PER_ROW * columns];
+        int count = 0;
+        for(int coordinate = 0; coordinate < BoardUtils.NUM_TILES; coordinate++){
+            if(coordinate % BoardUtils.NUM_TILES_PER_ROW < columns){
+                tiles[count++] = coordinate;
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * This method creates the index of each tile of the orange chief
+     * @return index in CHIEF_TILES indexed by tile, -1 for tiles that are mirrored
+     */
+    private static int[] initChiefTileIndexes(){
+        final int[] indexes = new int[BoardUtils.NUM_TILES];
+        Arrays.fill(indexes, -1);
+        for(int i = 0; i < CHIEF_TILES.length; i++){
+            indexes[CHIEF_TILES[i]] = i;
+        }
+        return indexes;
+    }
+
+    /**
+     * This method creates the mirror image of each tile
+     * @return mirrored tile indexed by tile
+     */
+    private static int[] initMirrorTiles(){
+        final int[] tiles = new int[BoardUtils.NUM_TILES];
+        for(int coordinate = 0; coordinate < BoardUtils.NUM_TILES; coordinate++){
+            final int row = coordinate / BoardUtils.NUM_TILES_PER_ROW;
+            tiles[coordinate] = row * BoardUtils.NUM_TILES_PER_ROW + BoardUtils.NUM_TILES_PER_ROW - 1 - coordinate % BoardUtils.NUM_TILES_PER_ROW;
+        }
+        return tiles;
+    }
+
+    /**
+     * This method creates the binomial coefficients used by the combinations of tiles
+     * @return number of ways to choose k of n tiles, indexed by n and k
+     */
+    private static long[][] initBinomials(){
+        final long[][] binomials = new long[BoardUtils.NUM_TILES + 1][MAX_PER_KIND + 1];
+        for(int n = 0; n <= BoardUtils.NUM_TILES; n++){
+            binomials[n][0] = 1;
+            for(int k = 1; k <= MAX_PER_KIND; k++){
+                binomials[n][k] = n == 0 ? 0 : binomials[n - 1][k - 1] + binomials[n - 1][k];
+            }
+        }
+        return binomials;
+    }
+
+    /**
+     * This method returns the set of pieces of the table
+     * @return material key
+     */
+    public int getMaterialKey(){
+        return materialKey;
+    }
+
+    /**
+     * This method returns the number of positions of the table, including invalid ones
+     * @return number of values
+     */
+    public long size(){
+        return size;
+    }
+
+    /**
+     * This method returns the number of blocks of the table
+     * @return number of blocks
+     */
+    int getBlockCount(){
+        return blockCount;
+    }
+
+    /**
+     * String representation of the table, its name
+     * @return name of the table
+     */
+    @Override
+    public String toString(){
+        return getName(materialKey);
+    }
+
+    /**
+     * This method calculates the material key of a position
+     * @param board position
+     * @return material key, or -1 if a chief is missing or there are too many pieces of one kind
+     */
+    public static int materialKey(final MutableBoard board){
+        int key = 0;
+        for(final Alliance alliance : ALLIANCES){
+            if(Long.bitCount(board.getPieceBitboard(alliance, Piece.PieceType.CHIEF)) != 1){
+                return -1;
+            }
+            final int[] counts = {
+                    Long.bitCount(board.getPieceBitboard(alliance, Piece.PieceType.ADVANCER)),
+                    Long.bitCount(board.getPieceBitboard(alliance, Piece.PieceType.TRIDENT)),
+                    Long.bitCount(board.getPieceBitboard(alliance, Piece.PieceType.EXCEL) | board.getPieceBitboard(alliance, Piece.PieceType.TERCEL))
+            };
+            for(int kind = 0; kind < NUM_KINDS; kind++){
+                if(counts[kind] > MAX_PER_KIND){
+                    return -1;
+                }
+                key |= counts[kind] << shift(alliance.ordinal(), kind);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * This method creates a material key from the numbers of pieces
+     * @param counts number of pieces indexed by alliance ordinal * NUM_KINDS + kind
+     * @return material key
+     */
+    public static int materialKey(final int[] counts){
+        int key = 0;
+        for(int alliance = 0; alliance < 2; alliance++){
+            for(int kind = 0; kind < NUM_KINDS; kind++){
+                final int count = counts[alliance * NUM_KINDS + kind];
+                if(count < 0 || count > MAX_PER_KIND){
+                    throw new IllegalArgumentException("Invalid number of pieces!");
+                }
+                key |= count << shift(alliance, kind);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * This method returns the number of pieces of one kind of one player
+     * @param materialKey material key
+     * @param alliance alliance ordinal
+     * @param kind kind of the pieces
+     * @return number of pieces
+     */
+    public static int getCount(final int materialKey, final int alliance, final int kind){
+        return (materialKey >>> shift(alliance, kind)) & MAX_PER_KIND;
+    }
+
+    /**
+     * This method returns the number of all pieces, including the chiefs
+     * @param materialKey material key
+     * @return number of pieces
+     */
+    public static int countPieces(final int materialKey){
+        int count = 2;
+        for(int alliance = 0; alliance < 2; alliance++){
+            for(int kind = 0; kind < NUM_KINDS; kind++){
+                count += getCount(materialKey, alliance, kind);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * This method returns the name of a table, pieces of orange and of green, for example "CAX-CR"
+     * A is advancer, R is trident and X is excel or tercel
+     * @param materialKey material key
+     * @return name of the table
+     */
+    public static String getName(final int materialKey){
+        final StringBuilder name = new StringBuilder();
+        for(int alliance = 0; alliance < 2; alliance++){
+            name.append(alliance == 0 ? "C" : "-C");
+            for(int kind = 0; kind < NUM_KINDS; kind++){
+                for(int i = 0; i < getCount(materialKey, alliance, kind); i++){
+                    name.append(KIND_LETTERS[kind]);
+                }
+            }
+        }
+        return name.toString();
+    }
+
+    /**
+     * This method returns the bit position of a count in the material key
+     * @param alliance alliance ordinal
+     * @param kind kind of the pieces
+     * @return shift of the count
+     */
+    private static int shift(final int alliance, final int kind){
+        return 2 * (alliance * NUM_KINDS + kind);
+    }
+
+    /**
+     * This class holds the value of every position of a table while it is generated
+     * Values are kept in chunks, so a table can have more positions than an array
+     * Threads can write different positions at the same time
+     */
+    public static final class Values {
+
+        // number of values in one chunk, a power of two
+        private static final int CHUNK_BITS = 20;
+        private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+
+        // chunks of values
+        private final short[][] chunks;
+
+        // number of values
+        private final long size;
+
+        /**
+         * Constructor for the values, they are all 0
+         * @param size number of values
+         */
+        public Values(final long size){
+            this.size = size;
+            final long chunkCount = (size + CHUNK_MASK) >>> CHUNK_BITS;
+            if(chunkCount > Integer.MAX_VALUE){
+                throw new IllegalArgumentException("Too many values!");
+            }
+            this.chunks = new short[(int)chunkCount][];
+            for(int i = 0; i < chunks.length; i++){
+                chunks[i] = new short[(int)Math.min(CHUNK_MASK + 1, size - ((long)i << CHUNK_BITS))];
+            }
+        }
+
+        /**
+         * This method returns the number of values
+         * @return number of values
+         */
+        public long size(){
+            return size;
+        }
+
+        /**
+         * This method returns one value
+         * @param index index of the position
+         * @return value
+         */
+        public short get(final long index){
+            return chunks[(int)(index >>> CHUNK_BITS)][(int)(index & CHUNK_MASK)];
+        }
+
+        /**
+         * This method sets one value
+         * @param index index of the position
+         * @param value value
+         */
+        public void set(final long index, final short value){
+            chunks[(int)(index >>> CHUNK_BITS)][(int)(index & CHUNK_MASK)] = value;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.perilandachess.ai;
+
+import com.perilandachess.Alliance;
+import com.perilandachess.board.MutableBoard;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * This class is a set of endgame tables loaded from one directory, it is probed by the search
+ * Tables stay memory-mapped, unpacked blocks are kept in a least recently used cache,
+ * so probes of nearby positions in the same part of the tree read each block only once
+ * The cache is shared by all search threads, it is split into stripes by block key and each stripe has its own lock,
+ * so threads probing different blocks rarely wait for each other. Arrays of evicted blocks are reused
+ */
+public final class Tablebases {
+
+    /**
+     * Value returned by probe when there is no table for the position
+     */
+    public static final int NOT_FOUND = -1;
+
+    // tables indexed by material key
+    private final Tablebase[] tables = new Tablebase[1 << (2 * 2 * Tablebase.NUM_KINDS)];
+
+    // number of stripes of the cache, a power of two
+    private static final int STRIPES = 64;
+
+    // largest number of pieces of a loaded table
+    private int maxPieces;
+
+    // stripes of the cache of unpacked blocks
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    /**
+     * Constructor for the tablebases
+     * @param directory directory with table files, files with other extensions are ignored
+     * @param cacheBlocks number of unpacked blocks kept in the cache
+     * @throws IOException if a table can not be read
+     */
+    public Tablebases(final File directory, final int cacheBlocks) throws IOException {
+        final File[] files = directory.listFiles((dir, name) -> name.endsWith(Tablebase.EXTENSION));
+        if(files == null){
+            throw new IOException("Can not read " + directory);
+        }
+        for(final File file : files){
+            final Tablebase table = Tablebase.open(file);
+            tables[table.getMaterialKey()] = table;
+            maxPieces = Math.max(maxPieces, Tablebase.countPieces(table.getMaterialKey()));
+        }
+        final int ways = Math.max(1, (cacheBlocks + STRIPES - 1) / STRIPES);
+        for(int i = 0; i < STRIPES; i++){
+            stripes[i] = new Stripe(ways);
+        }
+    }
+
+    /**
+     * This method returns the largest number of pieces of a loaded table, positions with more pieces are never found
+     * @return number of pieces, 0 if no table is loaded
+     */
+    public int getMaxPieces(){
+        return maxPieces;
+    }
+
+    /**
+     * This method finds the value of a position
+     * @param board position
+     * @return value of the position as described in Tablebase, or NOT_FOUND if there is no table for it
+     */
+    public int probe(final MutableBoard board){
+        if(Long.bitCount(board.getOccupancy(Alliance.ORANGE) | board.getOccupancy(Alliance.GREEN)) > maxPieces){
+            return NOT_FOUND;
+        }
+        final int materialKey = Tablebase.materialKey(board);
+        if(materialKey < 0 || tables[materialKey] == null){
+            return NOT_FOUND;
+        }
+        final Tablebase table = tables[materialKey];
+        final long index = table.index(board);
+        final int block = (int)(index / Tablebase.BLOCK_ENTRIES);
+        final long key = (long)materialKey << 32 | block;
+        final Stripe stripe = stripes[(int)((key * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - Integer.numberOfTrailingZeros(STRIPES)))];
+        synchronized(stripe){
+            return stripe.getBlock(key, table, block)[(int)(index % Tablebase.BLOCK_ENTRIES)];
+        }
+    }
+
+    /**
+     * This class is one stripe of the block cache, a small set of blocks with least recently used replacement
+     * It is used only under its own lock
+     */
+    private static final class Stripe {
+
+        // keys of the blocks, material key and block index, -1 for an empty slot
+        private final long[] keys;
+
+        // unpacked blocks, created when a slot is first used and reused after that
+        private final short[][] blocks;
+
+        // time of the last use of each slot
+        private final long[] lastUse;
+
+        // number of uses of the stripe
+        private long clock;
+
+        /**
+         * Constructor for the stripe
+         * @param ways number of blocks the stripe keeps
+         */
+        Stripe(final int ways){
+            this.keys = new long[ways];
+            this.blocks = new short[ways][];
+            this.lastUse = new long[ways];
+            Arrays.fill(keys, -1L);
+        }
+
+        /**
+         * This method finds a block, a missing block is unpacked into the least recently used slot
+         * @param key material key and block index
+         * @param table table of the block
+         * @param block index of the block in the table
+         * @return unpacked block
+         */
+        short[] getBlock(final long key, final Tablebase table, final int block){
+            clock++;
+            int oldest = 0;
+            for(int i = 0; i < keys.length; i++){
+                if(keys[i] == key){
+                    lastUse[i] = clock;
+                    return blocks[i];
+                }
+                if(lastUse[i] < lastUse[oldest]){
+                    oldest = i;
+                }
+            }
+            if(blocks[oldest] == null){
+                blocks[oldest] = new short[Tablebase.BLOCK_ENTRIES];
+            }
+            table.readBlock(block, blocks[oldest]);
+            keys[oldest] = key;
+            lastUse[oldest] = clock;
+            return blocks[oldest];
+        }
+    }
+
+    /**
+     * This method converts the value of a position to a search score
+     * @param value value of the position, not NOT_FOUND
+     * @param ply distance of the position from the root
+     * @return score from the point of view of the player to move, same as a search that sees the chief capture
+     */
+    public static int toScore(final int value, final int ply){
+        if(value == 0){
+            return 0;
+        }
+        return value % 2 == 1 ? AlphaBeta.CHIEF_CAPTURE_SCORE - ply - value : -AlphaBeta.CHIEF_CAPTURE_SCORE + ply + value;
+    }
+}
@@ -0,0 +1,238 @@
+package com.perilandachess.ai;
+
+import java.util.Arrays;
+
+/**
+ * This class is a fixed size transposition table, it remembers search results for positions by their Zobrist key
+ * The table is a flat long array, each entry takes two longs: the key XOR the data, and the data
+ * Entries are grouped in buckets of four, which fit in one cache line
+ * Table can be shared by search threads without locks: entry torn by concurrent writes does not pass the XOR check and is a miss
+ * Probing and storing never create objects
+ */
+public final class TranspositionTable {
+
+    /**
+     * Value returned by probe when there is no entry for the key
+     */
+    public static final long MISS = 0L;
+
+    /**
+     * Score is an upper bound, search failed low
+     */
+    public static final int BOUND_UPPER = 1;
+
+    /**
+     * Score is a lower bound, search failed high
+     */
+    public static final int BOUND_LOWER = 2;
+
+    /**
+     * Score is exact
+     */
+    public static final int BOUND_EXACT = 3;
+
+    // entries in one bucket, each takes two longs
+    private static final int BUCKET_ENTRIES = 4;
+    private static final int BUCKET_LONGS = 2 * BUCKET_ENTRIES;
+
+    // data layout: move (20 bits), score (16 bits), depth (8 bits), bound (2 bits), age (6 bits)
+    private static final int MOVE_BITS = 20;
+    private static final int SCORE_SHIFT = 20;
+    private static final int DEPTH_SHIFT = 36;
+    private static final int BOUND_SHIFT = 44;
+    private static final int AGE_SHIFT = 46;
+    private static final int SCORE_OFFSET = 1 << 15;
+    private static final int AGE_MASK = 0x3F;
+
+    // entries, key XOR data followed by data
+    private final long[] table;
+
+    // mask that selects the bucket from the key
+    private final long bucketMask;
+
+    // age of the current search, entries from older searches are replaced first
+    private int age;
+
+    /**
+     * Constructor for the transposition table
+     * @param megabytes size of the table in megabytes, it is rounded down to a power of two number of buckets
+     */
+    public TranspositionTable(final int megabytes){
+        if(megabytes <= 0){
+            throw new IllegalArgumentException("Transposition table size must be positive!");
+        }
+        final long buckets = Long.highestOneBit(((long)megabytes << 20) / (BUCKET_LONGS * Long.BYTES));
+        if(buckets * BUCKET_LONGS > Integer.MAX_VALUE - 8){
+            throw new IllegalArgumentException("Transposition table is too large!");
+        }
+        this.table = new long[(int)(buckets * BUCKET_LONGS)];
+        this.bucketMask = buckets - 1;
+    }
+
+    /**
+     * This method finds the entry for given key
+     * @param key Zobrist key of the position
+     * @return data of the entry, or MISS if there is no entry for the key
+     */
+    public long probe(final long key){
+        final int bucket = bucketIndex(key);
+        for(int i = bucket; i < bucket + BUCKET_LONGS; i += 2){
+            final long data = table[i + 1];
+            if(data != MISS && (table[i] ^ data) == key){
+                return data;
+            }
+        }
+        return MISS;
+    }
+
+    /**
+     * This method stores search result for given key
+     * Entry of the same key is replaced unless it is deeper and from this search,
+     * otherwise empty entry or the entry with lowest depth and oldest age is replaced
+     * @param key Zobrist key of the position
+     * @param move best packed move, or PackedMove.NULL_MOVE if it is unknown
+     * @param score score of the position
+     * @param depth remaining depth of the search, between 0 and 255
+     * @param bound BOUND_UPPER, BOUND_LOWER or BOUND_EXACT
+     */
+    public void store(final long key, final int move, final int score, final int depth, final int bound){
+        final int bucket = bucketIndex(key);
+        int replace = bucket;
+        int replaceValue = Integer.MAX_VALUE;
+        for(int i = bucket; i < bucket + BUCKET_LONGS; i += 2){
+            final long data = table[i + 1];
+            // same position, keep the old move if there is no new one
+            if(data != MISS && (table[i] ^ data) == key){
+                if(bound != BOUND_EXACT && getAge(data) == age && getDepth(data) > depth + 2){
+                    return;
+                }
+                write(i, key, move != 0 ? move : getMove(data), score, depth, bound);
+                return;
+            }
+            // empty entry is the best one to replace
+            if(data == MISS){
+                replace = i;
+                replaceValue = Integer.MIN_VALUE;
+                continue;
+            }
+            // otherwise replace shallow entries from old searches
+            final int value = getDepth(data) - 8 * ((age - getAge(data)) & AGE_MASK);
+            if(value < replaceValue){
+                replace = i;
+                replaceValue = value;
+            }
+        }
+        write(replace, key, move, score, depth, bound);
+    }
+
+    /**
+     * This method writes one entry
+     * @param index index of the entry in the table
+     * @param key Zobrist key of the position
+     * @param move best packed move
+     * @param score score of the position
+     * @param depth remaining depth
+     * @param bound type of the bound
+     */
+    private void write(final int index, final long key, final int move, final int score, final int depth, final int bound){
+        final long data = (move & ((1L << MOVE_BITS) - 1))
+                | ((long)(score + SCORE_OFFSET) << SCORE_SHIFT)
+                | ((long)Math.min(depth, 255) << DEPTH_SHIFT)
+                | ((long)bound << BOUND_SHIFT)
+                | ((long)age << AGE_SHIFT);
+        table[index] = key ^ data;
+        table[index + 1] = data;
+    }
+
+    /**
+     * This method returns the index of the first long of the bucket for given key
+     * @param key Zobrist key
+     * @return index in the table
+     */
+    private int bucketIndex(final long key){
+        return (int)((key >>> 17) & bucketMask) * BUCKET_LONGS;
+    }
+
+    /**
+     * This method starts a new search, entries from older searches become easier to replace
+     */
+    public void newSearch(){
+        age = (age + 1) & AGE_MASK;
+    }
+
+    /**
+     * This method removes all entries
+     */
+    public void clear(){
+        Arrays.fill(table, 0L);
+        age = 0;
+    }
+
+    /**
+     * This method estimates how full the table is, from the first thousand buckets
+     * @return number of used entries per thousand
+     */
+    public int getHashFull(){
+        final int buckets = (int)Math.min(1000 / BUCKET_ENTRIES, bucketMask + 1);
+        int used = 0;
+        for(int i = 0; i < buckets * BUCKET_LONGS; i += 2){
+            if(table[i + 1] != MISS && getAge(table[i + 1]) == age){
+                used++;
+            }
+        }
+        return used * 1000 / (buckets * BUCKET_ENTRIES);
+    }
+
+    /**
+     * This method returns number of entries the table can hold
+     * @return capacity of the table
+     */
+    public int getCapacity(){
+        return table.length / 2;
+    }
+
+    /**
+     * This method returns the packed move from entry data
+     * @param data entry data
+     * @return packed move
+     */
+    public static int getMove(final long data){
+        return (int)(data & ((1L << MOVE_BITS) - 1));
+    }
+
+    /**
+     * This method returns the score from entry data
+     * @param data entry data
+     * @return score
+     */
+    public static int getScore(final long data){
+        return (int)((data >>> SCORE_SHIFT) & 0xFFFF) - SCORE_OFFSET;
+    }
+
+    /**
+     * This method returns the depth from entry data
+     * @param data entry data
+     * @return remaining depth of the stored search
+     */
+    public static int getDepth(final long data){
+        return (int)((data >>> DEPTH_SHIFT) & 0xFF);
+    }
+
+    /**
+     * This method returns the bound type from entry data
+     * @param data entry data
+     * @return BOUND_UPPER, BOUND_LOWER or BOUND_EXACT
+     */
+    public static int getBound(final long data){
+        return (int)((data >>> BOUND_SHIFT) & 0x3);
+    }
+
+    /**
+     * This method returns the age from entry data
+     * @param data entry data
+     * @return age of the search that stored the entry
+     */
+    private static int getAge(final long data){
+        return (int)((data >>> AGE_SHIFT) & AGE_MASK);
+    }
+}
@@ -9,16 +9,47 @@ import com.perilandachess.player.Player;
 import java.io.*;
 import java.util.*;
 
+/**
+ * This class is an immutable position, all its fields are final and pieces are immutable,
+ * so a board can be shared by many threads without copying or locking
+ * Legal moves are calculated lazily, two threads may calculate them at the same time, but both get the same moves
+ */
 public class Board {
-    // list of tiles represents a board
-    private final List<Tile> gameBoard;
+    // pieces indexed by their coordinate, null for the empty tiles
+    private final Piece[] boardPieces;
 
-    // orange pieces
+    // one bitboard for each alliance and piece type, bit i is set if tile i holds such piece
+    private final long[] pieceBitboards;
+
+    // tiles occupied by orange pieces
+    private final long orangeOccupancy;
+
+    // tiles occupied by green pieces
+    private final long greenOccupancy;
+
+    // tiles with advancers and tridents that are moving in the opposite direction
+    private final long reversedPieces;
+
+    // number of moves each player made in the game, every third move of a player transforms its excels and tercels
+    private final int orangeMovesMade;
+    private final int greenMovesMade;
+
+    // Zobrist key of the position
+    private final long zobristKey;
+
+    // orange pieces, view over orange bitboards
     private final Collection<Piece> orangePieces;
 
-    // green pieces
+    // green pieces, view over green bitboards
     private final Collection<Piece> greenPieces;
 
+    // legal moves of orange player indexed by source and destination, calculated when they are first requested
+    // volatile so that an index calculated by one thread is seen complete by others, two threads may both calculate it
+    private volatile MoveIndex orangeLegalMoves;
+
+    // legal moves of green player indexed by source and destination, calculated when they are first requested
+    private volatile MoveIndex greenLegalMoves;
+
     // orange player
     private final OrangePlayer orangePlayer;
 
@@ -34,13 +65,31 @@ public class Board {
      * @param builder builder for the board
      */
     private Board(Builder builder){
-        this.gameBoard = createGameBoard(builder);
-        this.orangePieces = calculateActivePieces(this.gameBoard, Alliance.ORANGE);
-        this.greenPieces = calculateActivePieces(this.gameBoard, Alliance.GREEN);
-        final Collection<Move> orangeStandardLegalMoves = calculateLegalMoves(this.orangePieces);
-        final Collection<Move> greenStandardLegalMoves = calculateLegalMoves(this.greenPieces);
-        this.orangePlayer = new OrangePlayer(this, orangeStandardLegalMoves, greenStandardLegalMoves);
-        this.greenPlayer = new GreenPlayer(this, orangeStandardLegalMoves, greenStandardLegalMoves);
+        this.boardPieces = builder.boardConfig.clone();
+        this.pieceBitboards = new long[BoardUtils.NUM_BITBOARDS];
+
+        long reversed = 0L;
+        // place each piece from the builder on its bitboard
+        for(final Piece piece : boardPieces){
+            if(piece == null){
+                continue;
+            }
+            final int position = piece.getPiecePosition();
+            this.pieceBitboards[BoardUtils.bitboardIndex(piece.getPieceAlliance(), piece.getPieceType())] |= BoardUtils.tileBit(position);
+            if(piece.getDirection() == -1){
+                reversed |= BoardUtils.tileBit(position);
+            }
+        }
+        this.reversedPieces = reversed;
+        this.orangeOccupancy = calculateOccupancy(Alliance.ORANGE);
+        this.greenOccupancy = calculateOccupancy(Alliance.GREEN);
+        this.orangeMovesMade = builder.orangeMovesMade;
+        this.greenMovesMade = builder.greenMovesMade;
+        this.zobristKey = Zobrist.calculateKey(this.pieceBitboards, this.reversedPieces, builder.nextMoveMaker.ordinal(), orangeMovesMade, greenMovesMade);
+        this.orangePieces = new PieceCollection(this.orangeOccupancy);
+        this.greenPieces = new PieceCollection(this.greenOccupancy);
+        this.orangePlayer = new OrangePlayer(this);
+        this.greenPlayer = new GreenPlayer(this);
         this.currentPlayer = builder.nextMoveMaker.choosePlayer(orangePlayer, greenPlayer);
     }
 
@@ -84,6 +133,78 @@ public class Board {
         return currentPlayer;
     }
 
+    /**
+     * This method returns number of moves a player made in the game
+     * @param alliance color of the player
+     * @return number of made moves
+     */
+    public int getMovesMade(Alliance alliance){
+        return alliance.isOrange() ? orangeMovesMade : greenMovesMade;
+    }
+
+    /**
+     * This method returns legal moves of given player
+     * Moves are calculated when they are requested for the first time and then kept with the board
+     * @param alliance color of the player
+     * @return collection of legal moves
+     */
+    public Collection<Move> getLegalMoves(Alliance alliance){
+        return getMoveIndex(alliance).getMoves();
+    }
+
+    /**
+     * This method returns legal moves of given player from one tile
+     * @param alliance color of the player
+     * @param tileCoordinate source tile
+     * @return unmodifiable list of moves, sorted by destination
+     */
+    public List<Move> getLegalMoves(Alliance alliance, int tileCoordinate){
+        return getMoveIndex(alliance).getMoves(tileCoordinate);
+    }
+
+    /**
+     * This method returns destinations of the legal moves of given player from one tile
+     * @param alliance color of the player
+     * @param tileCoordinate source tile
+     * @return bitboard of the destinations
+     */
+    public long getLegalDestinations(Alliance alliance, int tileCoordinate){
+        return getMoveIndex(alliance).getDestinations(tileCoordinate);
+    }
+
+    /**
+     * This method finds the legal move of given player between two tiles, without going through the moves
+     * @param alliance color of the player
+     * @param currentCoordinate source tile
+     * @param destinationCoordinate destination tile
+     * @return legal move, or Move.NULL_MOVE if there is no such move
+     */
+    public Move getLegalMove(Alliance alliance, int currentCoordinate, int destinationCoordinate){
+        return getMoveIndex(alliance).getMove(currentCoordinate, destinationCoordinate);
+    }
+
+    /**
+     * This method returns the index of legal moves of given player, it is calculated on first request
+     * @param alliance color of the player
+     * @return index of legal moves
+     */
+    private MoveIndex getMoveIndex(Alliance alliance){
+        if(alliance.isOrange()){
+            MoveIndex legalMoves = orangeLegalMoves;
+            if(legalMoves == null){
+                legalMoves = calculateLegalMoves(Alliance.ORANGE);
+                orangeLegalMoves = legalMoves;
+            }
+            return legalMoves;
+        }
+        MoveIndex legalMoves = greenLegalMoves;
+        if(legalMoves == null){
+            legalMoves = calculateLegalMoves(Alliance.GREEN);
+            greenLegalMoves = legalMoves;
+        }
+        return legalMoves;
+    }
+
     /**
      * This method gets all possible legal moves for both players
      * @return List of moves
@@ -96,42 +217,16 @@ public class Board {
     }
 
     /**
-     * This method calculates all active pieces on the board
-     * @param gameBoard board with the pieces
+     * This method calculates the bitboard of all tiles occupied by pieces of given color
      * @param alliance color
-     * @return collection of the pieces on the board
+     * @return occupancy bitboard
      */
-    private Collection<Piece> calculateActivePieces(List<Tile> gameBoard, Alliance alliance) {
-        List<Piece> activePieces = new ArrayList<>();
-
-        // go through list of tiles, and for each tile
-        for(Tile tile : gameBoard){
-            // if tile is occupied
-            if(tile.isTileOccupied()){
-                // take a piece from tile
-                final Piece piece = tile.getPiece();
-
-                // if it is desired color, add it to list of active pieces
-                if(piece.getPieceAlliance() == alliance){
-                    activePieces.add(piece);
-                }
-            }
+    private long calculateOccupancy(Alliance alliance) {
+        long occupancy = 0L;
+        for(Piece.PieceType pieceType : Piece.PieceType.values()){
+            occupancy |= this.pieceBitboards[BoardUtils.bitboardIndex(alliance, pieceType)];
         }
-        return activePieces;
-    }
-
-    /**
-     * This method will create a list of tiles that represents the position on the board
-     * @param builder contains informations about pieces and its position
-     * @return List of tiles with pieces
-     */
-    private static List<Tile> createGameBoard(Builder builder) {
-        List<Tile> tiles = new ArrayList<>();
-        // create 49 tiles with or without piece on it depending on builder state
-        for(int i = 0; i < BoardUtils.NUM_TILES; i++){
-            tiles.add(Tile.createTile(i, builder.boardConfig.get(i)));
-        }
-        return Collections.unmodifiableList(tiles);
+        return occupancy;
     }
 
     /**
@@ -140,7 +235,60 @@ public class Board {
      * @return desired tile
      */
     public Tile getTile(int tileCoordinate) {
-        return gameBoard.get(tileCoordinate);
+        return Tile.createTile(tileCoordinate, boardPieces[tileCoordinate]);
+    }
+
+    /**
+     * This method gets the piece on specific tile
+     * @param tileCoordinate coordinate of the tile
+     * @return piece on the tile, or null if the tile is empty
+     */
+    public Piece getPiece(int tileCoordinate) {
+        return boardPieces[tileCoordinate];
+    }
+
+    /**
+     * This method checks if specific tile is occupied
+     * @param tileCoordinate coordinate of the tile
+     * @return true if there is a piece on the tile, false otherwise
+     */
+    public boolean isTileOccupied(int tileCoordinate) {
+        return ((orangeOccupancy | greenOccupancy) & BoardUtils.tileBit(tileCoordinate)) != 0;
+    }
+
+    /**
+     * This method returns bitboard of the pieces with given color and type
+     * @param alliance color of the pieces
+     * @param pieceType type of the pieces
+     * @return bitboard, bit i is set if tile i holds such piece
+     */
+    public long getPieceBitboard(Alliance alliance, Piece.PieceType pieceType) {
+        return pieceBitboards[BoardUtils.bitboardIndex(alliance, pieceType)];
+    }
+
+    /**
+     * This method returns bitboard of all tiles occupied by pieces of given color
+     * @param alliance color of the pieces
+     * @return occupancy bitboard
+     */
+    public long getOccupancy(Alliance alliance) {
+        return alliance.isOrange() ? orangeOccupancy : greenOccupancy;
+    }
+
+    /**
+     * This method returns bitboard of all occupied tiles
+     * @return occupancy bitboard
+     */
+    public long getOccupancy() {
+        return orangeOccupancy | greenOccupancy;
+    }
+
+    /**
+     * This method returns bitboard of advancers and tridents that are moving in the opposite direction
+     * @return bitboard of the reversed pieces
+     */
+    public long getReversedPieces() {
+        return reversedPieces;
     }
 
     /**
@@ -191,6 +339,7 @@ public class Board {
 
     /**
      * Create a board from file with random position
+     * File has 7 rows of pieces, the next move maker and optionally number of moves made by orange and green player
      * @param selectedFile file that contains information about board position
      * @return Board with given position
      * @throws IOException thrown if there is some IO error
@@ -287,6 +436,21 @@ public class Board {
             throw new IllegalArgumentException("Invalid next move maker!");
         }
 
+        // next line, if there is one, has number of moves made by orange and green player
+        row = reader.readLine();
+        if(row != null && !row.trim().isEmpty()){
+            final String[] movesMade = row.trim().split("\\s+");
+            try{
+                if(movesMade.length != 2){
+                    throw new NumberFormatException();
+                }
+                builder.setMovesMade(Alliance.ORANGE, Integer.parseInt(movesMade[0]));
+                builder.setMovesMade(Alliance.GREEN, Integer.parseInt(movesMade[1]));
+            }catch(final IllegalArgumentException e){
+                throw new IllegalArgumentException("Invalid number of moves made!");
+            }
+        }
+
         // close the file
         reader.close();
 
@@ -294,19 +458,50 @@ public class Board {
     }
 
     /**
-     * This method creates a list of all legal moves for given collection
-     * @param pieces pieces for is needed to calculate legal moves
-     * @return List of legal moves
+     * This method creates the index of all legal moves of given player
+     * Moves are generated as packed moves from the bitboards and then turned into Move objects
+     * @param alliance color of the player
+     * @return index of legal moves
      */
-    private Collection<Move> calculateLegalMoves(Collection<Piece> pieces){
-        List<Move> legalMoves = new ArrayList<>();
+    private MoveIndex calculateLegalMoves(Alliance alliance){
+        final IntMoveList packedMoves = new IntMoveList();
+        MoveGenerator.generateMoves(pieceBitboards, getOccupancy(alliance), getOccupancy(alliance == Alliance.ORANGE ? Alliance.GREEN : Alliance.ORANGE), reversedPieces, alliance.ordinal(), false, packedMoves);
+        return new MoveIndex(this, packedMoves);
+    }
 
-        // calculate legal moves for each pieces and add to the list of legal moves
-        for(Piece piece : pieces){
-            legalMoves.addAll(piece.calculateLegalMoves(this));
-        }
+    /**
+     * This method returns Zobrist key of the position
+     * Key covers pieces, directions of advancers and tridents, the player to move and transform phase of each player
+     * @return key of the position
+     */
+    public long getZobristKey(){
+        return zobristKey;
+    }
 
-        return legalMoves;
+    @Override
+    public int hashCode(){
+        return (int)(zobristKey ^ (zobristKey >>> 32));
+    }
+
+    /**
+     * This method checks if two boards have the same position
+     * Boards are same if they have same pieces on same tiles with same directions, same player to move
+     * and same transform phases, phases are covered by the key
+     * @param other board to compare to
+     * @return true if positions are same, false otherwise
+     */
+    @Override
+    public boolean equals(Object other){
+        if(this == other){
+            return true;
+        }
+        if(!(other instanceof Board)){
+            return false;
+        }
+        Board otherBoard = (Board)other;
+        return zobristKey == otherBoard.zobristKey && reversedPieces == otherBoard.reversedPieces
+                && Arrays.equals(pieceBitboards, otherBoard.pieceBitboards)
+                && currentPlayer.getAlliance() == otherBoard.currentPlayer.getAlliance();
     }
 
     /**
@@ -317,7 +512,7 @@ public class Board {
     public String toString(){
         StringBuilder builder = new StringBuilder();
         for(int i = 0; i < BoardUtils.NUM_TILES; i++){
-            String tileText = this.gameBoard.get(i).toString();
+            String tileText = getTile(i).toString();
             builder.append(String.format("%3s", tileText));
             if((i + 1) % BoardUtils.NUM_TILES_PER_ROW == 0){
                 builder.append("\n");
@@ -326,31 +521,81 @@ public class Board {
         return builder.toString();
     }
 
+    /**
+     * Collection of pieces that is a view over one occupancy bitboard
+     * Pieces are returned in order of their coordinates
+     */
+    private final class PieceCollection extends AbstractCollection<Piece> {
+        // tiles of the pieces in this collection
+        private final long occupancy;
+
+        /**
+         * Constructor for the piece collection
+         * @param occupancy bitboard of the tiles of the pieces
+         */
+        PieceCollection(long occupancy){
+            this.occupancy = occupancy;
+        }
+
+        @Override
+        public Iterator<Piece> iterator(){
+            return new Iterator<Piece>() {
+                // tiles that are not visited yet
+                private long remaining = occupancy;
+
+                @Override
+                public boolean hasNext() {
+                    return remaining != 0;
+                }
+
+                @Override
+                public Piece next() {
+                    if(remaining == 0){
+                        throw new NoSuchElementException();
+                    }
+                    final int coordinate = Long.numberOfTrailingZeros(remaining);
+                    remaining &= remaining - 1;
+                    return boardPieces[coordinate];
+                }
+            };
+        }
+
+        @Override
+        public int size(){
+            return Long.bitCount(occupancy);
+        }
+    }
+
     /**
      * Builder class for board
      */
     public static class Builder{
 
-        // map of board position, maps coordinate to piece
-        Map<Integer, Piece> boardConfig;
+        // pieces indexed by their coordinate, null for the empty tiles
+        final Piece[] boardConfig;
 
         // color of next move maker
         Alliance nextMoveMaker;
 
+        // number of moves each player made
+        int orangeMovesMade;
+        int greenMovesMade;
+
         /**
          * Constructor for the builder
          */
         public Builder(){
-            boardConfig = new HashMap<>();
+            boardConfig = new Piece[BoardUtils.NUM_TILES];
         }
 
         /**
          * This method sets the piece on its position
+         * The shared instance of the piece is stored, so boards never hold pieces created with new
          * @param piece Piece to be put on board
          * @return builder with given pieces inside
          */
         public Builder setPiece(final Piece piece){
-            this.boardConfig.put(piece.getPiecePosition(), piece);
+            this.boardConfig[piece.getPiecePosition()] = Piece.valueOf(piece.getPieceType(), piece.getPieceAlliance(), piece.getPiecePosition(), piece.getDirection());
             return this;
         }
 
@@ -364,6 +609,24 @@ public class Board {
             return this;
         }
 
+        /**
+         * This method sets number of moves a player made in the game, it is 0 if not set
+         * @param alliance color of the player
+         * @param movesMade number of made moves
+         * @return builder with changed number of moves
+         */
+        public Builder setMovesMade(final Alliance alliance, final int movesMade){
+            if(movesMade < 0){
+                throw new IllegalArgumentException("Number of moves can not be negative!");
+            }
+            if(alliance.isOrange()){
+                this.orangeMovesMade = movesMade;
+            }else{
+                this.greenMovesMade = movesMade;
+            }
+            return this;
+        }
+
         /**
          * This method returns a new board with position same as in map in builder
          * @return board set up
@@ -1,5 +1,8 @@
 package com.perilandachess.board;
 
+import com.perilandachess.Alliance;
+import com.perilandachess.pieces.Piece;
+
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -19,6 +22,21 @@ public class BoardUtils {
      */
     public static final int NUM_TILES_PER_ROW = 7;
 
+    /**
+     * Number of the piece types, one bitboard is kept for each type and alliance
+     */
+    public static final int NUM_PIECE_TYPES = Piece.PieceType.values().length;
+
+    /**
+     * Number of the piece bitboards, one for each alliance and piece type
+     */
+    public static final int NUM_BITBOARDS = 2 * NUM_PIECE_TYPES;
+
+    /**
+     * Bitboard with all 49 tiles set, bit i represents the tile with coordinate i
+     */
+    public static final long ALL_TILES = (1L << NUM_TILES) - 1;
+
     /**
      * Array that has first column coordinate set to true
      */
@@ -93,6 +111,26 @@ public class BoardUtils {
         return candidateDestinationCoordinate >= 0 && candidateDestinationCoordinate < NUM_TILES;
     }
 
+    /**
+     * This method returns index of the bitboard for given alliance and piece type
+     * Orange bitboards come first, then green ones, each ordered as PieceType values
+     * @param alliance color of the piece
+     * @param pieceType type of the piece
+     * @return index of the bitboard, between 0 and NUM_BITBOARDS - 1
+     */
+    public static int bitboardIndex(final Alliance alliance, final Piece.PieceType pieceType){
+        return alliance.ordinal() * NUM_PIECE_TYPES + pieceType.ordinal();
+    }
+
+    /**
+     * This method returns bitboard with only given tile set
+     * @param coordinate coordinate of the tile
+     * @return bitboard with one bit set
+     */
+    public static long tileBit(final int coordinate){
+        return 1L << coordinate;
+    }
+
     /**
      * Creates notation for the tiles
      * @return String array with notation
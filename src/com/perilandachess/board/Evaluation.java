@@ -0,0 +1,384 @@
+package com.perilandachess.board;
+
+import com.perilandachess.pieces.Piece;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class contains evaluation weights and the tables built from them
+ * Evaluation of a position is linear in the weights: material and piece-square value of each piece,
+ * advancer structure (connected and doubled advancers) and a bonus for the transform phase of each player
+ * Piece-square values are given from the orange point of view, green pieces use the tile rotated by 180 degrees,
+ * which is how the standard board places them
+ * MutableBoard keeps the sum of material and piece-square values as a running total,
+ * structure and phase terms are few bitboard operations, so evaluation of a position is constant time
+ */
+public final class Evaluation {
+
+    /**
+     * Index of the first material weight, one for each piece type
+     */
+    public static final int MATERIAL = 0;
+
+    /**
+     * Index of the first piece-square weight, indexed by (type ordinal * 2 + direction index) * NUM_TILES + tile
+     */
+    public static final int PIECE_SQUARE = MATERIAL + BoardUtils.NUM_PIECE_TYPES;
+
+    /**
+     * Index of the weight for each pair of advancers next to each other on the same row
+     */
+    public static final int ADVANCER_CONNECTED = PIECE_SQUARE + BoardUtils.NUM_PIECE_TYPES * 2 * BoardUtils.NUM_TILES;
+
+    /**
+     * Index of the weight for each advancer that has another advancer of the same player in its column
+     */
+    public static final int ADVANCER_DOUBLED = ADVANCER_CONNECTED + 1;
+
+    /**
+     * Index of the first transform phase weight, indexed by number of moves the player made modulo 3
+     */
+    public static final int TRANSFORM_PHASE = ADVANCER_DOUBLED + 1;
+
+    /**
+     * Number of the weights
+     */
+    public static final int NUM_WEIGHTS = TRANSFORM_PHASE + 3;
+
+    // name of the weights resource next to this class, and of the property that points to another weights file
+    private static final String WEIGHTS_RESOURCE = "weights.txt";
+    private static final String WEIGHTS_PROPERTY = "perilanda.weights";
+
+    // tiles of each column
+    private static final long[] COLUMNS = initColumns();
+
+    /**
+     * Evaluation used by default, weights are read from the file given by the perilanda.weights property,
+     * or from the weights.txt resource, or the built-in weights are used
+     */
+    public static final Evaluation DEFAULT = loadDefault();
+
+    // all weights, in the layout given by the index constants
+    private final int[] weights;
+
+    /**
+     * Signed value of each piece, positive for orange and negative for green pieces
+     * Indexed by piece state (bitboard index * 2 + 1 if piece is reversed) and tile
+     */
+    final int[][] pieceValues;
+
+    /**
+     * Change of the signed total when an excel on given tile becomes tercel, indexed by alliance ordinal and tile
+     * Tercel becoming excel changes the total by the negated value
+     */
+    final int[][] transformValues;
+
+    /**
+     * Constructor for the evaluation
+     * @param weights all weights, in the layout given by the index constants
+     */
+    public Evaluation(final int[] weights){
+        if(weights.length != NUM_WEIGHTS){
+            throw new IllegalArgumentException("Evaluation needs " + NUM_WEIGHTS + " weights!");
+        }
+        this.weights = weights.clone();
+
+        this.pieceValues = new int[BoardUtils.NUM_BITBOARDS * 2][BoardUtils.NUM_TILES];
+        for(int side = 0; side < 2; side++){
+            final int sign = side == 0 ? 1 : -1;
+            for(int type = 0; type < BoardUtils.NUM_PIECE_TYPES; type++){
+                for(int direction = 0; direction < 2; direction++){
+                    final int state = (side * BoardUtils.NUM_PIECE_TYPES + type) * 2 + direction;
+                    for(int coordinate = 0; coordinate < BoardUtils.NUM_TILES; coordinate++){
+                        final int orangeCoordinate = side == 0 ? coordinate : BoardUtils.NUM_TILES - 1 - coordinate;
+                        pieceValues[state][coordinate] = sign * (weights[MATERIAL + type] + weights[pieceSquareIndex(type, direction, orangeCoordinate)]);
+                    }
+                }
+            }
+        }
+
+        this.transformValues = new int[2][BoardUtils.NUM_TILES];
+        for(int side = 0; side < 2; side++){
+            final int excelState = (side * BoardUtils.NUM_PIECE_TYPES + Piece.PieceType.EXCEL.ordinal()) * 2;
+            final int tercelState = (side * BoardUtils.NUM_PIECE_TYPES + Piece.PieceType.TERCEL.ordinal()) * 2;
+            for(int coordinate = 0; coordinate < BoardUtils.NUM_TILES; coordinate++){
+                transformValues[side][coordinate] = pieceValues[tercelState][coordinate] - pieceValues[excelState][coordinate];
+            }
+        }
+    }
+
+    /**
+     * This method returns index of a piece-square weight
+     * @param type piece type ordinal
+     * @param direction direction index, 1 for reversed advancers and tridents
+     * @param coordinate tile of an orange piece, or the rotated tile of a green piece
+     * @return index of the weight
+     */
+    public static int pieceSquareIndex(final int type, final int direction, final int coordinate){
+        return PIECE_SQUARE + (type * 2 + direction) * BoardUtils.NUM_TILES + coordinate;
+    }
+
+    /**
+     * This method creates masks of the columns
+     * @return tiles of each column
+     */
+    private static long[] initColumns(){
+        final long[] columns = new long[BoardUtils.NUM_TILES_PER_ROW];
+        for(int coordinate = 0; coordinate < BoardUtils.NUM_TILES; coordinate++){
+            columns[coordinate % BoardUtils.NUM_TILES_PER_ROW] |= BoardUtils.tileBit(coordinate);
+        }
+        return columns;
+    }
+
+    /**
+     * This method counts pairs of advancers next to each other on the same row
+     * @param advancers bitboard of the advancers of one player
+     * @return number of pairs
+     */
+    public static int connectedAdvancers(final long advancers){
+        return Long.bitCount(advancers & (advancers >>> 1) & ~COLUMNS[BoardUtils.NUM_TILES_PER_ROW - 1]);
+    }
+
+    /**
+     * This method counts advancers that are behind another advancer of the same player in their column
+     * @param advancers bitboard of the advancers of one player
+     * @return number of extra advancers in the columns
+     */
+    public static int doubledAdvancers(final long advancers){
+        int doubled = 0;
+        for(final long column : COLUMNS){
+            final long inColumn = advancers & column;
+            if((inColumn & (inColumn - 1)) != 0){
+                doubled += Long.bitCount(inColumn) - 1;
+            }
+        }
+        return doubled;
+    }
+
+    /**
+     * This method evaluates advancer structure of one player
+     * @param advancers bitboard of the advancers of the player
+     * @return structure score
+     */
+    int advancerScore(final long advancers){
+        return connectedAdvancers(advancers) * weights[ADVANCER_CONNECTED] + doubledAdvancers(advancers) * weights[ADVANCER_DOUBLED];
+    }
+
+    /**
+     * This method returns the bonus for the transform phase of one player
+     * @param movesMade number of moves the player already made
+     * @return phase score
+     */
+    int phaseScore(final int movesMade){
+        return weights[TRANSFORM_PHASE + movesMade % 3];
+    }
+
+    /**
+     * This method returns one weight
+     * @param index index of the weight
+     * @return weight
+     */
+    public int getWeight(final int index){
+        return weights[index];
+    }
+
+    /**
+     * This method returns all weights
+     * @return copy of the weights
+     */
+    public int[] getWeights(){
+        return weights.clone();
+    }
+
+    /**
+     * This method returns material value of the piece type
+     * @param pieceType type of the piece
+     * @return material value
+     */
+    public int getMaterialValue(final Piece.PieceType pieceType){
+        return weights[MATERIAL + pieceType.ordinal()];
+    }
+
+    /**
+     * This method returns piece-square value from the orange point of view
+     * @param pieceType type of the piece
+     * @param reversed true for advancer or trident moving in the opposite direction
+     * @param coordinate tile of an orange piece, or the rotated tile of a green piece
+     * @return piece-square value
+     */
+    public int getPieceSquareValue(final Piece.PieceType pieceType, final boolean reversed, final int coordinate){
+        return weights[pieceSquareIndex(pieceType.ordinal(), reversed ? 1 : 0, coordinate)];
+    }
+
+    /**
+     * This method creates built-in weights, material from PieceType.getPieceValue in hundredths and hand written positional values
+     * Advancers gain for each row they advance, excels and tercels prefer the center,
+     * tridents gain a little for advancing and the chief prefers to stay on its home rows
+     * @return built-in evaluation
+     */
+    public static Evaluation createBuiltIn(){
+        final int[] weights = new int[NUM_WEIGHTS];
+        for(final Piece.PieceType pieceType : Piece.PieceType.values()){
+            weights[MATERIAL + pieceType.ordinal()] = pieceType.getPieceValue() * 100;
+        }
+        for(int coordinate = 0; coordinate < BoardUtils.NUM_TILES; coordinate++){
+            final int row = coordinate / BoardUtils.NUM_TILES_PER_ROW;
+            final int column = coordinate % BoardUtils.NUM_TILES_PER_ROW;
+            final int centerDistance = Math.abs(row - 3) + Math.abs(column - 3);
+            for(int direction = 0; direction < 2; direction++){
+                // reversed pieces head back home, so rows near home are worth more to them
+                final int advance = direction == 0 ? row : 6 - row;
+                weights[pieceSquareIndex(Piece.PieceType.ADVANCER.ordinal(), direction, coordinate)] = advance * 6;
+                weights[pieceSquareIndex(Piece.PieceType.TRIDENT.ordinal(), direction, coordinate)] = advance * 3 + (3 - Math.abs(column - 3)) * 2;
+                weights[pieceSquareIndex(Piece.PieceType.EXCEL.ordinal(), direction, coordinate)] = (6 - centerDistance) * 4;
+                weights[pieceSquareIndex(Piece.PieceType.TERCEL.ordinal(), direction, coordinate)] = (6 - centerDistance) * 3;
+                weights[pieceSquareIndex(Piece.PieceType.CHIEF.ordinal(), direction, coordinate)] = row <= 1 ? 20 - Math.abs(column - 3) * 2 : -row * 10;
+            }
+        }
+        weights[ADVANCER_CONNECTED] = 4;
+        weights[ADVANCER_DOUBLED] = -8;
+        return new Evaluation(weights);
+    }
+
+    /**
+     * This method loads the default evaluation
+     * @return evaluation from the weights file, or the built-in evaluation if there is no valid weights file
+     */
+    private static Evaluation loadDefault(){
+        final String fileName = System.getProperty(WEIGHTS_PROPERTY);
+        try{
+            if(fileName != null){
+                return load(new File(fileName));
+            }
+            try(InputStream input = Evaluation.class.getResourceAsStream(WEIGHTS_RESOURCE)){
+                if(input != null){
+                    return read(input);
+                }
+            }
+        }catch(final IOException | IllegalArgumentException e){
+            System.err.println("Can not load evaluation weights, using built-in weights: " + e.getMessage());
+        }
+        return createBuiltIn();
+    }
+
+    /**
+     * This method loads evaluation from a weights file
+     * @param file weights file
+     * @return loaded evaluation
+     * @throws IOException if the file can not be read
+     * @throws IllegalArgumentException if the file is not a valid weights file
+     */
+    public static Evaluation load(final File file) throws IOException {
+        try(InputStream input = new FileInputStream(file)){
+            return read(input);
+        }
+    }
+
+    /**
+     * This method reads evaluation in the format written by write
+     * Every line is a name followed by values, lines starting with # are comments
+     * @param input stream with the weights
+     * @return read evaluation
+     * @throws IOException if the stream can not be read
+     * @throws IllegalArgumentException if the weights are not valid
+     */
+    public static Evaluation read(final InputStream input) throws IOException {
+        final Map<String, String[]> lines = new HashMap<>();
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String line;
+        while((line = reader.readLine()) != null){
+            line = line.trim();
+            if(line.isEmpty() || line.startsWith("#")){
+                continue;
+            }
+            final String[] parts = line.split("\\s+");
+            lines.put(parts[0], parts);
+        }
+
+        final int[] weights = new int[NUM_WEIGHTS];
+        readValues(lines, "material", weights, MATERIAL, BoardUtils.NUM_PIECE_TYPES);
+        for(final Piece.PieceType pieceType : Piece.PieceType.values()){
+            for(int direction = 0; direction < 2; direction++){
+                readValues(lines, pieceSquareName(pieceType, direction), weights, pieceSquareIndex(pieceType.ordinal(), direction, 0), BoardUtils.NUM_TILES);
+            }
+        }
+        readValues(lines, "advancer.connected", weights, ADVANCER_CONNECTED, 1);
+        readValues(lines, "advancer.doubled", weights, ADVANCER_DOUBLED, 1);
+        readValues(lines, "transform.phase", weights, TRANSFORM_PHASE, 3);
+        return new Evaluation(weights);
+    }
+
+    /**
+     * This method copies values of one named line into the weights
+     * @param lines lines of the weights file by name
+     * @param name name of the line
+     * @param weights weights to fill
+     * @param offset index of the first weight
+     * @param count number of values the line must have
+     */
+    private static void readValues(final Map<String, String[]> lines, final String name, final int[] weights, final int offset, final int count){
+        final String[] parts = lines.get(name);
+        if(parts == null || parts.length != count + 1){
+            throw new IllegalArgumentException("Weights file needs " + count + " values for " + name + "!");
+        }
+        for(int i = 0; i < count; i++){
+            weights[offset + i] = Integer.parseInt(parts[i + 1]);
+        }
+    }
+
+    /**
+     * This method returns the name of the piece-square line in the weights file
+     * @param pieceType type of the piece
+     * @param direction direction index
+     * @return name of the line, for example "A.forward"
+     */
+    private static String pieceSquareName(final Piece.PieceType pieceType, final int direction){
+        return pieceType + (direction == 0 ? ".forward" : ".reversed");
+    }
+
+    /**
+     * This method writes the weights, they can be read back with read
+     * @param output writer for the weights
+     */
+    public void write(final Writer output){
+        final PrintWriter writer = new PrintWriter(output);
+        writer.println("# Perilanda chess evaluation weights, in hundredths of an advancer");
+        writer.println("# Piece-square lines have one value per tile from the orange point of view, rows from the orange home row");
+        writeValues(writer, "material", MATERIAL, BoardUtils.NUM_PIECE_TYPES);
+        for(final Piece.PieceType pieceType : Piece.PieceType.values()){
+            for(int direction = 0; direction < 2; direction++){
+                writeValues(writer, pieceSquareName(pieceType, direction), pieceSquareIndex(pieceType.ordinal(), direction, 0), BoardUtils.NUM_TILES);
+            }
+        }
+        writeValues(writer, "advancer.connected", ADVANCER_CONNECTED, 1);
+        writeValues(writer, "advancer.doubled", ADVANCER_DOUBLED, 1);
+        writeValues(writer, "transform.phase", TRANSFORM_PHASE, 3);
+        writer.flush();
+    }
+
+    /**
+     * This method writes one named line of values
+     * @param writer writer for the weights
+     * @param name name of the line
+     * @param offset index of the first weight
+     * @param count number of values
+     */
+    private void writeValues(final PrintWriter writer, final String name, final int offset, final int count){
+        writer.print(name);
+        for(int i = 0; i < count; i++){
+            writer.print(' ');
+            writer.print(weights[offset + i]);
+        }
+        writer.println();
+    }
+}
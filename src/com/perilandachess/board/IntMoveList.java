@@ -0,0 +1,109 @@
+package com.perilandachess.board;
+
+/**
+ * This class is a reusable buffer of packed moves
+ * Generators write into it, and it is cleared and reused instead of creating a new list for every position
+ */
+public final class IntMoveList {
+
+    // more moves than any position on 7x7 board can have
+    private static final int DEFAULT_CAPACITY = 256;
+
+    // packed moves
+    private int[] moves;
+
+    // number of moves in the list
+    private int size;
+
+    /**
+     * Constructor for the move list
+     */
+    public IntMoveList(){
+        this.moves = new int[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * This method adds a packed move at the end of the list
+     * @param move packed move
+     */
+    public void add(final int move){
+        if(size == moves.length){
+            final int[] newMoves = new int[moves.length * 2];
+            System.arraycopy(moves, 0, newMoves, 0, size);
+            moves = newMoves;
+        }
+        moves[size++] = move;
+    }
+
+    /**
+     * This method returns packed move at given index
+     * @param index index of the move
+     * @return packed move
+     */
+    public int get(final int index){
+        return moves[index];
+    }
+
+    /**
+     * This method replaces packed move at given index
+     * @param index index of the move
+     * @param move new packed move
+     */
+    public void set(final int index, final int move){
+        moves[index] = move;
+    }
+
+    /**
+     * This method returns number of moves in the list
+     * @return number of moves
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * This method checks if the list is empty
+     * @return true if there are no moves in the list
+     */
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * This method clears the list, capacity is kept for reuse
+     */
+    public void clear(){
+        size = 0;
+    }
+
+    /**
+     * This method finds the move with given source and destination
+     * @param from source coordinate
+     * @param to destination coordinate
+     * @return packed move, or PackedMove.NULL_MOVE if there is no such move
+     */
+    public int find(final int from, final int to){
+        for(int i = 0; i < size; i++){
+            if(PackedMove.getFrom(moves[i]) == from && PackedMove.getTo(moves[i]) == to){
+                return moves[i];
+            }
+        }
+        return PackedMove.NULL_MOVE;
+    }
+
+    /**
+     * String representation of the move list
+     * @return moves separated by spaces
+     */
+    @Override
+    public String toString(){
+        final StringBuilder builder = new StringBuilder();
+        for(int i = 0; i < size; i++){
+            if(i > 0){
+                builder.append(' ');
+            }
+            builder.append(PackedMove.toString(moves[i]));
+        }
+        return builder.toString();
+    }
+}
@@ -95,10 +95,14 @@ public abstract class Move {
 
     /**
      * This method actually moves the piece and take care of the transform of the pieces
-     * @param moveNum number of the move (that player takes)
+     * Number of the move is taken from the board, so every board keeps its own transform schedule
      * @return new board with the moved piece
      */
-    public Board execute(int moveNum) {
+    public Board execute() {
+        // number of the move (that player takes)
+        final Alliance alliance = board.getCurrentPlayer().getAlliance();
+        final int moveNum = board.getMovesMade(alliance) + 1;
+
         // create a board
         final Board.Builder builder = new Board.Builder();
         // if it is 3rd, 6th ... transform all Excels to Tercels and all Tercels to Excels
@@ -107,9 +111,9 @@ public abstract class Move {
             for(final Piece piece : board.getCurrentPlayer().getActivePieces()){
                 if(!movedPiece.equals(piece)){
                     if(piece instanceof Excel){
-                        builder.setPiece(new Tercel(piece.getPiecePosition(), piece.getPieceAlliance()));
+                        builder.setPiece(Piece.valueOf(Piece.PieceType.TERCEL, piece.getPieceAlliance(), piece.getPiecePosition(), 1));
                     }else if(piece instanceof Tercel){
-                        builder.setPiece(new Excel(piece.getPiecePosition(), piece.getPieceAlliance()));
+                        builder.setPiece(Piece.valueOf(Piece.PieceType.EXCEL, piece.getPieceAlliance(), piece.getPiecePosition(), 1));
                     }else{
                         builder.setPiece(piece);
                     }
@@ -131,43 +135,26 @@ public abstract class Move {
             builder.setPiece(piece);
         }
 
-        // move the piece
-        Piece newMovedPiece = movedPiece.movePiece(this);
+        // move the piece, advancer or trident turns around by itself at the end of the board
+        final Piece newMovedPiece = movedPiece.movePiece(this);
 
         //if moving piece was excel and moveNum is product of 3 then transform it to tercel
         if(newMovedPiece instanceof Excel && (moveNum % 3) == 0){
-            builder.setPiece(new Tercel(newMovedPiece.getPiecePosition(), newMovedPiece.getPieceAlliance()));
+            builder.setPiece(Piece.valueOf(Piece.PieceType.TERCEL, newMovedPiece.getPieceAlliance(), newMovedPiece.getPiecePosition(), 1));
         }
         // if moving piece was tercel and moveNum is product of 3 then transform it to excel
         else if(newMovedPiece instanceof Tercel && (moveNum % 3) == 0){
-            builder.setPiece(new Excel(newMovedPiece.getPiecePosition(), newMovedPiece.getPieceAlliance()));
-        }
-        // if piece is advancer
-        else if(newMovedPiece instanceof Advancer){
-            Advancer advancer = (Advancer)newMovedPiece;
-            // check if it is at the end of the board and it need to change direction
-            if((advancer.getPieceAlliance() == Alliance.GREEN && BoardUtils.FIRST_ROW[advancer.getPiecePosition()] && advancer.getDirection() == 1) || (advancer.getPieceAlliance() == Alliance.GREEN && BoardUtils.SEVENTH_ROW[advancer.getPiecePosition()] && advancer.getDirection() == -1)){
-                advancer.changeDirection();
-            }else if((advancer.getPieceAlliance() == Alliance.ORANGE && BoardUtils.SEVENTH_ROW[advancer.getPiecePosition()] && advancer.getDirection() == 1) || advancer.getPieceAlliance() == Alliance.ORANGE && BoardUtils.FIRST_ROW[advancer.getPiecePosition()] && advancer.getDirection() == -1){
-                advancer.changeDirection();
-            }
-            builder.setPiece(advancer);
-        }
-        // if moving piece is trident
-        else if(newMovedPiece instanceof Trident){
-            Trident trident = (Trident)newMovedPiece;
-            // check if it is at the end of the board and it need to change direction
-            if((trident.getPieceAlliance() == Alliance.GREEN && BoardUtils.FIRST_ROW[trident.getPiecePosition()] && trident.getDirection() == 1) || (trident.getPieceAlliance() == Alliance.GREEN && BoardUtils.SEVENTH_ROW[trident.getPiecePosition()] && trident.getDirection() == -1)){
-                trident.changeDirection();
-            }else if((trident.getPieceAlliance() == Alliance.ORANGE && BoardUtils.SEVENTH_ROW[trident.getPiecePosition()] && trident.getDirection() == 1) || trident.getPieceAlliance() == Alliance.ORANGE && BoardUtils.FIRST_ROW[trident.getPiecePosition()] && trident.getDirection() == -1){
-                trident.changeDirection();
-            }
-            builder.setPiece(trident);
+            builder.setPiece(Piece.valueOf(Piece.PieceType.EXCEL, newMovedPiece.getPieceAlliance(), newMovedPiece.getPiecePosition(), 1));
         }else {
-            builder.setPiece(movedPiece.movePiece(this));
+            builder.setPiece(newMovedPiece);
         }
         // make the current player opponent player
-        builder.setMoveMaker(board.getCurrentPlayer().getOpponent().getAlliance());
+        final Alliance opponent = board.getCurrentPlayer().getOpponent().getAlliance();
+        builder.setMoveMaker(opponent);
+
+        // count the move for the current player
+        builder.setMovesMade(alliance, moveNum);
+        builder.setMovesMade(opponent, board.getMovesMade(opponent));
 
         // return the board with the moved piece
         return builder.build();
@@ -283,11 +270,10 @@ public abstract class Move {
 
         /**
          * execute method for null move, throws RuntimeException since this is illegal move and it is not suppose to happen
-         * @param moveNum number of the move (that player takes)
          * @return
          */
         @Override
-        public Board execute(int moveNum){
+        public Board execute(){
             throw new RuntimeException("Not execute the null move!");
         }
 
@@ -311,18 +297,39 @@ public abstract class Move {
 
         /**
          * This method creates new move
+         * Move is looked up in the legal moves of the owner of the piece, indexed by source and destination
          * @param board current board
          * @param currentCoordinate current position of the piece
          * @param destinationCoordinate destination position of the piece
          * @return new move it is legal move, or NULL_MOVE if it is illegal move
          */
         public static Move createMove(Board board, int currentCoordinate, int destinationCoordinate){
-            for(final Move move : board.getAllLegalMoves()){
-                if(move.getCurrentCoordinate() == currentCoordinate && move.getDestinationCoordinate() == destinationCoordinate){
-                    return move;
-                }
+            if(currentCoordinate < 0 || currentCoordinate >= BoardUtils.NUM_TILES){
+                return NULL_MOVE;
+            }
+            final Piece piece = board.getPiece(currentCoordinate);
+            if(piece == null){
+                return NULL_MOVE;
+            }
+            return board.getLegalMove(piece.getPieceAlliance(), currentCoordinate, destinationCoordinate);
+        }
+
+        /**
+         * This method turns packed move back into a Move on given board
+         * @param board board the packed move was generated on
+         * @param packedMove packed move
+         * @return AttackMove if packed move captures a piece, MajorMove otherwise, or NULL_MOVE for PackedMove.NULL_MOVE
+         */
+        public static Move createMove(Board board, int packedMove){
+            if(packedMove == PackedMove.NULL_MOVE){
+                return NULL_MOVE;
+            }
+            final Piece movedPiece = board.getPiece(PackedMove.getFrom(packedMove));
+            final int destinationCoordinate = PackedMove.getTo(packedMove);
+            if(PackedMove.isCapture(packedMove)){
+                return new AttackMove(board, movedPiece, destinationCoordinate, board.getPiece(destinationCoordinate));
             }
-            return NULL_MOVE;
+            return new MajorMove(board, movedPiece, destinationCoordinate);
         }
     }
 }
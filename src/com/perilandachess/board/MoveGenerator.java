@@ -0,0 +1,212 @@
+package com.perilandachess.board;
+
+import com.perilandachess.pieces.Piece;
+
+/**
+ * This class generates packed moves from bitboards
+ * Moves are written into an IntMoveList, so generation does not create any objects
+ */
+public final class MoveGenerator {
+
+    // ray directions in which coordinates grow, their first blocker is the lowest set bit
+    private static final boolean[] INCREASING_DIRECTION = initIncreasingDirections();
+
+    private static final int ADVANCER = Piece.PieceType.ADVANCER.ordinal();
+    private static final int CHIEF = Piece.PieceType.CHIEF.ordinal();
+    private static final int EXCEL = Piece.PieceType.EXCEL.ordinal();
+    private static final int TERCEL = Piece.PieceType.TERCEL.ordinal();
+    private static final int TRIDENT = Piece.PieceType.TRIDENT.ordinal();
+
+    private MoveGenerator(){
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    /**
+     * This method marks directions in which coordinates grow
+     * @return array indexed by ray direction
+     */
+    private static boolean[] initIncreasingDirections() {
+        final boolean[] increasing = new boolean[MoveTables.RAYS.length];
+        increasing[MoveTables.SOUTH] = true;
+        increasing[MoveTables.EAST] = true;
+        increasing[MoveTables.SOUTH_WEST] = true;
+        increasing[MoveTables.SOUTH_EAST] = true;
+        return increasing;
+    }
+
+    /**
+     * This method generates all legal moves of the player to move
+     * @param board current position
+     * @param moves list the moves are added to
+     */
+    public static void generateMoves(final MutableBoard board, final IntMoveList moves){
+        final int side = board.sideToMove;
+        generateMoves(board.pieceBitboards, board.occupancy[side], board.occupancy[side ^ 1], board.reversedPieces, side, (board.movesMade[side] + 1) % 3 == 0, moves);
+    }
+
+    /**
+     * This method generates all legal moves of one player
+     * @param pieceBitboards bitboards indexed by BoardUtils.bitboardIndex
+     * @param own tiles occupied by the moving player
+     * @param opponent tiles occupied by the other player
+     * @param reversed advancers and tridents moving in the opposite direction
+     * @param side alliance ordinal of the moving player
+     * @param transform true if this is the third move of the player, so its excels and tercels transform
+     * @param moves list the moves are added to
+     */
+    public static void generateMoves(final long[] pieceBitboards, final long own, final long opponent, final long reversed, final int side, final boolean transform, final IntMoveList moves){
+        generate(pieceBitboards, own, opponent, reversed, side, transform, BoardUtils.ALL_TILES, moves);
+    }
+
+    /**
+     * This method generates only capturing moves of the player to move
+     * Destinations are limited to tiles occupied by the opponent while the moves are generated, so quiet moves are never created
+     * @param board current position
+     * @param moves list the moves are added to
+     */
+    public static void generateCaptures(final MutableBoard board, final IntMoveList moves){
+        final int side = board.sideToMove;
+        final long opponent = board.occupancy[side ^ 1];
+        generate(board.pieceBitboards, board.occupancy[side], opponent, board.reversedPieces, side, (board.movesMade[side] + 1) % 3 == 0, opponent, moves);
+    }
+
+    /**
+     * This method generates moves of one player whose destination is in the target bitboard
+     * @param pieceBitboards bitboards indexed by BoardUtils.bitboardIndex
+     * @param own tiles occupied by the moving player
+     * @param opponent tiles occupied by the other player
+     * @param reversed advancers and tridents moving in the opposite direction
+     * @param side alliance ordinal of the moving player
+     * @param transform true if excels and tercels of the moving player transform after the move
+     * @param targets allowed destinations
+     * @param moves list the moves are added to
+     */
+    private static void generate(final long[] pieceBitboards, final long own, final long opponent, final long reversed, final int side, final boolean transform, final long targets, final IntMoveList moves){
+        final int base = side * BoardUtils.NUM_PIECE_TYPES;
+        final int opponentBase = (side ^ 1) * BoardUtils.NUM_PIECE_TYPES;
+        final int flags = transform ? PackedMove.TRANSFORM_FLAG : 0;
+        final long occupied = own | opponent;
+        final long allowed = targets & ~own;
+
+        // chief, one step in any direction
+        for(long pieces = pieceBitboards[base + CHIEF]; pieces != 0; pieces &= pieces - 1){
+            final int from = Long.numberOfTrailingZeros(pieces);
+            addMoves(pieceBitboards, opponentBase, from, CHIEF, MoveTables.CHIEF_BITBOARDS[from] & allowed, flags, moves);
+        }
+
+        // excel, diagonal rays
+        for(long pieces = pieceBitboards[base + EXCEL]; pieces != 0; pieces &= pieces - 1){
+            final int from = Long.numberOfTrailingZeros(pieces);
+            addMoves(pieceBitboards, opponentBase, from, EXCEL, slidingTargets(MoveTables.EXCEL_DIRECTIONS, from, occupied) & allowed, flags, moves);
+        }
+
+        // tercel, orthogonal rays
+        for(long pieces = pieceBitboards[base + TERCEL]; pieces != 0; pieces &= pieces - 1){
+            final int from = Long.numberOfTrailingZeros(pieces);
+            addMoves(pieceBitboards, opponentBase, from, TERCEL, slidingTargets(MoveTables.TERCEL_DIRECTIONS, from, occupied) & allowed, flags, moves);
+        }
+
+        // trident, sideways rays and one step forward
+        for(long pieces = pieceBitboards[base + TRIDENT]; pieces != 0; pieces &= pieces - 1){
+            final int from = Long.numberOfTrailingZeros(pieces);
+            final int directionIndex = (reversed & BoardUtils.tileBit(from)) != 0 ? 1 : 0;
+            long destinations = slidingTargets(MoveTables.TRIDENT_DIRECTIONS, from, occupied);
+            final int forward = MoveTables.FORWARD_STEPS[side][directionIndex][from];
+            if(forward != -1){
+                destinations |= BoardUtils.tileBit(forward);
+            }
+            addDirectionalMoves(pieceBitboards, opponentBase, from, TRIDENT, destinations & allowed, flags, MoveTables.TURNING_TILES[side][directionIndex], moves);
+        }
+
+        // advancer, one or two steps forward, it can not jump over a piece
+        for(long pieces = pieceBitboards[base + ADVANCER]; pieces != 0; pieces &= pieces - 1){
+            final int from = Long.numberOfTrailingZeros(pieces);
+            final int directionIndex = (reversed & BoardUtils.tileBit(from)) != 0 ? 1 : 0;
+            final int oneStep = MoveTables.FORWARD_STEPS[side][directionIndex][from];
+            if(oneStep == -1){
+                continue;
+            }
+            long destinations = BoardUtils.tileBit(oneStep);
+            final int twoSteps = MoveTables.DOUBLE_FORWARD_STEPS[side][directionIndex][from];
+            if((occupied & destinations) == 0 && twoSteps != -1){
+                destinations |= BoardUtils.tileBit(twoSteps);
+            }
+            addDirectionalMoves(pieceBitboards, opponentBase, from, ADVANCER, destinations & allowed, flags, MoveTables.TURNING_TILES[side][directionIndex], moves);
+        }
+    }
+
+    /**
+     * This method calculates destinations along given rays, each ray ends on the first occupied tile
+     * @param directions ray directions
+     * @param from coordinate of the piece
+     * @param occupied all occupied tiles
+     * @return bitboard of destinations, including the blocking tiles
+     */
+    private static long slidingTargets(final int[] directions, final int from, final long occupied){
+        long destinations = 0L;
+        for(final int direction : directions){
+            final long ray = MoveTables.RAY_BITBOARDS[direction][from];
+            final long blockers = ray & occupied;
+            if(blockers == 0){
+                destinations |= ray;
+            }else{
+                final int blocker = INCREASING_DIRECTION[direction] ? Long.numberOfTrailingZeros(blockers) : 63 - Long.numberOfLeadingZeros(blockers);
+                destinations |= ray ^ MoveTables.RAY_BITBOARDS[direction][blocker];
+            }
+        }
+        return destinations;
+    }
+
+    /**
+     * This method adds a move for each destination
+     * @param pieceBitboards bitboards indexed by BoardUtils.bitboardIndex
+     * @param opponentBase index of the first opponent bitboard
+     * @param from source coordinate
+     * @param movingType ordinal of the moving piece type
+     * @param destinations bitboard of destinations
+     * @param flags flags of the moves
+     * @param moves list the moves are added to
+     */
+    private static void addMoves(final long[] pieceBitboards, final int opponentBase, final int from, final int movingType, final long destinations, final int flags, final IntMoveList moves){
+        for(long remaining = destinations; remaining != 0; remaining &= remaining - 1){
+            final int to = Long.numberOfTrailingZeros(remaining);
+            moves.add(PackedMove.create(from, to, movingType, capturedType(pieceBitboards, opponentBase, to), flags));
+        }
+    }
+
+    /**
+     * This method adds a move for each destination of advancer or trident, which turns around on turning tiles
+     * @param pieceBitboards bitboards indexed by BoardUtils.bitboardIndex
+     * @param opponentBase index of the first opponent bitboard
+     * @param from source coordinate
+     * @param movingType ordinal of the moving piece type
+     * @param destinations bitboard of destinations
+     * @param flags flags of the moves
+     * @param turningTiles tiles where the piece turns around
+     * @param moves list the moves are added to
+     */
+    private static void addDirectionalMoves(final long[] pieceBitboards, final int opponentBase, final int from, final int movingType, final long destinations, final int flags, final long turningTiles, final IntMoveList moves){
+        for(long remaining = destinations; remaining != 0; remaining &= remaining - 1){
+            final int to = Long.numberOfTrailingZeros(remaining);
+            final int moveFlags = (turningTiles & BoardUtils.tileBit(to)) != 0 ? flags | PackedMove.FLIP_FLAG : flags;
+            moves.add(PackedMove.create(from, to, movingType, capturedType(pieceBitboards, opponentBase, to), moveFlags));
+        }
+    }
+
+    /**
+     * This method finds the type of opponent piece on given tile
+     * @param pieceBitboards bitboards indexed by BoardUtils.bitboardIndex
+     * @param opponentBase index of the first opponent bitboard
+     * @param to coordinate of the tile
+     * @return ordinal of the piece type, or -1 if there is no opponent piece
+     */
+    private static int capturedType(final long[] pieceBitboards, final int opponentBase, final int to){
+        final long bit = BoardUtils.tileBit(to);
+        for(int type = 0; type < BoardUtils.NUM_PIECE_TYPES; type++){
+            if((pieceBitboards[opponentBase + type] & bit) != 0){
+                return type;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,99 @@
+package com.perilandachess.board;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class holds legal moves of one player of a board, indexed by source and destination tile
+ * Moves are sorted by source and then by destination, and each source has a bitboard of its destinations,
+ * so a move is found by counting the destinations before it, without going through the list
+ * It is immutable once created, so it can be shared by threads together with its board
+ */
+final class MoveIndex {
+
+    // legal moves sorted by source and destination
+    private final Move[] moves;
+
+    // unmodifiable view over the moves
+    private final List<Move> moveList;
+
+    // index of the first move from each tile, the last entry is the number of moves
+    private final int[] firstMove;
+
+    // destinations of the legal moves from each tile
+    private final long[] destinations;
+
+    /**
+     * Constructor for the move index
+     * @param board board the moves were generated on
+     * @param packedMoves legal packed moves of one player, in any order
+     */
+    MoveIndex(final Board board, final IntMoveList packedMoves){
+        this.destinations = new long[BoardUtils.NUM_TILES];
+        for(int i = 0; i < packedMoves.size(); i++){
+            final int move = packedMoves.get(i);
+            destinations[PackedMove.getFrom(move)] |= BoardUtils.tileBit(PackedMove.getTo(move));
+        }
+        this.firstMove = new int[BoardUtils.NUM_TILES + 1];
+        for(int from = 0; from < BoardUtils.NUM_TILES; from++){
+            firstMove[from + 1] = firstMove[from] + Long.bitCount(destinations[from]);
+        }
+        this.moves = new Move[firstMove[BoardUtils.NUM_TILES]];
+        for(int i = 0; i < packedMoves.size(); i++){
+            final int move = packedMoves.get(i);
+            moves[position(PackedMove.getFrom(move), PackedMove.getTo(move))] = Move.MoveFactory.createMove(board, move);
+        }
+        this.moveList = Collections.unmodifiableList(Arrays.asList(moves));
+    }
+
+    /**
+     * This method returns all legal moves
+     * @return unmodifiable list of moves, sorted by source and destination
+     */
+    List<Move> getMoves(){
+        return moveList;
+    }
+
+    /**
+     * This method returns legal moves from one tile
+     * @param from source tile
+     * @return unmodifiable list of moves, sorted by destination
+     */
+    List<Move> getMoves(final int from){
+        return moveList.subList(firstMove[from], firstMove[from + 1]);
+    }
+
+    /**
+     * This method returns destinations of the legal moves from one tile
+     * @param from source tile
+     * @return bitboard of the destinations
+     */
+    long getDestinations(final int from){
+        return destinations[from];
+    }
+
+    /**
+     * This method finds the legal move between two tiles
+     * @param from source tile
+     * @param to destination tile
+     * @return legal move, or Move.NULL_MOVE if there is no such move
+     */
+    Move getMove(final int from, final int to){
+        if(from < 0 || from >= BoardUtils.NUM_TILES || to < 0 || to >= BoardUtils.NUM_TILES
+                || (destinations[from] & BoardUtils.tileBit(to)) == 0){
+            return Move.NULL_MOVE;
+        }
+        return moves[position(from, to)];
+    }
+
+    /**
+     * This method returns position of a legal move in the sorted moves
+     * @param from source tile
+     * @param to destination tile, one of the destinations from the source
+     * @return index of the move
+     */
+    private int position(final int from, final int to){
+        return firstMove[from] + Long.bitCount(destinations[from] & (BoardUtils.tileBit(to) - 1));
+    }
+}
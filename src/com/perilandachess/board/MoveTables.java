@@ -0,0 +1,251 @@
+package com.perilandachess.board;
+
+import com.perilandachess.Alliance;
+
+/**
+ * This class contains move tables that are calculated once, when the class is loaded
+ * Pieces look up their destinations in these tables, so there is no need to check if a move wraps around the board edge
+ */
+public final class MoveTables {
+
+    /**
+     * Ray directions, used as the first index of RAYS and RAY_BITBOARDS
+     */
+    public static final int NORTH = 0;
+    public static final int SOUTH = 1;
+    public static final int WEST = 2;
+    public static final int EAST = 3;
+    public static final int NORTH_WEST = 4;
+    public static final int NORTH_EAST = 5;
+    public static final int SOUTH_WEST = 6;
+    public static final int SOUTH_EAST = 7;
+
+    /**
+     * Directions in which the chief can step, ordered by coordinate offset
+     */
+    public static final int[] CHIEF_DIRECTIONS = {NORTH_WEST, NORTH, NORTH_EAST, WEST, EAST, SOUTH_WEST, SOUTH, SOUTH_EAST};
+
+    /**
+     * Directions in which the tercel can move
+     */
+    public static final int[] TERCEL_DIRECTIONS = {NORTH, WEST, EAST, SOUTH};
+
+    /**
+     * Directions in which the excel can move
+     */
+    public static final int[] EXCEL_DIRECTIONS = {NORTH_WEST, NORTH_EAST, SOUTH_WEST, SOUTH_EAST};
+
+    /**
+     * Directions in which the trident can slide
+     */
+    public static final int[] TRIDENT_DIRECTIONS = {WEST, EAST};
+
+    // row and column change for each ray direction
+    private static final int[] ROW_STEP = {-1, 1, 0, 0, -1, -1, 1, 1};
+    private static final int[] COLUMN_STEP = {0, 0, -1, 1, -1, 1, -1, 1};
+
+    /**
+     * For each direction and tile, the tiles on the ray ordered from nearest to farthest
+     */
+    public static final int[][][] RAYS = initRays();
+
+    /**
+     * For each direction and tile, the bitboard of all tiles on the ray
+     */
+    public static final long[][] RAY_BITBOARDS = initRayBitboards();
+
+    /**
+     * For each tile, the tiles the chief can move to
+     */
+    public static final int[][] CHIEF_MOVES = initChiefMoves();
+
+    /**
+     * For each tile, the bitboard of tiles the chief can move to
+     */
+    public static final long[] CHIEF_BITBOARDS = initChiefBitboards();
+
+    /**
+     * Destination of one step forward, indexed by alliance, direction index and tile, -1 if it leaves the board
+     * It is used for the advancer and the trident
+     */
+    public static final int[][][] FORWARD_STEPS = initForwardSteps(1);
+
+    /**
+     * Destination of two steps forward, indexed by alliance, direction index and tile, -1 if it leaves the board
+     * It is used for the advancer
+     */
+    public static final int[][][] DOUBLE_FORWARD_STEPS = initForwardSteps(2);
+
+    /**
+     * Tiles where advancer or trident turns around, indexed by alliance and direction index
+     * These are the tiles on the last row in the direction the piece is moving
+     */
+    public static final long[][] TURNING_TILES = initTurningTiles();
+
+    private MoveTables(){
+        throw new RuntimeException("You can not instantiate this.");
+    }
+
+    /**
+     * This method converts direction of advancer or trident to the index used in forward tables
+     * @param direction 1 for normal direction, -1 for opposite direction
+     * @return 0 for normal direction, 1 for opposite direction
+     */
+    public static int directionIndex(final int direction){
+        return direction == 1 ? 0 : 1;
+    }
+
+    /**
+     * This method checks if advancer or trident turns around when it arrives on given tile
+     * @param alliance color of the piece
+     * @param direction direction of the piece, 1 for normal, -1 for opposite
+     * @param coordinate destination of the piece
+     * @return true if piece needs to change direction
+     */
+    public static boolean isTurningTile(final Alliance alliance, final int direction, final int coordinate){
+        return (TURNING_TILES[alliance.ordinal()][directionIndex(direction)] & BoardUtils.tileBit(coordinate)) != 0;
+    }
+
+    /**
+     * This method creates rays for each direction and tile
+     * @return rays indexed by direction and tile
+     */
+    private static int[][][] initRays() {
+        final int[][][] rays = new int[ROW_STEP.length][BoardUtils.NUM_TILES][];
+        for(int direction = 0; direction < ROW_STEP.length; direction++){
+            for(int coordinate = 0; coordinate < BoardUtils.NUM_TILES; coordinate++){
+                // walk in the direction until we leave the board
+                final int[] ray = new int[BoardUtils.NUM_TILES_PER_ROW];
+                int length = 0;
+                int row = coordinate / BoardUtils.NUM_TILES_PER_ROW + ROW_STEP[direction];
+                int column = coordinate % BoardUtils.NUM_TILES_PER_ROW + COLUMN_STEP[direction];
+                while(isOnBoard(row, column)){
+                    ray[length++] = row * BoardUtils.NUM_TILES_PER_ROW + column;
+                    row += ROW_STEP[direction];
+                    column += COLUMN_STEP[direction];
+                }
+                rays[direction][coordinate] = copyOf(ray, length);
+            }
+        }
+        return rays;
+    }
+
+    /**
+     * This method creates ray bitboards from rays
+     * @return ray bitboards indexed by direction and tile
+     */
+    private static long[][] initRayBitboards() {
+        final long[][] rayBitboards = new long[RAYS.length][BoardUtils.NUM_TILES];
+        for(int direction = 0; direction < RAYS.length; direction++){
+            for(int coordinate = 0; coordinate < BoardUtils.NUM_TILES; coordinate++){
+                rayBitboards[direction][coordinate] = toBitboard(RAYS[direction][coordinate]);
+            }
+        }
+        return rayBitboards;
+    }
+
+    /**
+     * This method creates chief moves, one step in any direction
+     * @return chief destinations indexed by tile
+     */
+    private static int[][] initChiefMoves() {
+        final int[][] chiefMoves = new int[BoardUtils.NUM_TILES][];
+        for(int coordinate = 0; coordinate < BoardUtils.NUM_TILES; coordinate++){
+            final int[] moves = new int[CHIEF_DIRECTIONS.length];
+            int length = 0;
+            for(final int direction : CHIEF_DIRECTIONS){
+                if(RAYS[direction][coordinate].length > 0){
+                    moves[length++] = RAYS[direction][coordinate][0];
+                }
+            }
+            chiefMoves[coordinate] = copyOf(moves, length);
+        }
+        return chiefMoves;
+    }
+
+    /**
+     * This method creates chief bitboards from chief moves
+     * @return chief bitboards indexed by tile
+     */
+    private static long[] initChiefBitboards() {
+        final long[] chiefBitboards = new long[BoardUtils.NUM_TILES];
+        for(int coordinate = 0; coordinate < BoardUtils.NUM_TILES; coordinate++){
+            chiefBitboards[coordinate] = toBitboard(CHIEF_MOVES[coordinate]);
+        }
+        return chiefBitboards;
+    }
+
+    /**
+     * This method creates forward step table for given number of steps
+     * Orange moves down the board and green moves up, opposite direction reverses that
+     * @param steps number of rows to move
+     * @return destinations indexed by alliance, direction index and tile
+     */
+    private static int[][][] initForwardSteps(final int steps) {
+        final int[][][] forwardSteps = new int[Alliance.values().length][2][BoardUtils.NUM_TILES];
+        for(final Alliance alliance : Alliance.values()){
+            for(int directionIndex = 0; directionIndex < 2; directionIndex++){
+                final int rowStep = alliance.getDirection() * (directionIndex == 0 ? 1 : -1) * steps;
+                for(int coordinate = 0; coordinate < BoardUtils.NUM_TILES; coordinate++){
+                    final int row = coordinate / BoardUtils.NUM_TILES_PER_ROW + rowStep;
+                    final int column = coordinate % BoardUtils.NUM_TILES_PER_ROW;
+                    forwardSteps[alliance.ordinal()][directionIndex][coordinate] = isOnBoard(row, column) ? row * BoardUtils.NUM_TILES_PER_ROW + column : -1;
+                }
+            }
+        }
+        return forwardSteps;
+    }
+
+    /**
+     * This method creates the turning tiles for each alliance and direction
+     * @return turning tiles indexed by alliance and direction index
+     */
+    private static long[][] initTurningTiles() {
+        final long[][] turningTiles = new long[Alliance.values().length][2];
+        for(final Alliance alliance : Alliance.values()){
+            for(int directionIndex = 0; directionIndex < 2; directionIndex++){
+                final int rowStep = alliance.getDirection() * (directionIndex == 0 ? 1 : -1);
+                final int lastRow = rowStep > 0 ? BoardUtils.NUM_TILES_PER_ROW - 1 : 0;
+                for(int column = 0; column < BoardUtils.NUM_TILES_PER_ROW; column++){
+                    turningTiles[alliance.ordinal()][directionIndex] |= BoardUtils.tileBit(lastRow * BoardUtils.NUM_TILES_PER_ROW + column);
+                }
+            }
+        }
+        return turningTiles;
+    }
+
+    /**
+     * This method checks if row and column are on the board
+     * @param row row number
+     * @param column column number
+     * @return true if tile is on the board
+     */
+    private static boolean isOnBoard(final int row, final int column){
+        return row >= 0 && row < BoardUtils.NUM_TILES_PER_ROW && column >= 0 && column < BoardUtils.NUM_TILES_PER_ROW;
+    }
+
+    /**
+     * This method copies first length elements of an array
+     * @param array array to copy
+     * @param length number of elements
+     * @return new array
+     */
+    private static int[] copyOf(final int[] array, final int length) {
+        final int[] result = new int[length];
+        System.arraycopy(array, 0, result, 0, length);
+        return result;
+    }
+
+    /**
+     * This method creates bitboard with given tiles set
+     * @param coordinates tiles to set
+     * @return created bitboard
+     */
+    private static long toBitboard(final int[] coordinates) {
+        long bitboard = 0L;
+        for(final int coordinate : coordinates){
+            bitboard |= BoardUtils.tileBit(coordinate);
+        }
+        return bitboard;
+    }
+}
@@ -0,0 +1,570 @@
+package com.perilandachess.board;
+
+import com.perilandachess.Alliance;
+import com.perilandachess.pieces.*;
+
+import java.util.Arrays;
+
+/**
+ * This class represents a position that is changed in place
+ * It is meant for search and replay, where creating a new Board for every move is too slow
+ * Moves are made with makeMove and taken back with unmakeMove, Board is used only at the API edge
+ */
+public final class MutableBoard {
+
+    // empty tile in the tiles array
+    static final int EMPTY = -1;
+
+    // undo record layout: from (6 bits), to (6 bits), captured bitboard index + 1 (4 bits) and flags
+    private static final int UNDO_TO_SHIFT = 6;
+    private static final int UNDO_CAPTURED_SHIFT = 12;
+    private static final int UNDO_CAPTURED_REVERSED = 1 << 16;
+    private static final int UNDO_FLIPPED = 1 << 17;
+    private static final int UNDO_TRANSFORMED = 1 << 18;
+    private static final int TILE_MASK = 0x3F;
+
+    // alliances indexed by ordinal, values() creates a new array on every call
+    private static final Alliance[] ALLIANCES = Alliance.values();
+
+    // piece types indexed by ordinal
+    private static final Piece.PieceType[] PIECE_TYPES = Piece.PieceType.values();
+
+    // index of the bitboard for each tile, EMPTY if tile is empty
+    final int[] tiles;
+
+    // one bitboard for each alliance and piece type
+    final long[] pieceBitboards;
+
+    // occupancy bitboards indexed by alliance ordinal
+    final long[] occupancy;
+
+    // advancers and tridents that are moving in the opposite direction
+    long reversedPieces;
+
+    // alliance ordinal of the player to move
+    int sideToMove;
+
+    // number of moves each player already made, indexed by alliance ordinal
+    final int[] movesMade;
+
+    // Zobrist key of the position
+    long zobristKey;
+
+    // evaluation tables, values of the pieces on the tiles
+    private Evaluation evaluation;
+
+    // sum of the values of all pieces, positive values are good for orange
+    private int score;
+
+    // change of the score when excels and tercels of each player transform, indexed by alliance ordinal
+    private final int[] transformScores;
+
+    // stack of undo records, one for each made move
+    private int[] undoStack;
+
+    // keys of the positions before each made move
+    private long[] keyStack;
+
+    // score and both transform scores before each made move
+    private int[] scoreStack;
+    private int undoSize;
+
+    /**
+     * Constructor for the mutable board
+     * Number of made moves decides when the excels and tercels of a player transform, that is on every third move,
+     * it is taken from the board together with the position
+     * @param board position to copy
+     */
+    public MutableBoard(final Board board){
+        final int orangeMovesMade = board.getMovesMade(Alliance.ORANGE);
+        final int greenMovesMade = board.getMovesMade(Alliance.GREEN);
+        this.tiles = new int[BoardUtils.NUM_TILES];
+        this.pieceBitboards = new long[BoardUtils.NUM_BITBOARDS];
+        this.occupancy = new long[2];
+        this.movesMade = new int[]{orangeMovesMade, greenMovesMade};
+        this.undoStack = new int[64];
+
+        // copy all pieces with their direction
+        for(int coordinate = 0; coordinate < BoardUtils.NUM_TILES; coordinate++){
+            final Piece piece = board.getPiece(coordinate);
+            if(piece == null){
+                tiles[coordinate] = EMPTY;
+            }else{
+                final int index = BoardUtils.bitboardIndex(piece.getPieceAlliance(), piece.getPieceType());
+                tiles[coordinate] = index;
+                pieceBitboards[index] |= BoardUtils.tileBit(coordinate);
+                occupancy[piece.getPieceAlliance().ordinal()] |= BoardUtils.tileBit(coordinate);
+            }
+        }
+        this.reversedPieces = board.getReversedPieces();
+        this.sideToMove = board.getCurrentPlayer().getAlliance().ordinal();
+        this.zobristKey = Zobrist.calculateKey(pieceBitboards, reversedPieces, sideToMove, orangeMovesMade, greenMovesMade);
+        this.keyStack = new long[64];
+        this.scoreStack = new int[3 * 64];
+        this.transformScores = new int[2];
+        setEvaluation(Evaluation.DEFAULT);
+    }
+
+    /**
+     * Copy constructor, the copy has its own state and an empty undo stack
+     * @param other board to copy
+     */
+    public MutableBoard(final MutableBoard other){
+        this.tiles = other.tiles.clone();
+        this.pieceBitboards = other.pieceBitboards.clone();
+        this.occupancy = other.occupancy.clone();
+        this.reversedPieces = other.reversedPieces;
+        this.sideToMove = other.sideToMove;
+        this.movesMade = other.movesMade.clone();
+        this.zobristKey = other.zobristKey;
+        this.undoStack = new int[64];
+        this.keyStack = new long[64];
+        this.scoreStack = new int[3 * 64];
+        this.evaluation = other.evaluation;
+        this.score = other.score;
+        this.transformScores = other.transformScores.clone();
+    }
+
+    /**
+     * This method replaces the position and clears the undo stack
+     * It is meant for tools that go through many positions, like tablebase generation, so they can reuse one board
+     * @param pieces bitboard index of each piece
+     * @param coordinates tile of each piece
+     * @param count number of pieces
+     * @param reversedPieces advancers and tridents that are moving in the opposite direction
+     * @param sideToMove player to move
+     * @param orangeMovesMade number of moves orange player already made
+     * @param greenMovesMade number of moves green player already made
+     */
+    public void setPosition(final int[] pieces, final int[] coordinates, final int count, final long reversedPieces,
+                            final Alliance sideToMove, final int orangeMovesMade, final int greenMovesMade){
+        for(long occupied = occupancy[0] | occupancy[1]; occupied != 0; occupied &= occupied - 1){
+            tiles[Long.numberOfTrailingZeros(occupied)] = EMPTY;
+        }
+        Arrays.fill(pieceBitboards, 0L);
+        occupancy[0] = 0L;
+        occupancy[1] = 0L;
+        for(int i = 0; i < count; i++){
+            final long bit = BoardUtils.tileBit(coordinates[i]);
+            tiles[coordinates[i]] = pieces[i];
+            pieceBitboards[pieces[i]] |= bit;
+            occupancy[pieces[i] / BoardUtils.NUM_PIECE_TYPES] |= bit;
+        }
+        this.reversedPieces = reversedPieces;
+        this.sideToMove = sideToMove.ordinal();
+        this.movesMade[0] = orangeMovesMade;
+        this.movesMade[1] = greenMovesMade;
+        this.zobristKey = Zobrist.calculateKey(pieceBitboards, reversedPieces, this.sideToMove, orangeMovesMade, greenMovesMade);
+        this.undoSize = 0;
+        setEvaluation(evaluation);
+    }
+
+    /**
+     * This method makes a packed move, see makeMove(int, int)
+     * @param move packed move
+     */
+    public void makeMove(final int move){
+        makeMove(PackedMove.getFrom(move), PackedMove.getTo(move));
+    }
+
+    /**
+     * This method creates packed move from source and destination in the current position
+     * The move is not checked for legality
+     * @param from coordinate of the moving piece
+     * @param to destination coordinate
+     * @return packed move
+     */
+    public int createMove(final int from, final int to){
+        final int moving = tiles[from];
+        if(moving == EMPTY){
+            throw new IllegalArgumentException("There is no piece on " + BoardUtils.getPositionAtCoordinate(from));
+        }
+        final int side = sideToMove;
+        int flags = (movesMade[side] + 1) % 3 == 0 ? PackedMove.TRANSFORM_FLAG : 0;
+        if(isDirectional(moving) && (MoveTables.TURNING_TILES[side][(reversedPieces & BoardUtils.tileBit(from)) != 0 ? 1 : 0] & BoardUtils.tileBit(to)) != 0){
+            flags |= PackedMove.FLIP_FLAG;
+        }
+        final int captured = tiles[to];
+        return PackedMove.create(from, to, moving % BoardUtils.NUM_PIECE_TYPES, captured == EMPTY ? -1 : captured % BoardUtils.NUM_PIECE_TYPES, flags);
+    }
+
+    /**
+     * This method moves the piece from one tile to another and updates the position in place
+     * Captured piece is removed, advancer or trident turns around on the last row,
+     * and on every third move of the player all its excels and tercels transform
+     * The move is not checked for legality
+     * @param from coordinate of the moving piece
+     * @param to destination coordinate
+     */
+    public void makeMove(final int from, final int to){
+        final int moving = tiles[from];
+        if(moving == EMPTY){
+            throw new IllegalArgumentException("There is no piece on " + BoardUtils.getPositionAtCoordinate(from));
+        }
+        final int side = sideToMove;
+        final long fromBit = BoardUtils.tileBit(from);
+        final long toBit = BoardUtils.tileBit(to);
+        int undo = from | (to << UNDO_TO_SHIFT);
+        pushUndo(undo, zobristKey);
+        long key = zobristKey;
+        final int[][] pieceValues = evaluation.pieceValues;
+        int newScore = score - pieceValues[pieceState(moving, from)][from];
+
+        // remove the captured piece
+        final int captured = tiles[to];
+        if(captured != EMPTY){
+            newScore -= pieceValues[pieceState(captured, to)][to];
+            transformScores[side ^ 1] -= transformScore(captured, to);
+            pieceBitboards[captured] ^= toBit;
+            occupancy[side ^ 1] ^= toBit;
+            key ^= Zobrist.PIECE_KEYS[captured][to];
+            if((reversedPieces & toBit) != 0){
+                reversedPieces ^= toBit;
+                key ^= Zobrist.REVERSED_KEYS[to];
+                undo |= UNDO_CAPTURED_REVERSED;
+            }
+            undo |= (captured + 1) << UNDO_CAPTURED_SHIFT;
+        }
+
+        // move the piece with its direction
+        pieceBitboards[moving] ^= fromBit | toBit;
+        occupancy[side] ^= fromBit | toBit;
+        tiles[to] = moving;
+        tiles[from] = EMPTY;
+        key ^= Zobrist.PIECE_KEYS[moving][from] ^ Zobrist.PIECE_KEYS[moving][to];
+        if((reversedPieces & fromBit) != 0){
+            reversedPieces ^= fromBit | toBit;
+            key ^= Zobrist.REVERSED_KEYS[from] ^ Zobrist.REVERSED_KEYS[to];
+        }
+
+        // advancer and trident turn around when they reach the last row
+        if(isDirectional(moving) && (MoveTables.TURNING_TILES[side][(reversedPieces & toBit) != 0 ? 1 : 0] & toBit) != 0){
+            reversedPieces ^= toBit;
+            key ^= Zobrist.REVERSED_KEYS[to];
+            undo |= UNDO_FLIPPED;
+        }
+        newScore += pieceValues[pieceState(moving, to)][to];
+        transformScores[side] += transformScore(moving, to) - transformScore(moving, from);
+
+        // on every third move excels and tercels transform, their values change by the precomputed transform score
+        key ^= Zobrist.PHASE_KEYS[side][movesMade[side] % 3];
+        movesMade[side]++;
+        key ^= Zobrist.PHASE_KEYS[side][movesMade[side] % 3];
+        if(movesMade[side] % 3 == 0){
+            key ^= transform(side);
+            newScore += transformScores[side];
+            transformScores[side] = -transformScores[side];
+            undo |= UNDO_TRANSFORMED;
+        }
+        score = newScore;
+
+        sideToMove = side ^ 1;
+        zobristKey = key ^ Zobrist.GREEN_TO_MOVE_KEY;
+        undoStack[undoSize - 1] = undo;
+    }
+
+    /**
+     * This method takes back the last made move
+     */
+    public void unmakeMove(){
+        if(undoSize == 0){
+            throw new IllegalStateException("There is no move to take back!");
+        }
+        final int undo = undoStack[--undoSize];
+        zobristKey = keyStack[undoSize];
+        score = scoreStack[3 * undoSize];
+        transformScores[0] = scoreStack[3 * undoSize + 1];
+        transformScores[1] = scoreStack[3 * undoSize + 2];
+        final int from = undo & TILE_MASK;
+        final int to = (undo >>> UNDO_TO_SHIFT) & TILE_MASK;
+        final int captured = ((undo >>> UNDO_CAPTURED_SHIFT) & 0xF) - 1;
+        final long fromBit = BoardUtils.tileBit(from);
+        final long toBit = BoardUtils.tileBit(to);
+        final int side = sideToMove ^ 1;
+        sideToMove = side;
+
+        // transform back before the piece leaves its destination
+        if((undo & UNDO_TRANSFORMED) != 0){
+            transform(side);
+        }
+        movesMade[side]--;
+
+        if((undo & UNDO_FLIPPED) != 0){
+            reversedPieces ^= toBit;
+        }
+
+        // move the piece back with its direction
+        final int moving = tiles[to];
+        pieceBitboards[moving] ^= fromBit | toBit;
+        occupancy[side] ^= fromBit | toBit;
+        tiles[from] = moving;
+        tiles[to] = EMPTY;
+        if((reversedPieces & toBit) != 0){
+            reversedPieces ^= fromBit | toBit;
+        }
+
+        // put the captured piece back
+        if(captured != EMPTY){
+            tiles[to] = captured;
+            pieceBitboards[captured] |= toBit;
+            occupancy[side ^ 1] |= toBit;
+            if((undo & UNDO_CAPTURED_REVERSED) != 0){
+                reversedPieces |= toBit;
+            }
+        }
+    }
+
+    /**
+     * This method swaps all excels and tercels of one player
+     * @param side alliance ordinal of the player
+     * @return change of the Zobrist key
+     */
+    private long transform(final int side){
+        final int excelIndex = side * BoardUtils.NUM_PIECE_TYPES + Piece.PieceType.EXCEL.ordinal();
+        final int tercelIndex = side * BoardUtils.NUM_PIECE_TYPES + Piece.PieceType.TERCEL.ordinal();
+        final long excels = pieceBitboards[excelIndex];
+        final long tercels = pieceBitboards[tercelIndex];
+        pieceBitboards[excelIndex] = tercels;
+        pieceBitboards[tercelIndex] = excels;
+        long keyChange = 0L;
+        for(long remaining = excels | tercels; remaining != 0; remaining &= remaining - 1){
+            final int coordinate = Long.numberOfTrailingZeros(remaining);
+            tiles[coordinate] = tiles[coordinate] == excelIndex ? tercelIndex : excelIndex;
+            keyChange ^= Zobrist.PIECE_KEYS[excelIndex][coordinate] ^ Zobrist.PIECE_KEYS[tercelIndex][coordinate];
+        }
+        return keyChange;
+    }
+
+    /**
+     * This method checks if piece with given bitboard index can change direction
+     * @param index bitboard index of the piece
+     * @return true for advancers and tridents
+     */
+    static boolean isDirectional(final int index){
+        final int type = index % BoardUtils.NUM_PIECE_TYPES;
+        return type == Piece.PieceType.ADVANCER.ordinal() || type == Piece.PieceType.TRIDENT.ordinal();
+    }
+
+    /**
+     * This method returns the evaluation state of a piece, its bitboard index and direction
+     * @param index bitboard index of the piece
+     * @param coordinate tile of the piece
+     * @return index into the piece values of the evaluation
+     */
+    private int pieceState(final int index, final int coordinate){
+        return index * 2 + (int)((reversedPieces >>> coordinate) & 1L);
+    }
+
+    /**
+     * This method returns how much the score changes when given piece transforms
+     * @param index bitboard index of the piece
+     * @param coordinate tile of the piece
+     * @return change of the score, 0 if the piece is not excel or tercel
+     */
+    private int transformScore(final int index, final int coordinate){
+        final int type = index % BoardUtils.NUM_PIECE_TYPES;
+        if(type == Piece.PieceType.EXCEL.ordinal()){
+            return evaluation.transformValues[index / BoardUtils.NUM_PIECE_TYPES][coordinate];
+        }
+        if(type == Piece.PieceType.TERCEL.ordinal()){
+            return -evaluation.transformValues[index / BoardUtils.NUM_PIECE_TYPES][coordinate];
+        }
+        return 0;
+    }
+
+    /**
+     * This method sets evaluation tables and calculates the score of the position from scratch
+     * @param evaluation evaluation tables
+     */
+    public void setEvaluation(final Evaluation evaluation){
+        this.evaluation = evaluation;
+        score = 0;
+        transformScores[0] = 0;
+        transformScores[1] = 0;
+        for(int coordinate = 0; coordinate < BoardUtils.NUM_TILES; coordinate++){
+            final int index = tiles[coordinate];
+            if(index != EMPTY){
+                score += evaluation.pieceValues[pieceState(index, coordinate)][coordinate];
+                transformScores[index / BoardUtils.NUM_PIECE_TYPES] += transformScore(index, coordinate);
+            }
+        }
+    }
+
+    /**
+     * This method returns the evaluation tables
+     * @return evaluation tables
+     */
+    public Evaluation getEvaluation(){
+        return evaluation;
+    }
+
+    /**
+     * This method returns static evaluation of the position
+     * Sum of the values of all pieces is kept up to date on every made and taken back move,
+     * advancer structure and transform phase terms are added from the bitboards and move counters
+     * @return score from the point of view of the player to move
+     */
+    public int evaluate(){
+        final int advancer = Piece.PieceType.ADVANCER.ordinal();
+        final int total = score
+                + evaluation.advancerScore(pieceBitboards[advancer]) - evaluation.advancerScore(pieceBitboards[BoardUtils.NUM_PIECE_TYPES + advancer])
+                + evaluation.phaseScore(movesMade[0]) - evaluation.phaseScore(movesMade[1]);
+        return sideToMove == 0 ? total : -total;
+    }
+
+    /**
+     * This method adds undo record and the current key on the stack, stack grows if needed
+     * @param undo undo record
+     * @param key key of the position before the move
+     */
+    private void pushUndo(final int undo, final long key){
+        if(undoSize == undoStack.length){
+            final int[] newStack = new int[undoStack.length * 2];
+            System.arraycopy(undoStack, 0, newStack, 0, undoSize);
+            undoStack = newStack;
+            final long[] newKeyStack = new long[keyStack.length * 2];
+            System.arraycopy(keyStack, 0, newKeyStack, 0, undoSize);
+            keyStack = newKeyStack;
+            final int[] newScoreStack = new int[scoreStack.length * 2];
+            System.arraycopy(scoreStack, 0, newScoreStack, 0, 3 * undoSize);
+            scoreStack = newScoreStack;
+        }
+        keyStack[undoSize] = key;
+        scoreStack[3 * undoSize] = score;
+        scoreStack[3 * undoSize + 1] = transformScores[0];
+        scoreStack[3 * undoSize + 2] = transformScores[1];
+        undoStack[undoSize++] = undo;
+    }
+
+    /**
+     * This method generates all legal moves of the player to move
+     * @param moves list the moves are added to
+     */
+    public void generateMoves(final IntMoveList moves){
+        MoveGenerator.generateMoves(this, moves);
+    }
+
+    /**
+     * This method generates capturing moves of the player to move
+     * @param moves list the moves are added to
+     */
+    public void generateCaptures(final IntMoveList moves){
+        MoveGenerator.generateCaptures(this, moves);
+    }
+
+    /**
+     * This method returns Zobrist key of the position, it is updated on every made and taken back move
+     * @return key of the position
+     */
+    public long getZobristKey(){
+        return zobristKey;
+    }
+
+    /**
+     * This method returns key of the position before one of the made moves
+     * @param index index of the made move, 0 is the first move made on this board
+     * @return key of the position before that move
+     */
+    public long getHistoryKey(final int index){
+        return keyStack[index];
+    }
+
+    /**
+     * This method returns the player to move
+     * @return alliance of the player to move
+     */
+    public Alliance getSideToMove(){
+        return ALLIANCES[sideToMove];
+    }
+
+    /**
+     * This method returns number of moves given player already made
+     * @param alliance color of the player
+     * @return number of made moves
+     */
+    public int getMovesMade(final Alliance alliance){
+        return movesMade[alliance.ordinal()];
+    }
+
+    /**
+     * This method returns number of moves that can be taken back
+     * @return number of moves made on this board
+     */
+    public int getUndoDepth(){
+        return undoSize;
+    }
+
+    /**
+     * This method returns bitboard of the pieces with given color and type
+     * @param alliance color of the pieces
+     * @param pieceType type of the pieces
+     * @return bitboard of the pieces
+     */
+    public long getPieceBitboard(final Alliance alliance, final Piece.PieceType pieceType){
+        return pieceBitboards[BoardUtils.bitboardIndex(alliance, pieceType)];
+    }
+
+    /**
+     * This method returns bitboard of all tiles occupied by pieces of given color
+     * @param alliance color of the pieces
+     * @return occupancy bitboard
+     */
+    public long getOccupancy(final Alliance alliance){
+        return occupancy[alliance.ordinal()];
+    }
+
+    /**
+     * This method returns bitboard of advancers and tridents that are moving in the opposite direction
+     * @return bitboard of the reversed pieces
+     */
+    public long getReversedPieces(){
+        return reversedPieces;
+    }
+
+    /**
+     * This method checks if the chief of given player is still on the board
+     * @param alliance color of the player
+     * @return true if chief is on the board
+     */
+    public boolean hasChief(final Alliance alliance){
+        return getPieceBitboard(alliance, Piece.PieceType.CHIEF) != 0;
+    }
+
+    /**
+     * This method creates immutable board with the same position
+     * @return created board
+     */
+    public Board toBoard(){
+        final Board.Builder builder = new Board.Builder();
+        for(int coordinate = 0; coordinate < BoardUtils.NUM_TILES; coordinate++){
+            if(tiles[coordinate] != EMPTY){
+                builder.setPiece(createPiece(coordinate));
+            }
+        }
+        builder.setMoveMaker(getSideToMove());
+        builder.setMovesMade(Alliance.ORANGE, movesMade[Alliance.ORANGE.ordinal()]);
+        builder.setMovesMade(Alliance.GREEN, movesMade[Alliance.GREEN.ordinal()]);
+        return builder.build();
+    }
+
+    /**
+     * This method returns the piece object for the piece on given tile
+     * @param coordinate coordinate of the tile
+     * @return shared piece
+     */
+    private Piece createPiece(final int coordinate){
+        final int index = tiles[coordinate];
+        final Alliance alliance = ALLIANCES[index / BoardUtils.NUM_PIECE_TYPES];
+        final int direction = (reversedPieces & BoardUtils.tileBit(coordinate)) != 0 ? -1 : 1;
+        return Piece.valueOf(PIECE_TYPES[index % BoardUtils.NUM_PIECE_TYPES], alliance, coordinate, direction);
+    }
+
+    /**
+     * String representation of the board, same as for Board
+     * @return String representation of the board
+     */
+    @Override
+    public String toString(){
+        return toBoard().toString();
+    }
+}
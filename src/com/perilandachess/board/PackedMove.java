@@ -0,0 +1,135 @@
+package com.perilandachess.board;
+
+import com.perilandachess.pieces.Piece;
+
+/**
+ * This class encodes a move into a single int, so moves can be generated and stored without creating objects
+ * Layout of the bits:
+ * 0-5 source coordinate, 6-11 destination coordinate,
+ * 12-14 type of the moving piece, 15-17 type of the captured piece plus one (0 when nothing is captured),
+ * 18 excels and tercels of the moving player transform, 19 moving advancer or trident turns around
+ */
+public final class PackedMove {
+
+    /**
+     * Value that represents no move, source and destination of a real move are never the same
+     */
+    public static final int NULL_MOVE = 0;
+
+    private static final int TO_SHIFT = 6;
+    private static final int MOVING_TYPE_SHIFT = 12;
+    private static final int CAPTURED_TYPE_SHIFT = 15;
+    private static final int TILE_MASK = 0x3F;
+    private static final int TYPE_MASK = 0x7;
+
+    /**
+     * Flag that is set when the move is the third move of the player, so its excels and tercels transform
+     */
+    public static final int TRANSFORM_FLAG = 1 << 18;
+
+    /**
+     * Flag that is set when moving advancer or trident reaches the last row and turns around
+     */
+    public static final int FLIP_FLAG = 1 << 19;
+
+    private PackedMove(){
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    /**
+     * This method creates packed move
+     * @param from source coordinate
+     * @param to destination coordinate
+     * @param movingType ordinal of the type of moving piece
+     * @param capturedType ordinal of the type of captured piece, or -1 if there is no captured piece
+     * @param flags TRANSFORM_FLAG and FLIP_FLAG, or 0
+     * @return packed move
+     */
+    public static int create(final int from, final int to, final int movingType, final int capturedType, final int flags){
+        return from | (to << TO_SHIFT) | (movingType << MOVING_TYPE_SHIFT) | ((capturedType + 1) << CAPTURED_TYPE_SHIFT) | flags;
+    }
+
+    /**
+     * This method returns source coordinate of the move
+     * @param move packed move
+     * @return source coordinate
+     */
+    public static int getFrom(final int move){
+        return move & TILE_MASK;
+    }
+
+    /**
+     * This method returns destination coordinate of the move
+     * @param move packed move
+     * @return destination coordinate
+     */
+    public static int getTo(final int move){
+        return (move >>> TO_SHIFT) & TILE_MASK;
+    }
+
+    /**
+     * This method returns ordinal of the type of moving piece
+     * @param move packed move
+     * @return ordinal of the moving piece type
+     */
+    public static int getMovingType(final int move){
+        return (move >>> MOVING_TYPE_SHIFT) & TYPE_MASK;
+    }
+
+    /**
+     * This method returns ordinal of the type of captured piece
+     * @param move packed move
+     * @return ordinal of the captured piece type, or -1 if nothing is captured
+     */
+    public static int getCapturedType(final int move){
+        return ((move >>> CAPTURED_TYPE_SHIFT) & TYPE_MASK) - 1;
+    }
+
+    /**
+     * This method checks if the move is an attack move
+     * @param move packed move
+     * @return true if move captures a piece
+     */
+    public static boolean isCapture(final int move){
+        return ((move >>> CAPTURED_TYPE_SHIFT) & TYPE_MASK) != 0;
+    }
+
+    /**
+     * This method checks if the move captures the chief, which ends the game
+     * @param move packed move
+     * @return true if captured piece is the chief
+     */
+    public static boolean isChiefCapture(final int move){
+        return getCapturedType(move) == Piece.PieceType.CHIEF.ordinal();
+    }
+
+    /**
+     * This method checks if the excels and tercels of the moving player transform after the move
+     * @param move packed move
+     * @return true if transform happens
+     */
+    public static boolean isTransform(final int move){
+        return (move & TRANSFORM_FLAG) != 0;
+    }
+
+    /**
+     * This method checks if moving advancer or trident turns around after the move
+     * @param move packed move
+     * @return true if moving piece changes direction
+     */
+    public static boolean isFlip(final int move){
+        return (move & FLIP_FLAG) != 0;
+    }
+
+    /**
+     * String representation of the packed move, for example "Ea6xc4"
+     * @param move packed move
+     * @return String representation of the move
+     */
+    public static String toString(final int move){
+        if(move == NULL_MOVE){
+            return "-";
+        }
+        return Piece.PieceType.values()[getMovingType(move)].toString() + BoardUtils.getPositionAtCoordinate(getFrom(move)) + (isCapture(move) ? "x" : "-") + BoardUtils.getPositionAtCoordinate(getTo(move));
+    }
+}
@@ -1,5 +1,6 @@
 package com.perilandachess.board;
 
+import com.perilandachess.Alliance;
 import com.perilandachess.pieces.Piece;
 
 import java.util.Collections;
@@ -16,6 +17,8 @@ public abstract class Tile {
     private final int tileCoordinate;
     // creates 49 empty tiles since often most of the board will be empty and then there are a lot of empty tiles
     private static final Map<Integer, EmptyTile> EMPTY_TILES_CACHE = createAllPossibleEmptyTiles();
+    // creates an occupied tile for every shared piece, indexed by the index of the piece, so boards do not allocate tiles
+    private static final OccupiedTile[] OCCUPIED_TILES_CACHE = createAllPossibleOccupiedTiles();
 
     /**
      * Constructor for the tile
@@ -37,6 +40,28 @@ public abstract class Tile {
         return Collections.unmodifiableMap(emptyTileMap);
     }
 
+    /**
+     * This method creates an occupied tile for every shared piece
+     * @return occupied tiles indexed by the index of the piece on them
+     */
+    private static OccupiedTile[] createAllPossibleOccupiedTiles() {
+        final OccupiedTile[] occupiedTiles = new OccupiedTile[Piece.NUM_PIECES];
+        for(final Piece.PieceType pieceType : Piece.PieceType.values()){
+            for(final Alliance alliance : Alliance.values()){
+                for(int i = 0; i < NUM_TILES; i++){
+                    for(final int direction : new int[]{1, -1}){
+                        // pieces that can not turn around are the same piece for both directions
+                        final Piece piece = Piece.valueOf(pieceType, alliance, i, direction);
+                        if(occupiedTiles[piece.getIndex()] == null){
+                            occupiedTiles[piece.getIndex()] = new OccupiedTile(i, piece);
+                        }
+                    }
+                }
+            }
+        }
+        return occupiedTiles;
+    }
+
     /**
      * This method will create a new Tile
      * @param tileCoordinate coordinate of the tile to be created
@@ -44,7 +69,11 @@ public abstract class Tile {
      * @return created tile, OccupiedTile if piece is not null, or EmptyTile otherwise
      */
     public static Tile createTile(final int tileCoordinate, final Piece piece){
-        return piece != null ? new OccupiedTile(tileCoordinate, piece) : EMPTY_TILES_CACHE.get(tileCoordinate);
+        if(piece == null){
+            return EMPTY_TILES_CACHE.get(tileCoordinate);
+        }
+        // cached tile holds the shared piece, it is equal to the given one
+        return piece.getPiecePosition() == tileCoordinate ? OCCUPIED_TILES_CACHE[piece.getIndex()] : new OccupiedTile(tileCoordinate, piece);
     }
 
     /**
@@ -0,0 +1,98 @@
+package com.perilandachess.board;
+
+/**
+ * This class contains random keys for Zobrist hashing of positions
+ * Key of a position is XOR of the keys of everything that makes the position:
+ * each piece on its tile, direction of advancers and tridents, player to move,
+ * and the transform phase (number of made moves modulo 3) of each player
+ * Keys are generated from a fixed seed, so the same position has the same key in every run
+ */
+public final class Zobrist {
+
+    // seed for the key generator, changing it invalidates every stored key
+    private static final long SEED = 0x5045524C414E4441L;
+
+    /**
+     * Keys for each piece bitboard index and tile
+     */
+    static final long[][] PIECE_KEYS = new long[BoardUtils.NUM_BITBOARDS][BoardUtils.NUM_TILES];
+
+    /**
+     * Keys for advancer or trident on given tile moving in the opposite direction
+     */
+    static final long[] REVERSED_KEYS = new long[BoardUtils.NUM_TILES];
+
+    /**
+     * Keys for transform phase of each player, indexed by alliance ordinal and phase
+     */
+    static final long[][] PHASE_KEYS = new long[2][3];
+
+    /**
+     * Key that is added when green player is to move
+     */
+    static final long GREEN_TO_MOVE_KEY;
+
+    static {
+        long state = SEED;
+        for(int index = 0; index < BoardUtils.NUM_BITBOARDS; index++){
+            for(int coordinate = 0; coordinate < BoardUtils.NUM_TILES; coordinate++){
+                state += 0x9E3779B97F4A7C15L;
+                PIECE_KEYS[index][coordinate] = mix(state);
+            }
+        }
+        for(int coordinate = 0; coordinate < BoardUtils.NUM_TILES; coordinate++){
+            state += 0x9E3779B97F4A7C15L;
+            REVERSED_KEYS[coordinate] = mix(state);
+        }
+        for(int side = 0; side < 2; side++){
+            for(int phase = 0; phase < 3; phase++){
+                state += 0x9E3779B97F4A7C15L;
+                PHASE_KEYS[side][phase] = mix(state);
+            }
+        }
+        state += 0x9E3779B97F4A7C15L;
+        GREEN_TO_MOVE_KEY = mix(state);
+    }
+
+    private Zobrist(){
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    /**
+     * SplitMix64 finalizer, it turns consecutive states into well distributed keys
+     * @param state generator state
+     * @return random key
+     */
+    private static long mix(long state){
+        state = (state ^ (state >>> 30)) * 0xBF58476D1CE4E5B9L;
+        state = (state ^ (state >>> 27)) * 0x94D049BB133111EBL;
+        return state ^ (state >>> 31);
+    }
+
+    /**
+     * This method calculates the key of a position from scratch
+     * @param pieceBitboards bitboards indexed by BoardUtils.bitboardIndex
+     * @param reversed advancers and tridents moving in the opposite direction
+     * @param side alliance ordinal of the player to move
+     * @param orangeMovesMade number of moves orange player already made
+     * @param greenMovesMade number of moves green player already made
+     * @return key of the position
+     */
+    public static long calculateKey(final long[] pieceBitboards, final long reversed, final int side, final int orangeMovesMade, final int greenMovesMade){
+        long key = 0L;
+        for(int index = 0; index < BoardUtils.NUM_BITBOARDS; index++){
+            for(long pieces = pieceBitboards[index]; pieces != 0; pieces &= pieces - 1){
+                key ^= PIECE_KEYS[index][Long.numberOfTrailingZeros(pieces)];
+            }
+        }
+        for(long pieces = reversed; pieces != 0; pieces &= pieces - 1){
+            key ^= REVERSED_KEYS[Long.numberOfTrailingZeros(pieces)];
+        }
+        key ^= PHASE_KEYS[0][orangeMovesMade % 3];
+        key ^= PHASE_KEYS[1][greenMovesMade % 3];
+        if(side == 1){
+            key ^= GREEN_TO_MOVE_KEY;
+        }
+        return key;
+    }
+}
@@ -2,6 +2,7 @@ package com.perilandachess.gui;
 
 import com.perilandachess.board.Board;
 import com.perilandachess.board.Move;
+import com.perilandachess.gui.Table.MoveLog.LoggedMove;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
@@ -51,16 +52,16 @@ public class GameHistoryPanel extends JPanel {
         this.model.clear();
 
         // for each move from move log
-        for(final Move move : moveLog.getMoves()){
+        for(final LoggedMove move : moveLog.getMoves()){
             // take the move text
             final String moveText = move.toString();
 
             // if move is played by green add to first column
-            if(move.getMovedPiece().getPieceAlliance().isGreen()){
+            if(move.getAlliance().isGreen()){
                 this.model.setValueAt(moveText, currentRow, 0);
             }
             // if the move is played by orange add to second colunm
-            else if(move.getMovedPiece().getPieceAlliance().isOrange()){
+            else if(move.getAlliance().isOrange()){
                 this.model.setValueAt(moveText, currentRow, 1);
                 currentRow++;
             }
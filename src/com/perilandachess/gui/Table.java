@@ -1,9 +1,16 @@
 package com.perilandachess.gui;
 
 import com.perilandachess.Alliance;
+import com.perilandachess.ai.AlphaBeta;
+import com.perilandachess.ai.GameClock;
+import com.perilandachess.ai.PonderingEngine;
+import com.perilandachess.ai.SearchLimits;
+import com.perilandachess.ai.SearchResult;
 import com.perilandachess.board.Board;
 import com.perilandachess.board.BoardUtils;
 import com.perilandachess.board.Move;
+import com.perilandachess.board.MutableBoard;
+import com.perilandachess.board.PackedMove;
 import com.perilandachess.board.Tile;
 import com.perilandachess.pieces.Advancer;
 import com.perilandachess.pieces.Piece;
@@ -12,15 +19,20 @@ import com.perilandachess.player.MoveTransition;
 
 import javax.imageio.ImageIO;
 import javax.swing.*;
+import javax.swing.Timer;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.awt.image.BufferedImage;
 import java.io.*;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static javax.swing.SwingUtilities.isLeftMouseButton;
 import static javax.swing.SwingUtilities.isRightMouseButton;
@@ -54,6 +66,34 @@ public class Table {
     // check if need to highlight legal move
     private boolean highlightLegalMoves;
 
+    // size of the transposition table of the computer player in megabytes
+    private static final int ENGINE_HASH_MEGABYTES = 64;
+
+    // time controls the computer can play with, base time and increment in milliseconds
+    private static final long[][] TIME_CONTROLS = {{60_000, 1_000}, {300_000, 3_000}, {900_000, 10_000}};
+
+    // computer player, it thinks on the opponent's time
+    private final AlphaBeta alphaBeta;
+    private final PonderingEngine engine;
+
+    // thread of the computer player, all calls of the engine run on it one after another
+    private final ExecutorService engineThread;
+
+    // position of the game for the computer player, kept in step with the chess board
+    private MutableBoard enginePosition;
+
+    // side played by the computer, null if two humans play
+    private Alliance computerAlliance;
+
+    // clock of the game against the computer
+    private GameClock gameClock;
+
+    // true while the computer chooses its move
+    private boolean computerThinking;
+
+    // number of the current game, moves of the computer found for an earlier game are dropped
+    private int gameNumber;
+
 
     // directory for the images
     private static String defaultPieceImagesPath = "art" + File.separator;
@@ -86,7 +126,7 @@ public class Table {
         gameFrame.setSize(new Dimension(1000, 800));
 
         this.boardPanel = new BoardPanel();
-        this.moveLog = new MoveLog();
+        this.moveLog = new MoveLog(chessBoard);
 
         // add constructed panels
         this.gameFrame.add(boardPanel, BorderLayout.CENTER);
@@ -97,9 +137,29 @@ public class Table {
         // highlight legal moves by default
         highlightLegalMoves = true;
 
+        // create the computer player, it plays only when it is chosen in preferences
+        this.alphaBeta = new AlphaBeta(ENGINE_HASH_MEGABYTES, Runtime.getRuntime().availableProcessors());
+        this.engine = new PonderingEngine(alphaBeta);
+        this.engineThread = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "Computer player");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.enginePosition = new MutableBoard(chessBoard);
+        this.gameClock = new GameClock(TIME_CONTROLS[1][0], TIME_CONTROLS[1][1]);
+
+        // show the clock in the title while the computer plays
+        new Timer(1000, e -> updateTitle()).start();
+
         gameFrame.setVisible(true);
 
-        // exit on X button
+        // exit on X button, the computer player is closed first
+        gameFrame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                closeComputer();
+            }
+        });
         gameFrame.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
     }
 
@@ -156,9 +216,17 @@ public class Table {
                         chessBoard = Board.createCustomBoard(selectedFile);
 
                         // reset movelog and two panels
-                        moveLog = new MoveLog();
+                        moveLog = new MoveLog(chessBoard);
                         takenPiecesPanel.reset();
                         gameHistoryPanel.reset();
+
+                        // leave the piece selected in the old game
+                        sourceTile = null;
+                        destinationTile = null;
+                        movedPiece = null;
+
+                        // the computer starts the loaded game from scratch
+                        resetComputer();
                     }catch (IllegalArgumentException ex){
                         // if there was some error while reading file
                         JOptionPane.showMessageDialog(gameFrame, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
@@ -174,6 +242,9 @@ public class Table {
                 }
                 // redraw the board
                 boardPanel.drawBoard(chessBoard);
+
+                // computer moves if it is its turn
+                startComputerMove(PackedMove.NULL_MOVE);
             }
         });
         fileMenu.add(openPGN);
@@ -203,6 +274,10 @@ public class Table {
                         }else{
                             writer.print("O");
                         }
+
+                        // print number of moves made by orange and green, they decide when excels and tercels transform
+                        writer.println();
+                        writer.print(chessBoard.getMovesMade(Alliance.ORANGE) + " " + chessBoard.getMovesMade(Alliance.GREEN));
                     } catch (IOException ex) {
                         ex.printStackTrace();
                     }
@@ -220,6 +295,7 @@ public class Table {
             @Override
             public void actionPerformed(ActionEvent e) {
                 // terminate the program
+                closeComputer();
                 System.exit(0);
             }
         });
@@ -249,10 +325,171 @@ public class Table {
         boardDirection = BoardDirection.NORMAL;
 
         //clear move log
-        moveLog = new MoveLog();
+        moveLog = new MoveLog(chessBoard);
+
+        // leave the piece selected in the old game
+        sourceTile = null;
+        destinationTile = null;
+        movedPiece = null;
+
+        // the computer forgets the old game
+        resetComputer();
 
         // redraw board
         boardPanel.drawBoard(chessBoard);
+
+        // computer moves if it plays green
+        startComputerMove(PackedMove.NULL_MOVE);
+    }
+
+    /**
+     * This method stops the computer player and its threads, it is called when the application is closed
+     */
+    private void closeComputer(){
+        engine.close();
+        alphaBeta.close();
+        engineThread.shutdownNow();
+    }
+
+    /**
+     * This method resets the computer player for a new game, the move it is choosing for the old game is dropped
+     */
+    private void resetComputer(){
+        gameNumber++;
+        computerThinking = false;
+        alphaBeta.stop();
+        engineThread.submit(() -> {
+            engine.newGame();
+            return null;
+        });
+        enginePosition = new MutableBoard(chessBoard);
+        gameClock.reset();
+        updateTitle();
+    }
+
+    /**
+     * This method starts the search of the computer if it is its turn, the search runs on the computer thread
+     * and its move is played on the event dispatch thread
+     * @param lastMove packed move the human just played, PackedMove.NULL_MOVE if unknown
+     */
+    private void startComputerMove(final int lastMove){
+        if(computerAlliance == null || computerThinking || chessBoard.getCurrentPlayer().getAlliance() != computerAlliance
+                || chessBoard.getCurrentPlayer().isChiefCaptured()){
+            return;
+        }
+        computerThinking = true;
+        gameClock.startTurn(computerAlliance);
+        final int game = gameNumber;
+        final MutableBoard position = new MutableBoard(enginePosition);
+        final SearchLimits limits = gameClock.createLimits(computerAlliance);
+        // a new game stops the search even if the computer thread did not start it yet
+        final long generation = alphaBeta.getGeneration();
+        engineThread.submit(() -> {
+            final SearchResult result = engine.think(position, lastMove, limits, generation);
+            SwingUtilities.invokeLater(() -> playComputerMove(game, result));
+            return null;
+        });
+    }
+
+    /**
+     * This method plays the move chosen by the computer and starts pondering on the expected reply
+     * @param game number of the game the move was chosen for
+     * @param result result of the search
+     */
+    private void playComputerMove(final int game, final SearchResult result){
+        // the game was changed while the computer was thinking
+        if(game != gameNumber || !computerThinking){
+            return;
+        }
+        computerThinking = false;
+        final Move move = Move.MoveFactory.createMove(chessBoard, result.getBestMove());
+        final MoveTransition moveTransition = chessBoard.getCurrentPlayer().makeMove(move);
+        if(result.getBestMove() == PackedMove.NULL_MOVE || !moveTransition.getMoveStatus().isDone()){
+            // the computer can not move, without legal moves the game is a draw
+            gameClock.endTurn();
+            if(chessBoard.getCurrentPlayer().getLegalMoves().isEmpty()){
+                resetComputer();
+                JOptionPane.showMessageDialog(gameFrame, "Computer has no moves, the game is a draw!", "Game over", JOptionPane.INFORMATION_MESSAGE);
+            }else{
+                JOptionPane.showMessageDialog(gameFrame, "Computer could not choose a move, start a new game!", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+            return;
+        }
+        // make the move on both boards and start the clock of the human
+        chessBoard = moveTransition.getTransitionBoard();
+        moveLog.addMove(result.getBestMove());
+        enginePosition.makeMove(result.getBestMove());
+        gameClock.startTurn(computerAlliance == Alliance.ORANGE ? Alliance.GREEN : Alliance.ORANGE);
+
+        // think about the expected reply while the human is thinking
+        final MutableBoard position = new MutableBoard(enginePosition);
+        engineThread.submit(() -> {
+            engine.startPondering(position, result);
+            return null;
+        });
+
+        // update panels and the board
+        gameHistoryPanel.redo(chessBoard, moveLog);
+        takenPiecesPanel.redo(moveLog);
+        boardPanel.drawBoard(chessBoard);
+        checkGameOver();
+    }
+
+    /**
+     * This method shows the winner if the chief was captured and asks for a new game
+     */
+    private void checkGameOver(){
+        // if chief is captured game over
+        if(chessBoard.getCurrentPlayer().isChiefCaptured()){
+            // the game is over, the computer stops thinking
+            gameClock.endTurn();
+            if(computerAlliance != null){
+                resetComputer();
+            }
+            // if current player is a green, then green chief was captured
+            if(chessBoard.getCurrentPlayer().getAlliance() == Alliance.GREEN) {
+                // print a message that orange is a winner
+                JOptionPane.showMessageDialog(gameFrame, "Orange is winner!", "Game over", JOptionPane.INFORMATION_MESSAGE);
+
+                // ask if he want play again
+                int n = JOptionPane.showConfirmDialog(gameFrame, "Would you like to start a new game?", "New game", JOptionPane.YES_NO_OPTION);
+
+                // he wants play again start new game
+                if(n == 0){
+                    createNewGame();
+                }
+                // he doesn't want to play again, close the app
+                else{
+                    closeComputer();
+                    System.exit(0);
+                }
+            }
+            // // if current player is a orange, then orange chief was captured
+            else{
+                // print the message that green is the winner
+                JOptionPane.showMessageDialog(gameFrame, "Green is winner!", "Game over", JOptionPane.INFORMATION_MESSAGE);
+
+                // ask if he want to play again
+                int n = JOptionPane.showConfirmDialog(gameFrame, "Would you like to start a new game?", "New game", JOptionPane.YES_NO_OPTION);
+                if(n == 0){
+                    createNewGame();
+                }else{
+                    closeComputer();
+                    System.exit(0);
+                }
+            }
+        }
+    }
+
+    /**
+     * This method shows the clock in the title of the window while the computer plays
+     */
+    private void updateTitle(){
+        if(computerAlliance == null){
+            gameFrame.setTitle("Perilanda chess");
+        }else{
+            gameFrame.setTitle("Perilanda chess  Orange " + gameClock.toString().replace(" - ", "  Green "));
+        }
     }
 
     /**
@@ -304,34 +541,155 @@ public class Table {
 
     /**
      * This class will contain all moves that been played in a current game
+     * Moves are kept as packed moves, so the log does not hold the boards the moves were played on
      */
     public static class MoveLog{
 
-        // list of moves
-        private final List<Move> moves;
+        // initial capacity of the log
+        private static final int INITIAL_CAPACITY = 32;
+
+        // packed moves in the order they were played
+        private int[] moves;
+
+        // number of played moves
+        private int size;
+
+        // player that played the first move
+        private final Alliance firstMoveMaker;
+
+        // view of the played moves
+        private final List<LoggedMove> moveView;
 
         /**
          * Constructor for move log
+         * @param startBoard position the game starts from
          */
-        MoveLog(){
-            moves = new ArrayList<>();
+        MoveLog(final Board startBoard){
+            this.moves = new int[INITIAL_CAPACITY];
+            this.firstMoveMaker = startBoard.getCurrentPlayer().getAlliance();
+            this.moveView = new AbstractList<LoggedMove>() {
+                @Override
+                public LoggedMove get(final int ply){
+                    return getMove(ply);
+                }
+
+                @Override
+                public int size(){
+                    return size;
+                }
+            };
         }
 
         /**
          * This method returns all played moves in a game
-         * @return list of played moves
+         * Moves of the list are created when they are read, the list follows the log as moves are added
+         * @return unmodifiable list of played moves
          */
-        public List<Move> getMoves(){
-            return moves;
+        public List<LoggedMove> getMoves(){
+            return moveView;
         }
 
+        /**
+         * This method returns number of played moves
+         * @return number of plies
+         */
+        public int size(){
+            return size;
+        }
+
+        /**
+         * This method returns one played move
+         * @param ply number of the move, starting from 0
+         * @return view of the move
+         */
+        public LoggedMove getMove(final int ply){
+            if(ply < 0 || ply >= size){
+                throw new IndexOutOfBoundsException("Ply " + ply + " of " + size);
+            }
+            final Alliance secondMoveMaker = firstMoveMaker == Alliance.ORANGE ? Alliance.GREEN : Alliance.ORANGE;
+            return new LoggedMove(moves[ply], ply % 2 == 0 ? firstMoveMaker : secondMoveMaker);
+        }
 
         /**
          * This method adds new move in a move log
-         * @param move new move
+         * @param packedMove packed move that was played
+         */
+        public void addMove(final int packedMove){
+            if(size == moves.length){
+                moves = Arrays.copyOf(moves, size * 2);
+            }
+            moves[size++] = packedMove;
+        }
+
+        /**
+         * This class is a view of a played move, it is made only of the packed move and the player that played it
          */
-        public void addMove(final Move move){
-            moves.add(move);
+        public static final class LoggedMove{
+
+            // packed move
+            private final int packedMove;
+
+            // player that played the move
+            private final Alliance alliance;
+
+            /**
+             * Constructor for the view of a move
+             * @param packedMove packed move
+             * @param alliance player that played the move
+             */
+            LoggedMove(final int packedMove, final Alliance alliance){
+                this.packedMove = packedMove;
+                this.alliance = alliance;
+            }
+
+            /**
+             * This method returns the packed move
+             * @return packed move
+             */
+            public int getPackedMove(){
+                return packedMove;
+            }
+
+            /**
+             * This method returns the player that played the move
+             * @return color of the player
+             */
+            public Alliance getAlliance(){
+                return alliance;
+            }
+
+            /**
+             * This method returns type of the moving piece
+             * @return piece type
+             */
+            public Piece.PieceType getMovedPieceType(){
+                return Piece.PieceType.values()[PackedMove.getMovingType(packedMove)];
+            }
+
+            /**
+             * This method checks if it is attack move
+             * @return true if the move captured a piece
+             */
+            public boolean isAttack(){
+                return PackedMove.isCapture(packedMove);
+            }
+
+            /**
+             * This method returns type of the attacked piece, the piece belongs to the opponent
+             * @return piece type, or null if the move is not attack move
+             */
+            public Piece.PieceType getAttackedPieceType(){
+                return isAttack() ? Piece.PieceType.values()[PackedMove.getCapturedType(packedMove)] : null;
+            }
+
+            /**
+             * String representation of the move, the same as the one of the Move it was played as
+             * @return String representation of the move
+             */
+            @Override
+            public String toString(){
+                return getMovedPieceType().toString() + (isAttack() ? "x" : "") + BoardUtils.getPositionAtCoordinate(PackedMove.getTo(packedMove));
+            }
         }
     }
 
@@ -370,8 +728,9 @@ public class Table {
                         // redraw the board to clear possible moves
                         boardPanel.drawBoard(chessBoard);
                     }
-                    // if it is left mouse clock
-                    else if(isLeftMouseButton(e)){
+                    // if it is left mouse clock, the human can not move while it is the computer's turn
+                    else if(isLeftMouseButton(e) && !computerThinking
+                            && chessBoard.getCurrentPlayer().getAlliance() != computerAlliance){
                         // if it is first click
                         // click on source tile
                         if(sourceTile == null){
@@ -399,13 +758,21 @@ public class Table {
 
                             // if it is possible move
                             if(moveTransition.getMoveStatus().isDone()){
+                                // same move for the computer, the computer checks it against the reply it is pondering on
+                                final int packedMove = enginePosition.createMove(move.getCurrentCoordinate(), move.getDestinationCoordinate());
+
                                 // make the move
                                 chessBoard = moveTransition.getTransitionBoard();
                                 // add it to move log
-                                moveLog.addMove(move);
+                                moveLog.addMove(packedMove);
 
-                                // flip the board
-                                boardDirection = boardDirection.opposite();
+                                // keep the computer's board in step
+                                enginePosition.makeMove(packedMove);
+
+                                // flip the board, when playing the computer the human's side stays down
+                                if(computerAlliance == null){
+                                    boardDirection = boardDirection.opposite();
+                                }
 
                                 // redraw the board
                                 boardPanel.drawBoard(chessBoard);
@@ -413,39 +780,11 @@ public class Table {
                                 // swich color on next move panel
                                 nextMovePanel.redo(chessBoard.getCurrentPlayer().getAlliance());
 
-                                // if chief is captured game over
-                                if(chessBoard.getCurrentPlayer().isChiefCaptured()){
-                                    // if current player is a green, then green chief was captured
-                                    if(chessBoard.getCurrentPlayer().getAlliance() == Alliance.GREEN) {
-                                        // print a message that orange is a winner
-                                        JOptionPane.showMessageDialog(gameFrame, "Orange is winner!", "Game over", JOptionPane.INFORMATION_MESSAGE);
-
-                                        // ask if he want play again
-                                        int n = JOptionPane.showConfirmDialog(gameFrame, "Would you like to start a new game?", "New game", JOptionPane.YES_NO_OPTION);
-
-                                        // he wants play again start new game
-                                        if(n == 0){
-                                            createNewGame();
-                                        }
-                                        // he doesn't want to play again, close the app
-                                        else{
-                                            System.exit(0);
-                                        }
-                                    }
-                                    // // if current player is a orange, then orange chief was captured
-                                    else{
-                                        // print the message that green is the winner
-                                        JOptionPane.showMessageDialog(gameFrame, "Green is winner!", "Game over", JOptionPane.INFORMATION_MESSAGE);
-
-                                        // ask if he want to play again
-                                        int n = JOptionPane.showConfirmDialog(gameFrame, "Would you like to start a new game?", "New game", JOptionPane.YES_NO_OPTION);
-                                        if(n == 0){
-                                            createNewGame();
-                                        }else{
-                                            System.exit(0);
-                                        }
-                                    }
-                                }
+                                // check if the game is over
+                                checkGameOver();
+
+                                // computer answers, a ponder hit lets it go on with the search it already started
+                                startComputerMove(packedMove);
                             }
                             sourceTile = null;
                             destinationTile = null;
@@ -634,9 +973,9 @@ public class Table {
          * @return
          */
         private Collection<Move> pieceLegalMoves(final Board board){
-            // if that we found moving piece
+            // if that we found moving piece, take its moves from the legal moves of the board
             if(movedPiece != null && movedPiece.getPieceAlliance() == board.getCurrentPlayer().getAlliance()){
-                return movedPiece.calculateLegalMoves(board);
+                return board.getLegalMoves(movedPiece.getPieceAlliance(), movedPiece.getPiecePosition());
             }
 
             // there is no moving piece, return empty list
@@ -733,6 +1072,42 @@ public class Table {
             }
         });
         preferencesMenu.add(legalMoveHinghLinghterCheckbox);
+        preferencesMenu.addSeparator();
+
+        // opponent options, two humans or the computer with one of the colors
+        final ButtonGroup opponentGroup = new ButtonGroup();
+        final String[] opponentNames = {"Two players", "Computer plays orange", "Computer plays green"};
+        final Alliance[] opponentAlliances = {null, Alliance.ORANGE, Alliance.GREEN};
+        for(int i = 0; i < opponentNames.length; i++){
+            final Alliance alliance = opponentAlliances[i];
+            final JRadioButtonMenuItem opponentMenuItem = new JRadioButtonMenuItem(opponentNames[i], alliance == null);
+
+            // set the side of the computer, its clock starts again
+            opponentMenuItem.addActionListener(e -> {
+                computerAlliance = alliance;
+                resetComputer();
+                startComputerMove(PackedMove.NULL_MOVE);
+            });
+            opponentGroup.add(opponentMenuItem);
+            preferencesMenu.add(opponentMenuItem);
+        }
+        preferencesMenu.addSeparator();
+
+        // time controls of the computer, base time in minutes and increment in seconds
+        final ButtonGroup timeControlGroup = new ButtonGroup();
+        for(final long[] timeControl : TIME_CONTROLS){
+            final JRadioButtonMenuItem timeControlMenuItem = new JRadioButtonMenuItem(
+                    timeControl[0] / 60_000 + " min + " + timeControl[1] / 1000 + " s", timeControl == TIME_CONTROLS[1]);
+
+            // set the new clock, it starts from the beginning
+            timeControlMenuItem.addActionListener(e -> {
+                gameClock = new GameClock(timeControl[0], timeControl[1]);
+                resetComputer();
+                startComputerMove(PackedMove.NULL_MOVE);
+            });
+            timeControlGroup.add(timeControlMenuItem);
+            preferencesMenu.add(timeControlMenuItem);
+        }
         return preferencesMenu;
     }
 
@@ -1,7 +1,8 @@
 package com.perilandachess.gui;
 
-import com.perilandachess.board.Move;
+import com.perilandachess.Alliance;
 import com.perilandachess.gui.Table.MoveLog;
+import com.perilandachess.gui.Table.MoveLog.LoggedMove;
 import com.perilandachess.pieces.Piece;
 
 import javax.imageio.ImageIO;
@@ -66,22 +67,22 @@ public class TakenPiecesPanel extends JPanel {
         southPanel.removeAll();
         northPanel.removeAll();
 
-        // create two arrayLists for green and orange taken pieces
-        final List<Piece> greenTakenPieces = new ArrayList<>();
-        final List<Piece> orangeTakenPieces = new ArrayList<>();
+        // create two arrayLists for green and orange taken pieces, the move log keeps only their types
+        final List<Piece.PieceType> greenTakenPieces = new ArrayList<>();
+        final List<Piece.PieceType> orangeTakenPieces = new ArrayList<>();
 
         // for each move from move log
-        for(final Move move : moveLog.getMoves()){
+        for(final LoggedMove move : moveLog.getMoves()){
             // check if it was attack move
             if(move.isAttack()){
-                // take the taken pieces
-                final Piece takenPiece = move.getAttackedPiece();
-                // if piece was green add it to green pieces list
-                if(takenPiece.getPieceAlliance().isGreen()){
+                // taken piece belongs to the opponent of the player that moved
+                final Piece.PieceType takenPiece = move.getAttackedPieceType();
+                // if orange took a green piece add it to orange pieces list
+                if(move.getAlliance().isOrange()){
                     orangeTakenPieces.add(takenPiece);
                 }
-                // taken piece was orange add it to orange pieces list
-                else if(takenPiece.getPieceAlliance().isOrange()){
+                // green took an orange piece add it to green pieces list
+                else if(move.getAlliance().isGreen()){
                     greenTakenPieces.add(takenPiece);
                 }
                 // unknown piece color
@@ -92,28 +93,28 @@ public class TakenPiecesPanel extends JPanel {
         }
 
         //sort green taken pieces
-        Collections.sort(greenTakenPieces, new Comparator<Piece>() {
+        Collections.sort(greenTakenPieces, new Comparator<Piece.PieceType>() {
             @Override
-            public int compare(Piece o1, Piece o2) {
+            public int compare(Piece.PieceType o1, Piece.PieceType o2) {
                 return o1.getPieceValue() - o2.getPieceValue();
             }
         });
 
 
         // sort orange taken pieces
-        Collections.sort(orangeTakenPieces, new Comparator<Piece>() {
+        Collections.sort(orangeTakenPieces, new Comparator<Piece.PieceType>() {
             @Override
-            public int compare(Piece o1, Piece o2) {
+            public int compare(Piece.PieceType o1, Piece.PieceType o2) {
                 return o1.getPieceValue() - o2.getPieceValue();
             }
         });
 
         // for each green taken piece
-        for(final Piece takenPiece : greenTakenPieces){
+        for(final Piece.PieceType takenPiece : greenTakenPieces){
             try{
-                // create buffered image for the piece (path is: "art" + "\"(for windows) + "G"(piece is green) + "A"(for advancer, taken piece name in general) + ".png")
-                // so for example path would be "art\GA.png"
-                final BufferedImage image = ImageIO.read(new File("art" + File.separator + takenPiece.getPieceAlliance().toString().substring(0, 1) + takenPiece.toString() + ".png"));
+                // create buffered image for the piece (path is: "art" + "\"(for windows) + "O"(green took an orange piece) + "A"(for advancer, taken piece name in general) + ".png")
+                // so for example path would be "art\OA.png"
+                final BufferedImage image = ImageIO.read(new File("art" + File.separator + Alliance.ORANGE.toString().substring(0, 1) + takenPiece.toString() + ".png"));
                 // create ImageIcon object with image
                 final ImageIcon imageIcon = new ImageIcon(image);
 
@@ -128,9 +129,9 @@ public class TakenPiecesPanel extends JPanel {
         }
 
         // same job just orange pieces
-        for(final Piece takenPiece : orangeTakenPieces){
+        for(final Piece.PieceType takenPiece : orangeTakenPieces){
             try{
-                final BufferedImage image = ImageIO.read(new File("art" + File.separator + takenPiece.getPieceAlliance().toString().substring(0, 1) + takenPiece.toString() + ".png"));
+                final BufferedImage image = ImageIO.read(new File("art" + File.separator + Alliance.GREEN.toString().substring(0, 1) + takenPiece.toString() + ".png"));
                 final ImageIcon imageIcon = new ImageIcon(image);
                 final JLabel imageLabel = new JLabel(imageIcon);
                 northPanel.add(imageLabel);
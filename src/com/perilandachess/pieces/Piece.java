@@ -2,15 +2,24 @@ package com.perilandachess.pieces;
 
 import com.perilandachess.Alliance;
 import com.perilandachess.board.Board;
+import com.perilandachess.board.BoardUtils;
 import com.perilandachess.board.Move;
 
 import java.util.Collection;
 
 /**
  * This class is abstract for one piece on the board
+ * Pieces are immutable, so they can be shared by boards and threads
+ * One instance of every possible piece is kept, valueOf returns it, so moving a piece gives the kept piece
+ * on the destination tile and moves and boards do not allocate pieces
  */
 public abstract class Piece {
 
+    /**
+     * Number of possible pieces, one for each type, alliance, tile and direction
+     */
+    public static final int NUM_PIECES = PieceType.values().length * Alliance.values().length * BoardUtils.NUM_TILES * 2;
+
     // position of the piece on the board
     protected final int piecePosition;
 
@@ -64,9 +73,63 @@ public abstract class Piece {
         return pieceType.getPieceValue();
     }
 
+    /**
+     * Getter for the direction of the piece
+     * Only advancers and tridents can turn around, all other pieces keep normal direction
+     * @return 1 for normal direction, -1 for opposite direction
+     */
+    public int getDirection(){
+        return 1;
+    }
+
+    /**
+     * This method returns the shared instance of a piece
+     * @param pieceType type of the piece
+     * @param pieceAlliance color of the piece
+     * @param piecePosition position of the piece
+     * @param direction 1 for normal direction, -1 for opposite direction, ignored for pieces that can not turn around
+     * @return piece
+     */
+    public static Piece valueOf(final PieceType pieceType, final Alliance pieceAlliance, final int piecePosition, final int direction){
+        return Interned.PIECES[index(pieceType, pieceAlliance, piecePosition, direction)];
+    }
+
+    /**
+     * This method returns index of the piece among all possible pieces, caches of pieces and tiles are indexed by it
+     * @return index between 0 and NUM_PIECES - 1
+     */
+    public int getIndex(){
+        return index(pieceType, pieceAlliance, piecePosition, getDirection());
+    }
+
+    /**
+     * This method calculates index of a piece
+     * @param pieceType type of the piece
+     * @param pieceAlliance color of the piece
+     * @param piecePosition position of the piece
+     * @param direction direction of the piece
+     * @return index between 0 and NUM_PIECES - 1
+     */
+    private static int index(final PieceType pieceType, final Alliance pieceAlliance, final int piecePosition, final int direction){
+        return ((pieceType.ordinal() * 2 + pieceAlliance.ordinal()) * BoardUtils.NUM_TILES + piecePosition) * 2 + (direction == -1 ? 1 : 0);
+    }
+
+    /**
+     * This method checks the direction given to a piece constructor
+     * @param direction direction of the piece
+     * @return the same direction
+     * @throws IllegalArgumentException if direction is not 1 or -1
+     */
+    protected static int checkDirection(final int direction){
+        if(direction != 1 && direction != -1){
+            throw new IllegalArgumentException("Direction must be 1 or -1!");
+        }
+        return direction;
+    }
+
     /**
      * This method checks if two pieces are same
-     * Pieces are same if they are on same position, they are same type and they have same alliance
+     * Pieces are same if they are on same position, they are same type, they have same alliance and same direction
      * @param other piece to comper to
      * @return true if pieces are same, false otherwise
      */
@@ -79,7 +142,8 @@ public abstract class Piece {
             return false;
         }
         Piece otherPiece = (Piece)other;
-        return piecePosition == otherPiece.getPiecePosition() && pieceType == otherPiece.pieceType && pieceAlliance == otherPiece.pieceAlliance;
+        return piecePosition == otherPiece.getPiecePosition() && pieceType == otherPiece.pieceType && pieceAlliance == otherPiece.pieceAlliance
+                && getDirection() == otherPiece.getDirection();
     }
 
     @Override
@@ -87,6 +151,7 @@ public abstract class Piece {
         int result = pieceType.hashCode();
         result = 31 * result + pieceAlliance.hashCode();
         result = 31 * result + piecePosition;
+        result = 31 * result + getDirection();
 
         return result;
     }
@@ -105,6 +170,60 @@ public abstract class Piece {
      */
     public abstract Collection<Move> calculateLegalMoves(final Board board);
 
+    /**
+     * This class holds the shared pieces, it is initialized on first use, after the piece classes
+     */
+    private static final class Interned {
+
+        // shared pieces indexed by their index, pieces that can not turn around are there for both directions
+        private static final Piece[] PIECES = createPieces();
+
+        /**
+         * This method creates every possible piece
+         * @return pieces indexed by their index
+         */
+        private static Piece[] createPieces(){
+            final Piece[] pieces = new Piece[NUM_PIECES];
+            for(final PieceType pieceType : PieceType.values()){
+                for(final Alliance alliance : Alliance.values()){
+                    for(int position = 0; position < BoardUtils.NUM_TILES; position++){
+                        final Piece piece = createPiece(pieceType, alliance, position, 1);
+                        pieces[index(pieceType, alliance, position, 1)] = piece;
+                        // only advancers and tridents turn around, any other piece is the same piece in both slots
+                        pieces[index(pieceType, alliance, position, -1)] = pieceType == PieceType.ADVANCER || pieceType == PieceType.TRIDENT
+                                ? createPiece(pieceType, alliance, position, -1) : piece;
+                    }
+                }
+            }
+            return pieces;
+        }
+
+        /**
+         * This method creates one piece
+         * @param pieceType type of the piece
+         * @param alliance color of the piece
+         * @param position position of the piece
+         * @param direction direction of the piece, used only by advancers and tridents
+         * @return created piece
+         */
+        private static Piece createPiece(final PieceType pieceType, final Alliance alliance, final int position, final int direction){
+            switch(pieceType){
+                case ADVANCER:
+                    return new Advancer(position, alliance, direction);
+                case CHIEF:
+                    return new Chief(position, alliance);
+                case EXCEL:
+                    return new Excel(position, alliance);
+                case TERCEL:
+                    return new Tercel(position, alliance);
+                case TRIDENT:
+                    return new Trident(position, alliance, direction);
+                default:
+                    throw new RuntimeException("Should not reach here!");
+            }
+        }
+    }
+
     /**
      * This enum represent piece types
      * Each piece will have name and value
@@ -143,10 +262,10 @@ public abstract class Piece {
         };
 
         // name of the piece
-        private String pieceName;
+        private final String pieceName;
 
         //value of the piece
-        private int pieceValue;
+        private final int pieceValue;
 
         /**
          * Constructor for piece type
@@ -2,9 +2,8 @@ package com.perilandachess.pieces;
 
 import com.perilandachess.Alliance;
 import com.perilandachess.board.Board;
-import com.perilandachess.board.BoardUtils;
 import com.perilandachess.board.Move;
-import com.perilandachess.board.Tile;
+import com.perilandachess.board.MoveTables;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -15,13 +14,7 @@ import java.util.List;
  * This class represents Tercel on the board
  * The Tercel can move any number of steps up and down, or left and right.
  */
-public class Tercel extends Piece {
-
-    // -7 represents north direction
-    // -1 west
-    // 1 east
-    // 7 south
-    private final static int[] CANDIDATE_MOVE_VECTOR_COORDINATES = {-7, -1, 1, 7};
+public final class Tercel extends Piece {
 
     /**
      * Constructor for the tercel
@@ -29,99 +22,58 @@ public class Tercel extends Piece {
      * @param pieceAlliance color of the tercel
      */
     public Tercel(int piecePosition, Alliance pieceAlliance) {
-        super(piecePosition, pieceAlliance, PieceType.EXCEL);
+        super(piecePosition, pieceAlliance, PieceType.TERCEL);
     }
 
     /**
-     * This method will move the piece, it creates a new tercel on destination position of move
+     * This method will move the piece, it returns the shared tercel on destination position of move
      * @param move Move that piece does
      * @return new piece placed on new position
      */
     @Override
     public Tercel movePiece(Move move) {
-        return new Tercel(move.getDestinationCoordinate(), move.getMovedPiece().getPieceAlliance());
+        return (Tercel)valueOf(PieceType.TERCEL, this.pieceAlliance, move.getDestinationCoordinate(), 1);
 
     }
 
     /**
      * This method will calculate all possible legal moves for this piece
+     * Each ray is taken from the precomputed tables and followed until the first occupied tile
      * @param board current state on the board
      * @return collection of all possible moves
      */
     @Override
     public Collection<Move> calculateLegalMoves(Board board) {
-        // list of legal mvoes
+        // list of legal moves
         final List<Move> legalMoves = new ArrayList<>();
 
-        //for each of possible destination offsets
-        for(int candidateCoordinateOffset : CANDIDATE_MOVE_VECTOR_COORDINATES){
-            int candidateDestinationCoordinate = this.piecePosition;
-            //while we can go in that direction
-            while(BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)){
-                // check for exclusion
-                if(isFirstColumnExclusion(candidateDestinationCoordinate, candidateCoordinateOffset) || isSeventhColumnExclusion(candidateDestinationCoordinate, candidateCoordinateOffset)){
-                    break;
-                }
-
-                // calculate next destination coordinate
-                candidateDestinationCoordinate += candidateCoordinateOffset;
-
-                //check if it is valid
-                if(BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)){
-
-                    //take the destination tile
-                    final Tile candidateDestinationTile = board.getTile(candidateDestinationCoordinate);
-
-                    //if it is not occupied add a major move and proceed
-                    if(!(candidateDestinationTile.isTileOccupied())){
-                        legalMoves.add(new Move.MajorMove(board, this, candidateDestinationCoordinate));
-                    }
-                    // tile is occupied
-                    else {
-                        // take the piece from destination coordinate
-                        final Piece pieceAtDestination = candidateDestinationTile.getPiece();
-
-                        //take the color of the piece
-                        final Alliance pieceAlliance = pieceAtDestination.getPieceAlliance();
-
-                        // check if destination piece and this piece have different colors
-                        if (this.pieceAlliance != pieceAlliance) {
-                            legalMoves.add(new Move.AttackMove(board, this, candidateDestinationCoordinate, pieceAtDestination));
-                        }
+        // for each of possible directions
+        for(final int direction : MoveTables.TERCEL_DIRECTIONS){
+            // go as far as possible in that direction
+            for(final int candidateDestinationCoordinate : MoveTables.RAYS[direction][this.piecePosition]){
+                // take the piece from destination tile
+                final Piece pieceAtDestination = board.getPiece(candidateDestinationCoordinate);
 
-                        // break since tercel can't go over pieces
-                        break;
+                // if it is not occupied add the major move to the list of legal moves
+                if(pieceAtDestination == null){
+                    legalMoves.add(new Move.MajorMove(board, this, candidateDestinationCoordinate));
+                }
+                // tile is occupied
+                else {
+                    // if destination piece color is different then this piece color add attack move
+                    if(this.pieceAlliance != pieceAtDestination.getPieceAlliance()){
+                        legalMoves.add(new Move.AttackMove(board, this, candidateDestinationCoordinate, pieceAtDestination));
                     }
+                    // break to not go further, because tercel can not skip over pieces
+                    break;
                 }
             }
         }
 
-        // return the list of legal moves
+        // return the list of the legal moves
         return Collections.unmodifiableList(legalMoves);
     }
 
-    /**
-     * This method checks if tercel is on the first column and possible offsets is -1
-     * Piece can't go west from first row
-     * @param currentPosition current piece position
-     * @param candidateOffset possible offset
-     * @return true if excel is on the first column and possible offsets is -1
-     */
-    private static boolean isFirstColumnExclusion(int currentPosition, int candidateOffset){
-        return BoardUtils.FIRST_COLUMN[currentPosition] && candidateOffset == -1;
-    }
-
-    /**
-     * This method checks if tercel is on the first column and possible offsets is 1
-     * Piece can't go east from seventh row
-     * @param currentPosition current piece position
-     * @param candidateOffset possible offset
-     * @return true if excel is on the first column and possible offsets is 1
-     */
-    private static boolean isSeventhColumnExclusion(int currentPosition, int candidateOffset){
-        return BoardUtils.SEVENTH_COLUMN[currentPosition] && candidateOffset == 1;
-    }
-
     /**
      * String representation of the tercel
      * This method calls PieceType.Tercel toString method
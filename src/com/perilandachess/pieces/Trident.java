@@ -2,9 +2,8 @@ package com.perilandachess.pieces;
 
 import com.perilandachess.Alliance;
 import com.perilandachess.board.Board;
-import com.perilandachess.board.BoardUtils;
 import com.perilandachess.board.Move;
-import com.perilandachess.board.Tile;
+import com.perilandachess.board.MoveTables;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -15,55 +14,55 @@ import java.util.List;
  * This class represents Trident on the board
  * The Trident can move any number of steps to the left or right, but only 1 step forward. When it reaches the opposing side of the board, it will turn around.
  */
-public class Trident extends Piece {
-    // -1 represents west direction
-    // 1 east
-    private final static int[] CANDIDATE_MOVE_VECTOR_COORDINATES = {-1, 1};
-    // 7 represents south (or north based on direction and alliance)
-    private final static int CANDIDATE_MOVE_COORDINATE = 7;
-
+public final class Trident extends Piece {
     // direction of the trident, 1 for normal direction -1 for the opposite direction
-    private int direction;
+    private final int direction;
 
     /**
-     * Constructor for the trident
+     * Constructor for the trident in normal direction
      * @param piecePosition position of the trident
      * @param pieceAlliance color of the trident
      */
     public Trident(int piecePosition, Alliance pieceAlliance) {
+        this(piecePosition, pieceAlliance, 1);
+    }
+
+    /**
+     * Constructor for the trident
+     * @param piecePosition position of the trident
+     * @param pieceAlliance color of the trident
+     * @param direction 1 for normal direction, -1 for opposite direction
+     */
+    public Trident(int piecePosition, Alliance pieceAlliance, int direction) {
         super(piecePosition, pieceAlliance, PieceType.TRIDENT);
-        this.direction = 1;
+        this.direction = checkDirection(direction);
     }
 
     /**
      * This method gets direction of the trident
      * @return direction of the trident, 1 for normal direction, -1 for opposite
      */
+    @Override
     public int getDirection(){
         return direction;
     }
 
     /**
-     * This method will move the piece, it creates a new trident on destination position of move
+     * This method will move the piece, it returns the shared trident on destination position of move
+     * The new trident turns around if the destination is on the last row in its direction
      * @param move Move that piece does
      * @return new piece placed on new position
      */
     @Override
     public Trident movePiece(Move move) {
-        Trident newTrident = new Trident(move.getDestinationCoordinate(), move.getMovedPiece().getPieceAlliance());
-        newTrident.direction = this.direction;
-        return newTrident;
-    }
-
-    /**
-     * This method change direction of the trident movement
-     */
-    public void changeDirection(){
-        direction *= -1;
+        final int destination = move.getDestinationCoordinate();
+        final boolean turns = MoveTables.isTurningTile(this.pieceAlliance, this.direction, destination);
+        return (Trident)valueOf(PieceType.TRIDENT, this.pieceAlliance, destination, turns ? -this.direction : this.direction);
     }
 
     /**
      * This method will calculate all possible legal moves for this piece
+     * Sideways rays and the forward step are taken from the precomputed tables
      * @param board current state on the board
      * @return collection of all possible moves
      */
@@ -71,98 +70,48 @@ public class Trident extends Piece {
     public Collection<Move> calculateLegalMoves(Board board) {
         final List<Move> legalMoves = new ArrayList<>();
         // check for east and west direction
-        for(int candidateCoordinateOffset : CANDIDATE_MOVE_VECTOR_COORDINATES){
-            int candidateDestinationCoordinate = this.piecePosition;
-            // while destination coordinate is valid coordinate
-            while(BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)){
-                // check for exclusion
-                if(isFirstColumnExclusion(candidateDestinationCoordinate, candidateCoordinateOffset) || isSeventhColumnExclusion(candidateDestinationCoordinate, candidateCoordinateOffset)){
-                    break;
-                }
-
-                // calculate destination coordinate
-                candidateDestinationCoordinate += candidateCoordinateOffset;
-
-                // check if it is valid coordinate
-                if(BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)){
-                    final Tile candidateDestinationTile = board.getTile(candidateDestinationCoordinate);
-
-                    //check if destination tile is not occupied and add a major move
-                    if(!(candidateDestinationTile.isTileOccupied())){
-                        legalMoves.add(new Move.MajorMove(board, this, candidateDestinationCoordinate));
-                    }
-                    // destination tile is occupied
-                    else {
-                        // take the piece from the destination tile
-                        final Piece pieceAtDestination = candidateDestinationTile.getPiece();
-
-                        // take the color of the piece
-                        final Alliance pieceAlliance = pieceAtDestination.getPieceAlliance();
+        for(final int rayDirection : MoveTables.TRIDENT_DIRECTIONS){
+            // go as far as possible in that direction
+            for(final int candidateDestinationCoordinate : MoveTables.RAYS[rayDirection][this.piecePosition]){
+                // take the piece from the destination tile
+                final Piece pieceAtDestination = board.getPiece(candidateDestinationCoordinate);
 
-                        // if they have different colors add attack move
-                        if (this.pieceAlliance != pieceAlliance) {
-                            legalMoves.add(new Move.AttackMove(board, this, candidateDestinationCoordinate, pieceAtDestination));
-                        }
-                        // break since trident can't go over other pieces
-                        break;
+                //check if destination tile is not occupied and add a major move
+                if(pieceAtDestination == null){
+                    legalMoves.add(new Move.MajorMove(board, this, candidateDestinationCoordinate));
+                }
+                // destination tile is occupied
+                else {
+                    // if they have different colors add attack move
+                    if(this.pieceAlliance != pieceAtDestination.getPieceAlliance()){
+                        legalMoves.add(new Move.AttackMove(board, this, candidateDestinationCoordinate, pieceAtDestination));
                     }
+                    // break since trident can't go over other pieces
+                    break;
                 }
             }
         }
 
-        // check for one step move
-        int candidateDestinationCoordinate = this.piecePosition + (CANDIDATE_MOVE_COORDINATE * this.getPieceAlliance().getDirection() * direction);
+        // check for one step move, -1 if it would leave the board
+        final int candidateDestinationCoordinate = MoveTables.FORWARD_STEPS[this.pieceAlliance.ordinal()][MoveTables.directionIndex(direction)][this.piecePosition];
 
-        //check if it is valid coordinate
-        if(BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)){
-            final Tile candidateDestinationTile = board.getTile(candidateDestinationCoordinate);
-            // check if destination tile is occupied,
-            if (!(candidateDestinationTile.isTileOccupied())) {
-                // destination tile is not occupied add a major move
+        if(candidateDestinationCoordinate != -1){
+            // take the piece from the destination tile
+            final Piece pieceAtDestination = board.getPiece(candidateDestinationCoordinate);
+            // destination tile is not occupied add a major move
+            if(pieceAtDestination == null){
                 legalMoves.add(new Move.MajorMove(board, this, candidateDestinationCoordinate));
             }
-            // destination tile is occupied
-            else {
-                // take the piece from the destination tile
-                final Piece pieceAtDestination = candidateDestinationTile.getPiece();
-
-                //take the color of the destination piece
-                final Alliance pieceAlliance = pieceAtDestination.getPieceAlliance();
-
-                // check if colors of the destination piece and this piece are different and add a atack move
-                if (this.pieceAlliance != pieceAlliance) {
-                    legalMoves.add(new Move.AttackMove(board, this, candidateDestinationCoordinate, pieceAtDestination));
-                }
+            // check if colors of the destination piece and this piece are different and add a atack move
+            else if(this.pieceAlliance != pieceAtDestination.getPieceAlliance()){
+                legalMoves.add(new Move.AttackMove(board, this, candidateDestinationCoordinate, pieceAtDestination));
             }
-
         }
 
         // return the list of legal moves
         return Collections.unmodifiableList(legalMoves);
     }
 
-    /**
-     * This method checks if trident is on the first column and possible offsets is -1
-     * Piece can't go west from first row
-     * @param currentPosition current piece position
-     * @param candidateOffset possible offset
-     * @return true if excel is on the first column and possible offsets is -1
-     */
-    private static boolean isFirstColumnExclusion(int currentPosition, int candidateOffset){
-        return BoardUtils.FIRST_COLUMN[currentPosition] && candidateOffset == -1;
-    }
-
-    /**
-     * This method checks if trident is on the first column and possible offsets is 1
-     * Piece can't go east from seventh row
-     * @param currentPosition current piece position
-     * @param candidateOffset possible offset
-     * @return true if excel is on the first column and possible offsets is 1
-     */
-    private static boolean isSeventhColumnExclusion(int currentPosition, int candidateOffset){
-        return BoardUtils.SEVENTH_COLUMN[currentPosition] && candidateOffset == 1;
-    }
-
     /**
      * This method returns string representation of the trident
      * @return String representation of the trident
@@ -11,17 +11,12 @@ import java.util.Collection;
  * This class represents Green Player
  */
 public class GreenPlayer extends Player{
-    private static int moveNum = 0;
-
     /**
      * Constructor for the green player
      * @param board chess board
-     * @param orangeStandardLegalMoves legal moves for orange player
-     * @param greenStandardLegalMoves legal moves for green player
      */
-    public GreenPlayer(Board board, Collection<Move> orangeStandardLegalMoves, Collection<Move> greenStandardLegalMoves) {
-        // note that we first send greenStandardLegalMoves and then orangeStandardLegalMoves
-        super(board, greenStandardLegalMoves, orangeStandardLegalMoves);
+    public GreenPlayer(Board board) {
+        super(board);
     }
 
     /**
@@ -63,9 +58,8 @@ public class GreenPlayer extends Player{
             // return move transition with same board and status illegal
             return new MoveTransition(board, move, MoveStatus.ILLEGAL_MOVE);
         }
-        moveNum++;
-        // make the move and get transition board
-        final Board transitionBoard = move.execute(moveNum);
+        // make the move and get transition board, the board counts the moves of both players
+        final Board transitionBoard = move.execute();
         return new MoveTransition(transitionBoard, move, MoveStatus.DONE);
     }
 }
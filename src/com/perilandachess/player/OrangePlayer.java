@@ -11,17 +11,12 @@ import java.util.Collection;
  * This class represents Orange Player
  */
 public class OrangePlayer extends Player {
-    // move counter, used to change Excel to Tercel and Tercel to Excel
-    private static int moveNum = 0;
-
     /**
      * Constructor for the orange player
      * @param board chess board
-     * @param orangeStandardLegalMoves legal moves for orange player
-     * @param greenStandardLegalMoves legal moves for green player
      */
-    public OrangePlayer(Board board, Collection<Move> orangeStandardLegalMoves, Collection<Move> greenStandardLegalMoves) {
-        super(board, orangeStandardLegalMoves, greenStandardLegalMoves);
+    public OrangePlayer(Board board) {
+        super(board);
     }
 
     /**
@@ -62,9 +57,8 @@ public class OrangePlayer extends Player {
         if(!isMoveLegal(move)){
             return new MoveTransition(board, move, MoveStatus.ILLEGAL_MOVE);
         }
-        moveNum++;
-        //make the move and get transition board
-        final Board transitionBoard = move.execute(moveNum);
+        //make the move and get transition board, the board counts the moves of both players
+        final Board transitionBoard = move.execute();
         return new MoveTransition(transitionBoard, move, MoveStatus.DONE);
     }
 }
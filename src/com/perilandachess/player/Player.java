@@ -14,18 +14,15 @@ import java.util.Collection;
 public abstract class Player {
     protected final Board board;
     protected final Chief playerChief;
-    protected final Collection<Move> legalMoves;
 
     /**
      * Constructor for the player
+     * Legal moves are not calculated here, board calculates them when they are first requested
      * @param board chess board
-     * @param legalMoves list of legal moves for the player
-     * @param opponentMoves list of opponents legal moves
      */
-    Player(Board board, Collection<Move> legalMoves, Collection<Move> opponentMoves){
+    Player(Board board){
         this.board = board;
         this.playerChief = establishChief();
-        this.legalMoves = legalMoves;
     }
 
     /**
@@ -33,7 +30,7 @@ public abstract class Player {
      * @return List of legal moves
      */
     public Collection<Move> getLegalMoves(){
-        return legalMoves;
+        return board.getLegalMoves(getAlliance());
     }
 
     /**
@@ -41,12 +38,11 @@ public abstract class Player {
      * @return chief or null if there is no one
      */
     private Chief establishChief() {
-        for(Piece piece : getActivePieces()){
-            if(piece.getPieceType().isChief()){
-                return (Chief)piece;
-            }
+        final long chiefBitboard = board.getPieceBitboard(getAlliance(), Piece.PieceType.CHIEF);
+        if(chiefBitboard == 0){
+            return null;
         }
-        return null;
+        return (Chief)board.getPiece(Long.numberOfTrailingZeros(chiefBitboard));
     }
 
     /**
@@ -69,11 +65,13 @@ public abstract class Player {
 
     /**
      * This method check if given move is legal
+     * Legal move with the same source and destination is looked up directly and compared to the move
      * @param move move to be check can this player play
      * @return true if move is legal, false otherwise
      */
     public boolean isMoveLegal(Move move){
-        return legalMoves.contains(move);
+        final Move legalMove = board.getLegalMove(getAlliance(), move.getCurrentCoordinate(), move.getDestinationCoordinate());
+        return legalMove != Move.NULL_MOVE && legalMove.equals(move);
     }
 
     /**
@@ -81,8 +79,7 @@ public abstract class Player {
      * @return Chief or null if it is captured
      */
     public boolean isChiefCaptured(){
-        Chief chief = establishChief();
-        return chief == null;
+        return board.getPieceBitboard(getAlliance(), Piece.PieceType.CHIEF) == 0;
     }
 
     /**
@@ -0,0 +1,530 @@
+package com.perilandachess.tools;
+
+import com.perilandachess.Alliance;
+import com.perilandachess.ai.AlphaBeta;
+import com.perilandachess.ai.OpeningBook;
+import com.perilandachess.ai.SearchLimits;
+import com.perilandachess.ai.SearchResult;
+import com.perilandachess.board.Board;
+import com.perilandachess.board.BoardUtils;
+import com.perilandachess.board.IntMoveList;
+import com.perilandachess.board.MutableBoard;
+import com.perilandachess.board.PackedMove;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class builds an opening book from games, the games are streamed and never held in memory
+ * Each move of the first plies of a game is one entry (position key, move, result for the player who made it)
+ * Entries are collected in a buffer, which is sorted, merged and written to a temporary run file when it is full
+ * At the end the runs are merged into the book, so the book can be much larger than the memory
+ *
+ * Games are either self-play games from the standard position, or recorded games from a text file,
+ * one game per line: moves as "Ag2-g4" or "Ab6xb4" separated by spaces, and the result O (orange won),
+ * G (green won) or D (draw) as the last token
+ *
+ * Usage:
+ * BookBuilder selfplay -games n -out file [-nodes n] [-threads n] [-seed n] [-plies n] [-min n]
+ * BookBuilder games -in file -out file [-plies n] [-min n]
+ */
+public final class BookBuilder {
+
+    // number of random moves at the start of each self-play game, so that the games differ
+    private static final int RANDOM_PLIES = 2;
+
+    // self-play game without chief capture after this many moves is a draw
+    private static final int MAX_PLIES = 300;
+
+    // entries collected before they are written to a run
+    private static final int BUFFER_ENTRIES = 1 << 20;
+
+    // number of first moves of each game that go to the book
+    private final int plies;
+
+    // collected entries, sorted by key and then by move and result
+    private final long[] keys = new long[BUFFER_ENTRIES];
+    private final long[] values = new long[BUFFER_ENTRIES];
+    private int entries;
+
+    // sorted runs written so far
+    private final List<File> runs = new ArrayList<>();
+
+    /**
+     * Constructor for the book builder
+     * @param plies number of first moves of each game that go to the book
+     */
+    public BookBuilder(final int plies){
+        if(plies < 1){
+            throw new IllegalArgumentException("Number of plies must be positive!");
+        }
+        this.plies = plies;
+    }
+
+    /**
+     * Main method of the book builder
+     * @param args arguments of the book builder, see the class description
+     * @throws Exception if the book can not be built
+     */
+    public static void main(String[] args) throws Exception {
+        if(args.length == 0 || !(args[0].equals("selfplay") || args[0].equals("games"))){
+            usage();
+        }
+        int games = 1000;
+        long nodes = 20000;
+        int threadCount = Runtime.getRuntime().availableProcessors();
+        long seed = System.nanoTime();
+        int plies = 16;
+        int minGames = 1;
+        File input = null;
+        File output = null;
+        try{
+            for(int i = 1; i < args.length; i++){
+                switch(args[i]){
+                    case "-games":
+                        games = Integer.parseInt(args[++i]);
+                        break;
+                    case "-nodes":
+                        nodes = Long.parseLong(args[++i]);
+                        break;
+                    case "-threads":
+                        threadCount = Integer.parseInt(args[++i]);
+                        break;
+                    case "-seed":
+                        seed = Long.parseLong(args[++i]);
+                        break;
+                    case "-plies":
+                        plies = Integer.parseInt(args[++i]);
+                        break;
+                    case "-min":
+                        minGames = Integer.parseInt(args[++i]);
+                        break;
+                    case "-in":
+                        input = new File(args[++i]);
+                        break;
+                    case "-out":
+                        output = new File(args[++i]);
+                        break;
+                    default:
+                        usage();
+                }
+            }
+        }catch(final NumberFormatException | ArrayIndexOutOfBoundsException e){
+            usage();
+        }
+        if(output == null || (args[0].equals("games") && input == null)){
+            usage();
+        }
+
+        final BookBuilder builder = new BookBuilder(plies);
+        if(args[0].equals("selfplay")){
+            builder.addSelfPlayGames(games, nodes, threadCount, seed);
+        }else{
+            builder.addRecordedGames(input);
+        }
+        final long records = builder.write(output, minGames);
+        System.out.println(records + " records written to " + output);
+    }
+
+    /**
+     * This method prints usage of the book builder and exits
+     */
+    private static void usage(){
+        System.err.println("Usage: BookBuilder selfplay -games n -out file [-nodes n] [-threads n] [-seed n] [-plies n] [-min n]");
+        System.err.println("       BookBuilder games -in file -out file [-plies n] [-min n]");
+        System.exit(2);
+    }
+
+    /**
+     * This method plays self-play games from the standard position and adds them to the book
+     * @param games number of games
+     * @param nodes node limit of each move
+     * @param threadCount number of games played at the same time
+     * @param seed seed of the random opening moves
+     * @throws IOException if a run can not be written
+     * @throws InterruptedException if the thread is interrupted while waiting for the games
+     */
+    public void addSelfPlayGames(final int games, final long nodes, final int threadCount, final long seed) throws IOException, InterruptedException {
+        final ExecutorService players = Executors.newFixedThreadPool(threadCount);
+        try{
+            final List<Future<?>> results = new ArrayList<>();
+            for(int game = 0; game < games; game++){
+                final long gameSeed = seed + game;
+                results.add(players.submit(() -> {
+                    final IntMoveList moves = new IntMoveList();
+                    final int result;
+                    try(final AlphaBeta player = new AlphaBeta(8)){
+                        result = playGame(player, nodes, new Random(gameSeed), moves);
+                    }
+                    addGame(new MutableBoard(Board.createStandardBoard()), moves, result);
+                    return null;
+                }));
+            }
+            for(final Future<?> result : results){
+                result.get();
+            }
+        }catch(final ExecutionException e){
+            throw new IOException("Self-play game failed!", e.getCause());
+        }finally{
+            players.shutdown();
+        }
+    }
+
+    /**
+     * This method plays one self-play game from the standard position
+     * @param player engine for both players
+     * @param nodes node limit of each move
+     * @param random source of the random opening moves
+     * @param moves list the moves of the game are added to
+     * @return result of the game, TrainingData.GREEN_WIN, TrainingData.DRAW or TrainingData.ORANGE_WIN
+     */
+    private static int playGame(final AlphaBeta player, final long nodes, final Random random, final IntMoveList moves){
+        final MutableBoard board = new MutableBoard(Board.createStandardBoard());
+        final SearchLimits limits = new SearchLimits.Builder().setNodes(nodes).build();
+        final IntMoveList legalMoves = new IntMoveList();
+        for(int ply = 0; ply < MAX_PLIES; ply++){
+            if(!board.hasChief(board.getSideToMove())){
+                return board.getSideToMove().isOrange() ? TrainingData.GREEN_WIN : TrainingData.ORANGE_WIN;
+            }
+            legalMoves.clear();
+            board.generateMoves(legalMoves);
+            if(legalMoves.isEmpty()){
+                break;
+            }
+            final int move;
+            if(ply < RANDOM_PLIES){
+                move = legalMoves.get(random.nextInt(legalMoves.size()));
+            }else{
+                final SearchResult search = player.search(board, limits);
+                move = search.getBestMove();
+            }
+            board.makeMove(move);
+            moves.add(move);
+        }
+        return TrainingData.DRAW;
+    }
+
+    /**
+     * This method reads recorded games and adds them to the book
+     * @param file text file with one game per line
+     * @throws IOException if the file can not be read, a move is not legal or a run can not be written
+     */
+    public void addRecordedGames(final File file) throws IOException {
+        try(BufferedReader reader = new BufferedReader(new FileReader(file))){
+            final IntMoveList moves = new IntMoveList();
+            final IntMoveList legalMoves = new IntMoveList();
+            String line;
+            int lineNumber = 0;
+            while((line = reader.readLine()) != null){
+                lineNumber++;
+                final String[] tokens = line.trim().split("\\s+");
+                if(tokens.length == 0 || tokens[0].isEmpty()){
+                    continue;
+                }
+                final int result;
+                switch(tokens[tokens.length - 1]){
+                    case "O":
+                        result = TrainingData.ORANGE_WIN;
+                        break;
+                    case "G":
+                        result = TrainingData.GREEN_WIN;
+                        break;
+                    case "D":
+                        result = TrainingData.DRAW;
+                        break;
+                    default:
+                        throw new IOException(file + ":" + lineNumber + ": game has no result!");
+                }
+                final MutableBoard board = new MutableBoard(Board.createStandardBoard());
+                moves.clear();
+                for(int i = 0; i < tokens.length - 1; i++){
+                    legalMoves.clear();
+                    board.generateMoves(legalMoves);
+                    final int move = parseMove(tokens[i], legalMoves);
+                    if(move == PackedMove.NULL_MOVE){
+                        throw new IOException(file + ":" + lineNumber + ": " + tokens[i] + " is not a legal move!");
+                    }
+                    board.makeMove(move);
+                    moves.add(move);
+                }
+                addGame(new MutableBoard(Board.createStandardBoard()), moves, result);
+            }
+        }
+    }
+
+    /**
+     * This method finds a move written as piece, source, "-" or "x", and destination, for example "Ab6xb4"
+     * @param token written move
+     * @param legalMoves legal moves of the position
+     * @return packed move, or PackedMove.NULL_MOVE if the move is not legal or can not be read
+     */
+    private static int parseMove(final String token, final IntMoveList legalMoves){
+        final int separator = Math.max(token.indexOf('-'), token.indexOf('x'));
+        if(separator < 2){
+            return PackedMove.NULL_MOVE;
+        }
+        final Integer from = BoardUtils.POSITION_TO_COORDINATE.get(token.substring(separator - 2, separator));
+        final Integer to = BoardUtils.POSITION_TO_COORDINATE.get(token.substring(separator + 1));
+        if(from == null || to == null){
+            return PackedMove.NULL_MOVE;
+        }
+        return legalMoves.find(from, to);
+    }
+
+    /**
+     * This method adds the first moves of a game to the book
+     * @param start starting position of the game, it is changed
+     * @param moves moves of the game
+     * @param result result of the game, TrainingData.GREEN_WIN, TrainingData.DRAW or TrainingData.ORANGE_WIN
+     * @throws IOException if a run can not be written
+     */
+    public synchronized void addGame(final MutableBoard start, final IntMoveList moves, final int result) throws IOException {
+        for(int ply = 0; ply < plies && ply < moves.size(); ply++){
+            // result in half points for the player who makes the move
+            final int points = start.getSideToMove() == Alliance.ORANGE ? result : TrainingData.ORANGE_WIN - result;
+            if(entries == BUFFER_ENTRIES){
+                writeRun();
+            }
+            keys[entries] = start.getZobristKey();
+            values[entries] = (long)moves.get(ply) << 2 | points;
+            entries++;
+            start.makeMove(moves.get(ply));
+        }
+    }
+
+    /**
+     * This method merges all entries and writes the book
+     * @param output book file
+     * @param minGames moves played in fewer games are left out
+     * @return number of records in the book
+     * @throws IOException if the book can not be written
+     */
+    public synchronized long write(final File output, final int minGames) throws IOException {
+        writeRun();
+        final PriorityQueue<RunReader> readers = new PriorityQueue<>();
+        long records = 0;
+        try{
+            for(final File run : runs){
+                final RunReader reader = new RunReader(run);
+                if(reader.next()){
+                    readers.add(reader);
+                }else{
+                    reader.close();
+                }
+            }
+            try(DataOutputStream book = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(output)))){
+                book.writeInt(OpeningBook.MAGIC);
+                book.writeInt(OpeningBook.VERSION);
+                book.writeLong(0);
+                while(!readers.isEmpty()){
+                    RunReader reader = readers.poll();
+                    final long key = reader.key;
+                    final int move = reader.move;
+                    long weight = 0;
+                    long games = 0;
+                    // runs are merged in order, so all records of the same key and move come one after another
+                    while(true){
+                        weight += reader.weight;
+                        games += reader.games;
+                        if(reader.next()){
+                            readers.add(reader);
+                        }else{
+                            reader.close();
+                        }
+                        final RunReader nextReader = readers.peek();
+                        if(nextReader == null || nextReader.key != key || nextReader.move != move){
+                            break;
+                        }
+                        reader = readers.poll();
+                    }
+                    if(games >= minGames){
+                        writeRecord(book, key, move, weight, games);
+                        records++;
+                    }
+                }
+            }
+        }finally{
+            for(final RunReader reader : readers){
+                reader.close();
+            }
+            for(final File run : runs){
+                run.delete();
+            }
+            runs.clear();
+        }
+        try(RandomAccessFile book = new RandomAccessFile(output, "rw")){
+            book.seek(8);
+            book.writeLong(records);
+        }
+        return records;
+    }
+
+    /**
+     * This method sorts the collected entries, merges entries of the same key and move, and writes them to a run
+     * @throws IOException if the run can not be written
+     */
+    private void writeRun() throws IOException {
+        if(entries == 0){
+            return;
+        }
+        sort(0, entries - 1);
+        final File run = File.createTempFile("book", ".run");
+        run.deleteOnExit();
+        runs.add(run);
+        try(DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run)))){
+            int i = 0;
+            while(i < entries){
+                final long key = keys[i];
+                final int move = (int)(values[i] >>> 2);
+                long weight = 0;
+                long games = 0;
+                for(; i < entries && keys[i] == key && (int)(values[i] >>> 2) == move; i++){
+                    weight += values[i] & 3;
+                    games++;
+                }
+                writeRecord(output, key, move, weight, games);
+            }
+        }
+        entries = 0;
+    }
+
+    /**
+     * This method writes one record, weight and games are capped so that they fit in the record
+     * @param output stream to write to
+     * @param key Zobrist key of the position
+     * @param move packed move
+     * @param weight sum of the results in half points
+     * @param games number of games
+     * @throws IOException if the record can not be written
+     */
+    private static void writeRecord(final DataOutputStream output, final long key, final int move, final long weight, final long games) throws IOException {
+        output.writeLong(key);
+        output.writeInt(move);
+        output.writeInt((int)Math.min(Integer.MAX_VALUE, weight));
+        output.writeInt((int)Math.min(Integer.MAX_VALUE, games));
+    }
+
+    /**
+     * This method sorts the collected entries by key and value with quicksort
+     * @param low first index
+     * @param high last index
+     */
+    private void sort(int low, int high){
+        while(low < high){
+            final int middle = (low + high) >>> 1;
+            final long pivotKey = keys[middle];
+            final long pivotValue = values[middle];
+            int i = low;
+            int j = high;
+            while(i <= j){
+                while(compare(keys[i], values[i], pivotKey, pivotValue) < 0){
+                    i++;
+                }
+                while(compare(keys[j], values[j], pivotKey, pivotValue) > 0){
+                    j--;
+                }
+                if(i <= j){
+                    swap(i++, j--);
+                }
+            }
+            // smaller part is sorted recursively, so the recursion depth stays logarithmic
+            if(j - low < high - i){
+                sort(low, j);
+                low = i;
+            }else{
+                sort(i, high);
+                high = j;
+            }
+        }
+    }
+
+    /**
+     * This method compares two entries
+     * @param key1 key of the first entry
+     * @param value1 value of the first entry
+     * @param key2 key of the second entry
+     * @param value2 value of the second entry
+     * @return negative, zero or positive number if the first entry is smaller, equal or larger
+     */
+    private static int compare(final long key1, final long value1, final long key2, final long value2){
+        final int byKey = Long.compare(key1, key2);
+        return byKey != 0 ? byKey : Long.compare(value1, value2);
+    }
+
+    /**
+     * This method swaps two entries
+     * @param i index of the first entry
+     * @param j index of the second entry
+     */
+    private void swap(final int i, final int j){
+        final long key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        final long value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+
+    /**
+     * This class reads the records of one run in order
+     */
+    private static final class RunReader implements Comparable<RunReader> {
+
+        private final DataInputStream input;
+
+        // current record
+        private long key;
+        private int move;
+        private int weight;
+        private int games;
+
+        RunReader(final File run) throws IOException {
+            this.input = new DataInputStream(new BufferedInputStream(new FileInputStream(run)));
+        }
+
+        /**
+         * This method reads the next record
+         * @return false if there are no more records
+         * @throws IOException if the run can not be read
+         */
+        boolean next() throws IOException {
+            try{
+                key = input.readLong();
+            }catch(final EOFException e){
+                return false;
+            }
+            move = input.readInt();
+            weight = input.readInt();
+            games = input.readInt();
+            return true;
+        }
+
+        void close() throws IOException {
+            input.close();
+        }
+
+        @Override
+        public int compareTo(final RunReader other){
+            final int byKey = Long.compare(key, other.key);
+            return byKey != 0 ? byKey : Integer.compare(move, other.move);
+        }
+    }
+}
@@ -0,0 +1,443 @@
+package com.perilandachess.tools;
+
+import com.perilandachess.board.Board;
+import com.perilandachess.board.IntMoveList;
+import com.perilandachess.board.Move;
+import com.perilandachess.board.MutableBoard;
+import com.perilandachess.board.PackedMove;
+import com.perilandachess.pieces.Piece;
+import com.perilandachess.player.Player;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * This class counts positions reachable in given number of moves (perft), it is used to validate move generators
+ * Position where the player to move has lost the chief is final, no moves are counted from it
+ * Counting can use the object generator (calculateLegalMoves of each piece and Move.execute)
+ * or the packed generator (MoveGenerator on a MutableBoard), and both can be run to compare them
+ *
+ * Usage: Perft [-d depth] [-f file] [-divide] [-t threads] [-hash megabytes] [-g object|packed|both]
+ */
+public final class Perft {
+
+    /**
+     * Move generator used for counting
+     */
+    public enum Generator {
+        OBJECT,
+        PACKED
+    }
+
+    // generator used for counting
+    private final Generator generator;
+
+    // table of counted subtrees, null if hashing is not used
+    private final PerftHash hash;
+
+    // pool that counts root moves in parallel
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor for perft
+     * @param generator move generator used for counting
+     * @param hashMegabytes size of the table of counted subtrees in megabytes, 0 for no table
+     * @param threads number of counting threads
+     */
+    public Perft(final Generator generator, final int hashMegabytes, final int threads){
+        this.generator = generator;
+        this.hash = hashMegabytes > 0 ? new PerftHash(hashMegabytes) : null;
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * Main method of the perft tool
+     * @param args arguments of the tool, see the class description
+     */
+    public static void main(String[] args){
+        int depth = 5;
+        String fileName = null;
+        boolean divide = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int hashMegabytes = 0;
+        String generatorName = "packed";
+        try{
+            for(int i = 0; i < args.length; i++){
+                switch(args[i]){
+                    case "-d":
+                        depth = Integer.parseInt(args[++i]);
+                        break;
+                    case "-f":
+                        fileName = args[++i];
+                        break;
+                    case "-divide":
+                        divide = true;
+                        break;
+                    case "-t":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "-hash":
+                        hashMegabytes = Integer.parseInt(args[++i]);
+                        break;
+                    case "-g":
+                        generatorName = args[++i];
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown argument " + args[i]);
+                }
+            }
+        }catch(final IllegalArgumentException | ArrayIndexOutOfBoundsException e){
+            System.err.println("Usage: Perft [-d depth] [-f file] [-divide] [-t threads] [-hash megabytes] [-g object|packed|both]");
+            System.exit(2);
+            return;
+        }
+
+        final Board board;
+        try{
+            board = fileName == null ? Board.createStandardBoard() : Board.createCustomBoard(new File(fileName));
+        }catch(final IOException | RuntimeException e){
+            System.err.println("Can not read position: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        if(generatorName.equals("both")){
+            final Map<String, Long> objectCounts = run(new Perft(Generator.OBJECT, hashMegabytes, threads), board, depth, divide);
+            final Map<String, Long> packedCounts = run(new Perft(Generator.PACKED, hashMegabytes, threads), board, depth, divide);
+            if(!compare(objectCounts, packedCounts)){
+                System.exit(1);
+            }
+        }else{
+            run(new Perft(Generator.valueOf(generatorName.toUpperCase()), hashMegabytes, threads), board, depth, divide);
+        }
+    }
+
+    /**
+     * This method counts the positions and prints the counts and the speed
+     * @param perft perft to run
+     * @param board starting position
+     * @param depth number of moves
+     * @param divide true if count of each root move is printed
+     * @return count for each root move
+     */
+    private static Map<String, Long> run(final Perft perft, final Board board, final int depth, final boolean divide){
+        final long start = System.nanoTime();
+        final Map<String, Long> counts = perft.divide(board, depth);
+        final long nanos = System.nanoTime() - start;
+        long nodes = 0;
+        for(final Map.Entry<String, Long> count : counts.entrySet()){
+            if(divide){
+                System.out.println(count.getKey() + ": " + count.getValue());
+            }
+            nodes += count.getValue();
+        }
+        System.out.println(perft.generator + " depth " + depth + " moves " + counts.size() + " nodes " + nodes
+                + " time " + nanos / 1_000_000 + " ms nps " + (long)(nodes * 1e9 / Math.max(nanos, 1)));
+        return counts;
+    }
+
+    /**
+     * This method prints root moves whose counts differ
+     * @param objectCounts counts of the object generator
+     * @param packedCounts counts of the packed generator
+     * @return true if all counts are same
+     */
+    private static boolean compare(final Map<String, Long> objectCounts, final Map<String, Long> packedCounts){
+        final Map<String, Long> allMoves = new TreeMap<>(objectCounts);
+        allMoves.putAll(packedCounts);
+        boolean same = true;
+        for(final String move : allMoves.keySet()){
+            final Long objectCount = objectCounts.get(move);
+            final Long packedCount = packedCounts.get(move);
+            if(objectCount == null || !objectCount.equals(packedCount)){
+                System.out.println("Mismatch " + move + ": object " + objectCount + " packed " + packedCount);
+                same = false;
+            }
+        }
+        System.out.println(same ? "Generators agree" : "Generators differ");
+        return same;
+    }
+
+    /**
+     * This method counts positions reachable in given number of moves
+     * @param board starting position
+     * @param depth number of moves
+     * @return number of positions
+     */
+    public long perft(final Board board, final int depth){
+        long nodes = 0;
+        for(final long count : divide(board, depth).values()){
+            nodes += count;
+        }
+        return nodes;
+    }
+
+    /**
+     * This method counts positions reachable after each root move, root moves are counted in parallel
+     * @param board starting position
+     * @param depth number of moves, including the root move
+     * @return count for each root move, keyed by the move in the form "Ea6xc4"
+     */
+    public Map<String, Long> divide(final Board board, final int depth){
+        final Map<String, Long> counts = new TreeMap<>();
+        if(depth < 1){
+            return counts;
+        }
+        final List<RootTask> tasks = new ArrayList<>();
+        if(generator == Generator.PACKED){
+            final MutableBoard mutableBoard = new MutableBoard(board);
+            final IntMoveList moves = new IntMoveList();
+            if(mutableBoard.hasChief(mutableBoard.getSideToMove())){
+                mutableBoard.generateMoves(moves);
+            }
+            for(int i = 0; i < moves.size(); i++){
+                tasks.add(new PackedRootTask(mutableBoard, moves.get(i), depth));
+            }
+        }else{
+            final Player player = board.getCurrentPlayer();
+            if(!player.isChiefCaptured()){
+                for(final Piece piece : player.getActivePieces()){
+                    for(final Move move : piece.calculateLegalMoves(board)){
+                        tasks.add(new ObjectRootTask(move, depth));
+                    }
+                }
+            }
+        }
+        pool.invoke(new RecursiveTask<Void>() {
+            @Override
+            protected Void compute(){
+                invokeAll(tasks);
+                return null;
+            }
+        });
+        for(final RootTask task : tasks){
+            counts.put(task.label, task.join());
+        }
+        return counts;
+    }
+
+    /**
+     * This method counts positions with the packed generator
+     * @param board position, it is restored before the method returns
+     * @param depth remaining number of moves
+     * @param lists move list for each remaining depth
+     * @return number of positions
+     */
+    private long countPacked(final MutableBoard board, final int depth, final IntMoveList[] lists){
+        if(depth == 0){
+            return 1;
+        }
+        if(!board.hasChief(board.getSideToMove())){
+            return 0;
+        }
+        final long key = board.getZobristKey();
+        if(hash != null && depth > 1){
+            final long nodes = hash.probe(key, depth);
+            if(nodes >= 0){
+                return nodes;
+            }
+        }
+        final IntMoveList moves = lists[depth];
+        moves.clear();
+        board.generateMoves(moves);
+        if(depth == 1){
+            return moves.size();
+        }
+        long nodes = 0;
+        for(int i = 0; i < moves.size(); i++){
+            board.makeMove(moves.get(i));
+            nodes += countPacked(board, depth - 1, lists);
+            board.unmakeMove();
+        }
+        if(hash != null){
+            hash.store(key, depth, nodes);
+        }
+        return nodes;
+    }
+
+    /**
+     * This method counts positions with the object generator
+     * @param board position
+     * @param depth remaining number of moves
+     * @return number of positions
+     */
+    private long countObjects(final Board board, final int depth){
+        if(depth == 0){
+            return 1;
+        }
+        final Player player = board.getCurrentPlayer();
+        if(player.isChiefCaptured()){
+            return 0;
+        }
+        final long key = board.getZobristKey();
+        if(hash != null && depth > 1){
+            final long nodes = hash.probe(key, depth);
+            if(nodes >= 0){
+                return nodes;
+            }
+        }
+        long nodes = 0;
+        for(final Piece piece : player.getActivePieces()){
+            for(final Move move : piece.calculateLegalMoves(board)){
+                if(depth == 1){
+                    nodes++;
+                }else{
+                    nodes += countObjects(move.execute(), depth - 1);
+                }
+            }
+        }
+        if(hash != null){
+            hash.store(key, depth, nodes);
+        }
+        return nodes;
+    }
+
+    /**
+     * This method creates label of object move, in the same form as packed moves are printed
+     * @param move move
+     * @return label of the move
+     */
+    private static String label(final Move move){
+        final int capturedType = move.isAttack() ? move.getAttackedPiece().getPieceType().ordinal() : -1;
+        return PackedMove.toString(PackedMove.create(move.getCurrentCoordinate(), move.getDestinationCoordinate(), move.getMovedPiece().getPieceType().ordinal(), capturedType, 0));
+    }
+
+    /**
+     * This class counts positions after one root move
+     */
+    @SuppressWarnings("serial")
+    private abstract static class RootTask extends RecursiveTask<Long> {
+
+        // label of the root move
+        final String label;
+
+        /**
+         * Constructor for root task
+         * @param label label of the root move
+         */
+        RootTask(final String label){
+            this.label = label;
+        }
+    }
+
+    /**
+     * This class counts positions after one root move with the packed generator, on its own copy of the position
+     */
+    @SuppressWarnings("serial")
+    private final class PackedRootTask extends RootTask {
+
+        // position after the root move
+        private final MutableBoard board;
+
+        // remaining number of moves
+        private final int depth;
+
+        /**
+         * Constructor for packed root task
+         * @param root starting position, it is copied
+         * @param move root move
+         * @param depth number of moves, including the root move
+         */
+        PackedRootTask(final MutableBoard root, final int move, final int depth){
+            super(PackedMove.toString(move));
+            this.board = new MutableBoard(root);
+            this.board.makeMove(move);
+            this.depth = depth - 1;
+        }
+
+        @Override
+        protected Long compute(){
+            final IntMoveList[] lists = new IntMoveList[depth + 1];
+            for(int i = 0; i < lists.length; i++){
+                lists[i] = new IntMoveList();
+            }
+            return countPacked(board, depth, lists);
+        }
+    }
+
+    /**
+     * This class counts positions after one root move with the object generator
+     */
+    @SuppressWarnings("serial")
+    private final class ObjectRootTask extends RootTask {
+
+        // position after the root move
+        private final Board board;
+
+        // remaining number of moves
+        private final int depth;
+
+        /**
+         * Constructor for object root task
+         * @param move root move
+         * @param depth number of moves, including the root move
+         */
+        ObjectRootTask(final Move move, final int depth){
+            super(label(move));
+            this.board = move.execute();
+            this.depth = depth - 1;
+        }
+
+        @Override
+        protected Long compute(){
+            return countObjects(board, depth);
+        }
+    }
+
+    /**
+     * This class is a table of counted subtrees, keyed by position and remaining depth
+     * Each entry takes two longs, key XOR data and data, so entries torn by concurrent writes are misses
+     */
+    private static final class PerftHash {
+
+        // entries, key XOR data followed by data, data is node count shifted by 8 and depth
+        private final long[] table;
+
+        // mask that selects the entry from the key
+        private final long mask;
+
+        /**
+         * Constructor for the table
+         * @param megabytes size of the table, it is rounded down to a power of two number of entries
+         */
+        PerftHash(final int megabytes){
+            final long entries = Long.highestOneBit(((long)megabytes << 20) / (2 * Long.BYTES));
+            this.table = new long[(int)Math.min(entries * 2, 1 << 30)];
+            this.mask = table.length / 2 - 1;
+        }
+
+        /**
+         * This method finds the count of the subtree
+         * @param key Zobrist key of the position
+         * @param depth remaining depth
+         * @return number of positions, or -1 if it is not in the table
+         */
+        long probe(final long key, final int depth){
+            final int index = (int)(key & mask) * 2;
+            final long data = table[index + 1];
+            if(data != 0 && (table[index] ^ data) == key && (data & 0xFF) == depth){
+                return data >>> 8;
+            }
+            return -1;
+        }
+
+        /**
+         * This method stores the count of the subtree, it replaces the old entry
+         * @param key Zobrist key of the position
+         * @param depth remaining depth
+         * @param nodes number of positions
+         */
+        void store(final long key, final int depth, final long nodes){
+            final int index = (int)(key & mask) * 2;
+            final long data = nodes << 8 | depth;
+            table[index] = key ^ data;
+            table[index + 1] = data;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.perilandachess.tools;
+
+import com.perilandachess.ai.Tablebase;
+import com.perilandachess.board.Board;
+import com.perilandachess.board.IntMoveList;
+import com.perilandachess.board.MutableBoard;
+import com.perilandachess.board.PackedMove;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class generates endgame tables by retrograde analysis
+ * Tables are generated from the fewest pieces up, so a capture always leads to a table that is already known
+ * The first pass finds positions where the player to move captures the chief, then each pass n finds
+ * wins in n plies (a move to a loss in n - 1 plies) or losses in n plies (every move leads to a win of the opponent),
+ * until a pass finds nothing new and captures can not lead to anything new, every position left is a draw
+ * Passes go over the positions in parallel, each thread works on its own ranges with its own board
+ * Values of every generated table are kept in memory with 2 bytes per position, as captures read the smaller tables:
+ * tables up to 4 pieces need less than 1 GB of heap, 5 pieces need tens of GB and 6 pieces are out of reach
+ *
+ * Usage: TablebaseGenerator -dir directory [-pieces n] [-threads n]
+ */
+public final class TablebaseGenerator {
+
+    // positions in one unit of work
+    private static final int CHUNK = 1 << 16;
+
+    // value used only during generation
+    private static final short NO_MOVES = -1;
+
+    // generated tables and their values, indexed by material key
+    private final Tablebase[] tables = new Tablebase[1 << (2 * 2 * Tablebase.NUM_KINDS)];
+    private final Tablebase.Values[] values = new Tablebase.Values[tables.length];
+
+    // largest value of the generated tables, a position can be resolved through a capture only until this ply
+    private int maxValue;
+
+    // threads that go through the positions
+    private final ExecutorService threads;
+    private final int threadCount;
+
+    /**
+     * Constructor for the generator
+     * @param threadCount number of threads
+     */
+    public TablebaseGenerator(final int threadCount){
+        this.threadCount = threadCount;
+        this.threads = Executors.newFixedThreadPool(threadCount);
+    }
+
+    /**
+     * Main method of the generator
+     * @param args arguments of the generator, see the class description
+     * @throws Exception if the tables can not be generated
+     */
+    public static void main(String[] args) throws Exception {
+        File directory = null;
+        int pieces = 3;
+        int threadCount = Runtime.getRuntime().availableProcessors();
+        try{
+            for(int i = 0; i < args.length; i++){
+                switch(args[i]){
+                    case "-dir":
+                        directory = new File(args[++i]);
+                        break;
+                    case "-pieces":
+                        pieces = Integer.parseInt(args[++i]);
+                        break;
+                    case "-threads":
+                        threadCount = Integer.parseInt(args[++i]);
+                        break;
+                    default:
+                        usage();
+                }
+            }
+        }catch(final NumberFormatException | ArrayIndexOutOfBoundsException e){
+            usage();
+        }
+        if(directory == null || pieces < 2 || threadCount < 1){
+            usage();
+        }
+        if(!directory.isDirectory() && !directory.mkdirs()){
+            throw new IOException("Can not create " + directory);
+        }
+
+        final TablebaseGenerator generator = new TablebaseGenerator(threadCount);
+        try{
+            for(int total = 2; total <= pieces; total++){
+                for(final int materialKey : materialKeys(total - 2)){
+                    generator.generate(materialKey, directory);
+                }
+            }
+        }finally{
+            generator.threads.shutdown();
+        }
+    }
+
+    /**
+     * This method prints usage of the generator and exits
+     */
+    private static void usage(){
+        System.err.println("Usage: TablebaseGenerator -dir directory [-pieces n] [-threads n]");
+        System.exit(2);
+    }
+
+    /**
+     * This method lists all material keys with given number of pieces besides the chiefs
+     * @param pieces number of pieces besides the chiefs
+     * @return material keys
+     */
+    private static List<Integer> materialKeys(final int pieces){
+        final List<Integer> keys = new ArrayList<>();
+        final int[] counts = new int[2 * Tablebase.NUM_KINDS];
+        addMaterialKeys(counts, 0, pieces, keys);
+        return keys;
+    }
+
+    /**
+     * This method adds material keys by choosing the number of pieces of each kind in turn
+     * @param counts numbers of pieces chosen so far
+     * @param position index of the next count
+     * @param left number of pieces left to place
+     * @param keys list the keys are added to
+     */
+    private static void addMaterialKeys(final int[] counts, final int position, final int left, final List<Integer> keys){
+        if(position == counts.length){
+            if(left == 0){
+                keys.add(Tablebase.materialKey(counts));
+            }
+            return;
+        }
+        for(int count = 0; count <= Math.min(left, Tablebase.MAX_PER_KIND); count++){
+            counts[position] = count;
+            addMaterialKeys(counts, position + 1, left - count, keys);
+        }
+        counts[position] = 0;
+    }
+
+    /**
+     * This method generates one table and writes it to the directory
+     * @param materialKey set of pieces
+     * @param directory directory of the tables
+     * @throws IOException if the table can not be written
+     * @throws InterruptedException if the thread is interrupted while waiting for a pass
+     * @throws ExecutionException if a pass fails
+     */
+    public void generate(final int materialKey, final File directory) throws IOException, InterruptedException, ExecutionException {
+        final long startTime = System.nanoTime();
+        final Tablebase table = Tablebase.create(materialKey);
+        final Tablebase.Values tableValues = new Tablebase.Values(table.size());
+        tables[materialKey] = table;
+        values[materialKey] = tableValues;
+
+        // positions of smaller tables reached by captures can resolve positions in any pass up to their largest value
+        int ply = 1;
+        long found = runPass(table, tableValues, ply);
+        while(found > 0 || ply <= maxValue){
+            ply++;
+            found = runPass(table, tableValues, ply);
+            if(found > 0 && ply > Tablebase.MAX_VALUE){
+                throw new IllegalStateException(table + " has positions longer than " + Tablebase.MAX_VALUE + " plies!");
+            }
+        }
+
+        // positions without moves are written as draws
+        long wins = 0;
+        long losses = 0;
+        long draws = 0;
+        int longest = 0;
+        for(long i = 0; i < tableValues.size(); i++){
+            final short value = tableValues.get(i);
+            longest = Math.max(longest, value);
+            if(value <= 0){
+                draws++;
+                tableValues.set(i, (short)0);
+            }else if(value % 2 == 1){
+                wins++;
+            }else{
+                losses++;
+            }
+        }
+        table.write(new File(directory, table + Tablebase.EXTENSION), tableValues);
+        System.out.println(String.format("%s: %d wins, %d losses, %d draws, longest %d plies, %.1f s",
+                table, wins, losses, draws, longest, (System.nanoTime() - startTime) / 1e9));
+        maxValue = Math.max(maxValue, longest);
+    }
+
+    /**
+     * This method runs one pass over all unresolved positions of the table in parallel
+     * @param table table being generated
+     * @param tableValues values of the table
+     * @param ply number of the pass, value given to the positions resolved in it
+     * @return number of positions resolved in the pass
+     * @throws InterruptedException if the thread is interrupted while waiting for the pass
+     * @throws ExecutionException if the pass fails
+     */
+    private long runPass(final Tablebase table, final Tablebase.Values tableValues, final int ply) throws InterruptedException, ExecutionException {
+        final AtomicLong nextChunk = new AtomicLong();
+        final AtomicLong resolved = new AtomicLong();
+        final List<Future<?>> results = new ArrayList<>();
+        for(int i = 0; i < threadCount; i++){
+            results.add(threads.submit(() -> {
+                final MutableBoard board = new MutableBoard(Board.createStandardBoard());
+                final IntMoveList moves = new IntMoveList();
+                final int[] pieces = new int[Tablebase.countPieces(table.getMaterialKey())];
+                final int[] coordinates = new int[pieces.length];
+                long found = 0;
+                for(long start = nextChunk.getAndAdd(CHUNK); start < tableValues.size(); start = nextChunk.getAndAdd(CHUNK)){
+                    final long end = Math.min(tableValues.size(), start + CHUNK);
+                    for(long index = start; index < end; index++){
+                        if(tableValues.get(index) != 0){
+                            continue;
+                        }
+                        table.setPosition(index, board, pieces, coordinates);
+                        moves.clear();
+                        board.generateMoves(moves);
+                        final short value = ply == 1 ? firstValue(moves) : resolve(table, tableValues, board, moves, ply);
+                        if(value != 0){
+                            tableValues.set(index, value);
+                            found += value > 0 ? 1 : 0;
+                        }
+                    }
+                }
+                resolved.addAndGet(found);
+                return null;
+            }));
+        }
+        for(final Future<?> result : results){
+            result.get();
+        }
+        return resolved.get();
+    }
+
+    /**
+     * This method gives the value of a position in the first pass
+     * @param moves legal moves of the position
+     * @return 1 if the player to move can capture the chief, NO_MOVES if it has no move, otherwise 0
+     */
+    private static short firstValue(final IntMoveList moves){
+        if(moves.isEmpty()){
+            return NO_MOVES;
+        }
+        for(int i = 0; i < moves.size(); i++){
+            if(PackedMove.isChiefCapture(moves.get(i))){
+                return 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * This method checks if an unresolved position is won or lost in given number of plies
+     * Values written in the same pass are never used: a win needs a loss from the previous pass,
+     * a loss needs wins of the opponent from earlier passes, so the pass can update the table in place
+     * @param table table being generated
+     * @param tableValues values of the table
+     * @param board position, moves are made and taken back on it
+     * @param moves legal moves of the position
+     * @param ply number of the pass
+     * @return ply if the position is won (odd ply) or lost (even ply) in ply plies, otherwise 0
+     */
+    private short resolve(final Tablebase table, final Tablebase.Values tableValues, final MutableBoard board, final IntMoveList moves, final int ply){
+        final boolean winPass = ply % 2 == 1;
+        for(int i = 0; i < moves.size(); i++){
+            final int move = moves.get(i);
+            board.makeMove(move);
+            final int child = childValue(table, tableValues, board, PackedMove.isCapture(move));
+            board.unmakeMove();
+            if(winPass && child == ply - 1){
+                return (short)ply;
+            }
+            if(!winPass && (child <= 0 || child % 2 == 0 || child >= ply)){
+                return 0;
+            }
+        }
+        return winPass ? 0 : (short)ply;
+    }
+
+    /**
+     * This method reads the value of the position after a move
+     * @param table table being generated
+     * @param tableValues values of the table
+     * @param board position after the move
+     * @param capture true if the move captured a piece, then the position is in a smaller table
+     * @return value of the position, 0 for unresolved or drawn positions
+     */
+    private int childValue(final Tablebase table, final Tablebase.Values tableValues, final MutableBoard board, final boolean capture){
+        if(!capture){
+            return tableValues.get(table.index(board));
+        }
+        final int materialKey = Tablebase.materialKey(board);
+        return values[materialKey].get(tables[materialKey].index(board));
+    }
+}
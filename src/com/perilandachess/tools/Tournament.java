@@ -0,0 +1,570 @@
+package com.perilandachess.tools;
+
+import com.perilandachess.ai.AlphaBeta;
+import com.perilandachess.ai.MonteCarloTreeSearch;
+import com.perilandachess.ai.OpeningBook;
+import com.perilandachess.ai.SearchLimits;
+import com.perilandachess.ai.SearchResult;
+import com.perilandachess.board.Board;
+import com.perilandachess.board.Evaluation;
+import com.perilandachess.board.IntMoveList;
+import com.perilandachess.board.MutableBoard;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class plays games between two engine configurations without the GUI and measures their difference in Elo
+ * Each worker thread plays one game at a time with its own engines, games are played in pairs
+ * from the same opening with swapped colours, so an unbalanced opening favours neither engine
+ * Sequential probability ratio test is checked after each game, and the match stops as soon as
+ * the result is significant for one of the hypotheses
+ *
+ * Engine is given as type:option=value,option=value, for example ab:depth=4,hash=8 or mcts:nodes=20000
+ * Types are ab (alpha-beta) and mcts (Monte Carlo tree search), options are depth, nodes and time (limits of each move),
+ * hash (alpha-beta table in megabytes), memory (Monte Carlo tree in megabytes), weights (evaluation weights file)
+ * and book (opening book file of alpha-beta)
+ *
+ * Usage: Tournament -engine1 spec -engine2 spec [-games n] [-threads n] [-openings file|directory] [-random n] [-seed n]
+ *                   [-elo0 e] [-elo1 e] [-alpha a] [-beta b]
+ */
+public final class Tournament {
+
+    // game without chief capture after this many moves is a draw
+    private static final int MAX_PLIES = 300;
+
+    // progress is printed after this many games
+    private static final int REPORT_INTERVAL = 100;
+
+    // results of a game for the first engine, in half points
+    private static final int LOSS = 0;
+    private static final int DRAW = 1;
+    private static final int WIN = 2;
+
+    // engines of the match
+    private final EngineConfig first;
+    private final EngineConfig second;
+
+    // starting positions, each one is played twice with swapped colours
+    private final List<Board> openings;
+
+    // number of random moves played from each opening, so that the games differ
+    private final int randomPlies;
+
+    // hypotheses and error probabilities of the test
+    private final double elo0;
+    private final double elo1;
+    private final double alpha;
+    private final double beta;
+
+    // wins, draws and losses of the first engine
+    private int wins;
+    private int draws;
+    private int losses;
+
+    // set when the test accepts one of the hypotheses
+    private volatile boolean finished;
+
+    /**
+     * Constructor for the tournament
+     * @param first first engine, results are from its point of view
+     * @param second second engine
+     * @param openings starting positions
+     * @param randomPlies number of random moves played from each opening
+     * @param elo0 Elo difference of the null hypothesis
+     * @param elo1 Elo difference of the alternative hypothesis
+     * @param alpha probability of accepting the alternative hypothesis when the null one is true
+     * @param beta probability of accepting the null hypothesis when the alternative one is true
+     */
+    public Tournament(final EngineConfig first, final EngineConfig second, final List<Board> openings, final int randomPlies,
+                      final double elo0, final double elo1, final double alpha, final double beta){
+        if(openings.isEmpty()){
+            throw new IllegalArgumentException("There is no opening position!");
+        }
+        this.first = first;
+        this.second = second;
+        this.openings = openings;
+        this.randomPlies = randomPlies;
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.alpha = alpha;
+        this.beta = beta;
+    }
+
+    /**
+     * Main method of the tournament
+     * @param args arguments of the tournament, see the class description
+     * @throws Exception if the games fail
+     */
+    public static void main(String[] args) throws Exception {
+        EngineConfig first = null;
+        EngineConfig second = null;
+        int games = 1000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        File openingsFile = null;
+        int randomPlies = -1;
+        long seed = System.nanoTime();
+        double elo0 = 0;
+        double elo1 = 5;
+        double alpha = 0.05;
+        double beta = 0.05;
+        try{
+            for(int i = 0; i < args.length; i++){
+                switch(args[i]){
+                    case "-engine1":
+                        first = EngineConfig.parse(args[++i]);
+                        break;
+                    case "-engine2":
+                        second = EngineConfig.parse(args[++i]);
+                        break;
+                    case "-games":
+                        games = Integer.parseInt(args[++i]);
+                        break;
+                    case "-threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "-openings":
+                        openingsFile = new File(args[++i]);
+                        break;
+                    case "-random":
+                        randomPlies = Integer.parseInt(args[++i]);
+                        break;
+                    case "-seed":
+                        seed = Long.parseLong(args[++i]);
+                        break;
+                    case "-elo0":
+                        elo0 = Double.parseDouble(args[++i]);
+                        break;
+                    case "-elo1":
+                        elo1 = Double.parseDouble(args[++i]);
+                        break;
+                    case "-alpha":
+                        alpha = Double.parseDouble(args[++i]);
+                        break;
+                    case "-beta":
+                        beta = Double.parseDouble(args[++i]);
+                        break;
+                    default:
+                        usage();
+                }
+            }
+        }catch(final IllegalArgumentException | ArrayIndexOutOfBoundsException e){
+            System.err.println(e.getMessage());
+            usage();
+        }
+        if(first == null || second == null || games < 1 || threads < 1){
+            usage();
+        }
+
+        final List<Board> openings = openingsFile != null ? loadOpenings(openingsFile) : new ArrayList<>();
+        if(openings.isEmpty()){
+            openings.add(Board.createStandardBoard());
+        }
+        Collections.shuffle(openings, new Random(seed));
+        // standard position alone needs random moves, otherwise every pair would repeat the same two games
+        if(randomPlies < 0){
+            randomPlies = openingsFile != null ? 0 : 4;
+        }
+
+        final Tournament tournament = new Tournament(first, second, openings, randomPlies, elo0, elo1, alpha, beta);
+        tournament.play(games, threads, seed);
+    }
+
+    /**
+     * This method prints usage of the tournament and exits
+     */
+    private static void usage(){
+        System.err.println("Usage: Tournament -engine1 spec -engine2 spec [-games n] [-threads n] [-openings file|directory] [-random n] [-seed n]");
+        System.err.println("                  [-elo0 e] [-elo1 e] [-alpha a] [-beta b]");
+        System.err.println("Engine spec: ab|mcts[:depth=n,nodes=n,time=ms,hash=mb,memory=mb,weights=file,book=file]");
+        System.exit(2);
+    }
+
+    /**
+     * This method loads opening positions saved in the format of Board.createCustomBoard
+     * @param file one saved position, or a directory of them
+     * @return opening positions
+     * @throws IOException if a position can not be read
+     */
+    public static List<Board> loadOpenings(final File file) throws IOException {
+        final List<Board> openings = new ArrayList<>();
+        final File[] files = file.isDirectory() ? file.listFiles(File::isFile) : new File[]{file};
+        if(files == null){
+            throw new IOException("Can not read " + file);
+        }
+        Arrays.sort(files);
+        for(final File opening : files){
+            try{
+                openings.add(Board.createCustomBoard(opening));
+            }catch(final IllegalArgumentException e){
+                throw new IOException(opening + ": " + e.getMessage(), e);
+            }
+        }
+        return openings;
+    }
+
+    /**
+     * This method plays the match until all games are played or the test accepts one of the hypotheses
+     * @param games maximum number of games, rounded up to whole pairs
+     * @param threads number of games played at the same time
+     * @param seed seed of the random opening moves
+     * @throws InterruptedException if the thread is interrupted while waiting for the games
+     * @throws ExecutionException if a game fails
+     */
+    public void play(final int games, final int threads, final long seed) throws InterruptedException, ExecutionException {
+        final int pairs = (games + 1) / 2;
+        final AtomicInteger nextPair = new AtomicInteger();
+        final long startTime = System.nanoTime();
+        System.out.println(first + " vs " + second + ", " + pairs * 2 + " games, " + openings.size() + " openings, " + threads + " threads");
+
+        final ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try{
+            final List<Future<?>> results = new ArrayList<>();
+            for(int i = 0; i < threads; i++){
+                results.add(workers.submit(() -> {
+                    final Engine firstEngine = first.create();
+                    final Engine secondEngine = second.create();
+                    try{
+                        for(int pair = nextPair.getAndIncrement(); pair < pairs && !finished; pair = nextPair.getAndIncrement()){
+                            final MutableBoard opening = createOpening(pair, seed);
+                            // first game of the pair has the first engine as orange, second game as green
+                            for(int game = 0; game < 2 && !finished; game++){
+                                final Engine orange = game == 0 ? firstEngine : secondEngine;
+                                final Engine green = game == 0 ? secondEngine : firstEngine;
+                                firstEngine.newGame();
+                                secondEngine.newGame();
+                                final int orangeResult = playGame(new MutableBoard(opening), orange, green);
+                                addResult(game == 0 ? orangeResult : WIN - orangeResult);
+                            }
+                        }
+                    }finally{
+                        firstEngine.close();
+                        secondEngine.close();
+                    }
+                    return null;
+                }));
+            }
+            for(final Future<?> result : results){
+                result.get();
+            }
+        }finally{
+            workers.shutdownNow();
+        }
+
+        final double minutes = (System.nanoTime() - startTime) / 60e9;
+        synchronized(this){
+            System.out.println(report());
+            final int played = wins + draws + losses;
+            System.out.println(String.format("%d games in %.1f minutes, %.1f games per minute", played, minutes, played / minutes));
+        }
+    }
+
+    /**
+     * This method creates the opening position of a pair
+     * @param pair index of the pair
+     * @param seed seed of the random opening moves
+     * @return opening position after the random moves
+     */
+    private MutableBoard createOpening(final int pair, final long seed){
+        final MutableBoard board = new MutableBoard(openings.get(pair % openings.size()));
+        final Random random = new Random(seed + pair);
+        final IntMoveList moves = new IntMoveList();
+        for(int ply = 0; ply < randomPlies && board.hasChief(board.getSideToMove()); ply++){
+            moves.clear();
+            board.generateMoves(moves);
+            if(moves.isEmpty()){
+                break;
+            }
+            board.makeMove(moves.get(random.nextInt(moves.size())));
+        }
+        return board;
+    }
+
+    /**
+     * This method plays one game
+     * @param board starting position
+     * @param orange engine of the orange player
+     * @param green engine of the green player
+     * @return result for the orange player, in half points
+     */
+    private static int playGame(final MutableBoard board, final Engine orange, final Engine green){
+        for(int ply = 0; ply < MAX_PLIES; ply++){
+            if(!board.hasChief(board.getSideToMove())){
+                return board.getSideToMove().isOrange() ? LOSS : WIN;
+            }
+            final Engine engine = board.getSideToMove().isOrange() ? orange : green;
+            final SearchResult result = engine.search(board);
+            if(result.getBestMove() == 0){
+                // player without legal moves can not go on, the game is drawn
+                return DRAW;
+            }
+            board.makeMove(result.getBestMove());
+        }
+        return DRAW;
+    }
+
+    /**
+     * This method counts the result of a game, prints progress and checks the test
+     * @param result result for the first engine, in half points
+     */
+    private synchronized void addResult(final int result){
+        if(finished){
+            return;
+        }
+        if(result == WIN){
+            wins++;
+        }else if(result == DRAW){
+            draws++;
+        }else{
+            losses++;
+        }
+        final double llr = logLikelihoodRatio();
+        if(llr >= Math.log((1 - beta) / alpha) || llr <= Math.log(beta / (1 - alpha))){
+            finished = true;
+        }else if((wins + draws + losses) % REPORT_INTERVAL == 0){
+            System.out.println(report());
+        }
+    }
+
+    /**
+     * This method describes the current result of the match
+     * @return wins, draws and losses of the first engine, Elo difference with 95% error bars, and the test state
+     */
+    private String report(){
+        final int games = wins + draws + losses;
+        final double score = (wins + draws * 0.5) / games;
+        final double error = 1.96 * Math.sqrt(variance() / games);
+        final double llr = logLikelihoodRatio();
+        final double lower = Math.log(beta / (1 - alpha));
+        final double upper = Math.log((1 - beta) / alpha);
+        final String test = llr >= upper ? "H1 accepted" : llr <= lower ? "H0 accepted" : "running";
+        return String.format("games %d: +%d =%d -%d, Elo %.1f [%.1f, %.1f], LLR %.2f [%.2f, %.2f] %s",
+                games, wins, draws, losses, elo(score), elo(score - error), elo(score + error), llr, lower, upper, test);
+    }
+
+    /**
+     * This method calculates the variance of the result of one game
+     * One more win and one more loss are counted as a prior, so a match where every game has the same result
+     * still has some variance and the test can end it
+     * @return variance of the score per game
+     */
+    private double variance(){
+        final int priorWins = wins + 1;
+        final int priorLosses = losses + 1;
+        final int games = priorWins + draws + priorLosses;
+        final double score = (priorWins + draws * 0.5) / games;
+        return (priorWins * (1 - score) * (1 - score) + draws * (0.5 - score) * (0.5 - score) + priorLosses * score * score) / games;
+    }
+
+    /**
+     * This method calculates the log likelihood ratio of the hypotheses, with the normal approximation of the score
+     * @return log likelihood ratio, positive values favour the alternative hypothesis
+     */
+    private double logLikelihoodRatio(){
+        final int games = wins + draws + losses;
+        if(games == 0){
+            return 0;
+        }
+        final double variance = variance();
+        final double score = (wins + draws * 0.5) / games;
+        final double score0 = expectedScore(elo0);
+        final double score1 = expectedScore(elo1);
+        return games * (score1 - score0) * (2 * score - score0 - score1) / (2 * variance);
+    }
+
+    /**
+     * This method converts an Elo difference to the expected score
+     * @param elo Elo difference
+     * @return expected score per game
+     */
+    private static double expectedScore(final double elo){
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    /**
+     * This method converts the score per game to an Elo difference
+     * @param score score per game
+     * @return Elo difference, infinite for score 0 or 1
+     */
+    private static double elo(final double score){
+        final double clamped = Math.max(0, Math.min(1, score));
+        return -400 * Math.log10(1 / clamped - 1);
+    }
+
+    /**
+     * This interface is one engine of one worker thread
+     */
+    private interface Engine {
+
+        /**
+         * This method forgets what the engine learned in the previous game
+         */
+        void newGame();
+
+        /**
+         * This method chooses a move for the player to move
+         * @param board current position, it is not changed
+         * @return search result
+         */
+        SearchResult search(MutableBoard board);
+
+        /**
+         * This method stops the threads of the engine, it is called when the engine is no longer used
+         */
+        void close();
+    }
+
+    /**
+     * This class is the configuration of an engine, each worker thread creates its own engine from it
+     */
+    public static final class EngineConfig {
+
+        // text of the configuration
+        private final String spec;
+
+        // true for Monte Carlo tree search, false for alpha-beta
+        private final boolean monteCarlo;
+
+        // limits of each move
+        private final SearchLimits limits;
+
+        // size of the alpha-beta table or the Monte Carlo tree in megabytes
+        private final int megabytes;
+
+        // evaluation of the engine
+        private final Evaluation evaluation;
+
+        // opening book of alpha-beta, can be null
+        private final OpeningBook openingBook;
+
+        private EngineConfig(final String spec, final boolean monteCarlo, final SearchLimits limits, final int megabytes,
+                             final Evaluation evaluation, final OpeningBook openingBook){
+            this.spec = spec;
+            this.monteCarlo = monteCarlo;
+            this.limits = limits;
+            this.megabytes = megabytes;
+            this.evaluation = evaluation;
+            this.openingBook = openingBook;
+        }
+
+        /**
+         * This method reads an engine configuration
+         * @param spec configuration in the format type:option=value,option=value
+         * @return engine configuration
+         * @throws IllegalArgumentException if the configuration is not valid
+         */
+        public static EngineConfig parse(final String spec){
+            final String[] parts = spec.split(":", 2);
+            final boolean monteCarlo;
+            if(parts[0].equals("ab")){
+                monteCarlo = false;
+            }else if(parts[0].equals("mcts")){
+                monteCarlo = true;
+            }else{
+                throw new IllegalArgumentException("Unknown engine type " + parts[0] + "!");
+            }
+            final SearchLimits.Builder limits = new SearchLimits.Builder();
+            int megabytes = monteCarlo ? 32 : 8;
+            Evaluation evaluation = Evaluation.DEFAULT;
+            OpeningBook openingBook = null;
+            boolean limited = false;
+            for(final String option : parts.length > 1 ? parts[1].split(",") : new String[0]){
+                final String[] keyValue = option.split("=", 2);
+                if(keyValue.length != 2){
+                    throw new IllegalArgumentException("Invalid engine option " + option + "!");
+                }
+                switch(keyValue[0]){
+                    case "depth":
+                        limits.setDepth(Integer.parseInt(keyValue[1]));
+                        limited = true;
+                        break;
+                    case "nodes":
+                        limits.setNodes(Long.parseLong(keyValue[1]));
+                        limited = true;
+                        break;
+                    case "time":
+                        limits.setMoveTime(Long.parseLong(keyValue[1]));
+                        limited = true;
+                        break;
+                    case "hash":
+                    case "memory":
+                        megabytes = Integer.parseInt(keyValue[1]);
+                        break;
+                    case "weights":
+                        try{
+                            evaluation = Evaluation.load(new File(keyValue[1]));
+                        }catch(final IOException e){
+                            throw new IllegalArgumentException("Can not read weights " + keyValue[1] + "!", e);
+                        }
+                        break;
+                    case "book":
+                        try{
+                            openingBook = OpeningBook.open(new File(keyValue[1]));
+                        }catch(final IOException e){
+                            throw new IllegalArgumentException("Can not read opening book " + keyValue[1] + "!", e);
+                        }
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown engine option " + keyValue[0] + "!");
+                }
+            }
+            // alpha-beta without limits would search to the maximum depth
+            if(!limited && !monteCarlo){
+                limits.setDepth(4);
+            }
+            return new EngineConfig(spec, monteCarlo, limits.build(), megabytes, evaluation, openingBook);
+        }
+
+        /**
+         * This method creates a single threaded engine from the configuration
+         * @return engine
+         */
+        private Engine create(){
+            final MonteCarloTreeSearch monteCarloSearch = monteCarlo ? new MonteCarloTreeSearch(megabytes, 1) : null;
+            final AlphaBeta alphaBeta = monteCarlo ? null : new AlphaBeta(megabytes, 1);
+            if(alphaBeta != null){
+                alphaBeta.setOpeningBook(openingBook);
+            }
+            return new Engine() {
+                @Override
+                public void newGame(){
+                    if(alphaBeta != null){
+                        alphaBeta.clear();
+                    }
+                }
+
+                @Override
+                public SearchResult search(final MutableBoard board){
+                    final MutableBoard position = new MutableBoard(board);
+                    position.setEvaluation(evaluation);
+                    return monteCarlo ? monteCarloSearch.search(position, limits) : alphaBeta.search(position, limits);
+                }
+
+                @Override
+                public void close(){
+                    if(monteCarloSearch != null){
+                        monteCarloSearch.close();
+                    }
+                    if(alphaBeta != null){
+                        alphaBeta.close();
+                    }
+                }
+            };
+        }
+
+        @Override
+        public String toString(){
+            return spec;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.perilandachess.tools;
+
+import com.perilandachess.Alliance;
+import com.perilandachess.board.BoardUtils;
+import com.perilandachess.board.MutableBoard;
+import com.perilandachess.pieces.Piece;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * This class describes the binary file of labelled positions used for evaluation tuning
+ * File starts with a header (magic number and version), followed by fixed size records, one for each position:
+ * 25 bytes with one nibble per tile (0 for empty tile, otherwise bitboard index + 1),
+ * 8 bytes with the bitboard of reversed advancers and tridents,
+ * 1 byte with the player to move (bit 0) and transform phases of orange (bits 1-2) and green (bits 3-4),
+ * and 1 byte with the result of the game
+ * Records are read straight from a ByteBuffer, so a pass over the file creates no objects per position
+ */
+public final class TrainingData {
+
+    /**
+     * Magic number at the start of the file, "PCTD"
+     */
+    public static final int MAGIC = 0x50435444;
+
+    /**
+     * Version of the file format
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Size of the header in bytes
+     */
+    public static final int HEADER_BYTES = 8;
+
+    /**
+     * Size of one record in bytes
+     */
+    public static final int RECORD_BYTES = 35;
+
+    /**
+     * Result of a game won by green
+     */
+    public static final int GREEN_WIN = 0;
+
+    /**
+     * Result of a drawn game
+     */
+    public static final int DRAW = 1;
+
+    /**
+     * Result of a game won by orange
+     */
+    public static final int ORANGE_WIN = 2;
+
+    // offsets of the fields in the record
+    private static final int REVERSED_OFFSET = 25;
+    private static final int STATE_OFFSET = 33;
+    private static final int RESULT_OFFSET = 34;
+
+    private static final Piece.PieceType[] PIECE_TYPES = Piece.PieceType.values();
+
+    private TrainingData(){
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    /**
+     * This method writes the header of the file
+     * @param buffer buffer to write to
+     */
+    public static void writeHeader(final ByteBuffer buffer){
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+    }
+
+    /**
+     * This method checks the header of the file and returns the number of records
+     * @param file file of labelled positions
+     * @return number of records
+     * @throws IOException if the file can not be read or it is not a file of labelled positions
+     */
+    public static long countRecords(final File file) throws IOException {
+        try(DataInputStream input = new DataInputStream(new FileInputStream(file))){
+            if(input.readInt() != MAGIC || input.readInt() != VERSION){
+                throw new IOException(file + " is not a file of labelled positions!");
+            }
+        }
+        return (file.length() - HEADER_BYTES) / RECORD_BYTES;
+    }
+
+    /**
+     * This method writes one record
+     * @param board position
+     * @param result result of the game, GREEN_WIN, DRAW or ORANGE_WIN
+     * @param buffer buffer to write to, at its position
+     */
+    public static void writeRecord(final MutableBoard board, final int result, final ByteBuffer buffer){
+        final byte[] tiles = new byte[BoardUtils.NUM_TILES];
+        for(final Alliance alliance : Alliance.values()){
+            for(final Piece.PieceType pieceType : PIECE_TYPES){
+                final int index = BoardUtils.bitboardIndex(alliance, pieceType);
+                for(long pieces = board.getPieceBitboard(alliance, pieceType); pieces != 0; pieces &= pieces - 1){
+                    tiles[Long.numberOfTrailingZeros(pieces)] = (byte)(index + 1);
+                }
+            }
+        }
+        for(int coordinate = 0; coordinate < BoardUtils.NUM_TILES; coordinate += 2){
+            final int high = coordinate + 1 < BoardUtils.NUM_TILES ? tiles[coordinate + 1] : 0;
+            buffer.put((byte)(tiles[coordinate] | high << 4));
+        }
+        buffer.putLong(board.getReversedPieces());
+        buffer.put((byte)(board.getSideToMove().ordinal()
+                | (board.getMovesMade(Alliance.ORANGE) % 3) << 1
+                | (board.getMovesMade(Alliance.GREEN) % 3) << 3));
+        buffer.put((byte)result);
+    }
+
+    /**
+     * This method reads the piece on a tile
+     * @param buffer buffer with the record
+     * @param record offset of the record in the buffer
+     * @param coordinate tile
+     * @return bitboard index of the piece, or -1 for empty tile
+     */
+    public static int getPiece(final ByteBuffer buffer, final int record, final int coordinate){
+        final int packed = buffer.get(record + coordinate / 2);
+        return ((coordinate % 2 == 0 ? packed : packed >>> 4) & 0xF) - 1;
+    }
+
+    /**
+     * This method reads the bitboard of reversed advancers and tridents
+     * @param buffer buffer with the record
+     * @param record offset of the record in the buffer
+     * @return bitboard of the reversed pieces
+     */
+    public static long getReversedPieces(final ByteBuffer buffer, final int record){
+        return buffer.getLong(record + REVERSED_OFFSET);
+    }
+
+    /**
+     * This method reads the player to move
+     * @param buffer buffer with the record
+     * @param record offset of the record in the buffer
+     * @return alliance ordinal of the player to move
+     */
+    public static int getSideToMove(final ByteBuffer buffer, final int record){
+        return buffer.get(record + STATE_OFFSET) & 1;
+    }
+
+    /**
+     * This method reads the transform phase of one player
+     * @param buffer buffer with the record
+     * @param record offset of the record in the buffer
+     * @param side alliance ordinal of the player
+     * @return number of moves the player made modulo 3
+     */
+    public static int getPhase(final ByteBuffer buffer, final int record, final int side){
+        return (buffer.get(record + STATE_OFFSET) >>> (1 + 2 * side)) & 3;
+    }
+
+    /**
+     * This method reads the result of the game
+     * @param buffer buffer with the record
+     * @param record offset of the record in the buffer
+     * @return GREEN_WIN, DRAW or ORANGE_WIN
+     */
+    public static int getResult(final ByteBuffer buffer, final int record){
+        return buffer.get(record + RESULT_OFFSET);
+    }
+}
@@ -0,0 +1,470 @@
+package com.perilandachess.tools;
+
+import com.perilandachess.ai.AlphaBeta;
+import com.perilandachess.ai.SearchLimits;
+import com.perilandachess.ai.SearchResult;
+import com.perilandachess.board.Board;
+import com.perilandachess.board.BoardUtils;
+import com.perilandachess.board.Evaluation;
+import com.perilandachess.board.IntMoveList;
+import com.perilandachess.board.MutableBoard;
+import com.perilandachess.pieces.Piece;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class tunes evaluation weights on labelled positions (Texel tuning)
+ * Evaluation is turned into expected result with a sigmoid, and the weights are fitted by minimising
+ * the mean squared difference between expected and real results of the games
+ * Each iteration streams through the positions file, the file is split between threads and each thread
+ * computes the gradient of its part, so the positions are never held in memory
+ *
+ * Usage:
+ * Tuner generate -games n -out file [-nodes n] [-threads n] [-seed n]
+ * Tuner tune -in file -out file [-weights file] [-iterations n] [-rate r] [-k k] [-threads n]
+ */
+public final class Tuner {
+
+    // number of random moves at the start of each self-play game, so that the games differ
+    private static final int RANDOM_PLIES = 8;
+
+    // self-play game without chief capture after this many moves is a draw
+    private static final int MAX_PLIES = 300;
+
+    // number of records read from the file at once
+    private static final int RECORDS_PER_READ = 4096;
+
+    // Adam optimiser constants
+    private static final double BETA1 = 0.9;
+    private static final double BETA2 = 0.999;
+    private static final double EPSILON = 1e-8;
+
+    private static final int ADVANCER = Piece.PieceType.ADVANCER.ordinal();
+
+    // file of labelled positions
+    private final File positions;
+
+    // number of positions in the file
+    private final long recordCount;
+
+    // threads that compute the gradient
+    private final ExecutorService threads;
+    private final int threadCount;
+
+    /**
+     * Constructor for the tuner
+     * @param positions file of labelled positions
+     * @param threadCount number of threads
+     * @throws IOException if the file can not be read
+     */
+    public Tuner(final File positions, final int threadCount) throws IOException {
+        this.positions = positions;
+        this.recordCount = TrainingData.countRecords(positions);
+        this.threadCount = threadCount;
+        this.threads = Executors.newFixedThreadPool(threadCount);
+    }
+
+    /**
+     * Main method of the tuner
+     * @param args arguments of the tuner, see the class description
+     * @throws Exception if the tuning fails
+     */
+    public static void main(String[] args) throws Exception {
+        if(args.length == 0 || !(args[0].equals("generate") || args[0].equals("tune"))){
+            usage();
+        }
+        int games = 1000;
+        long nodes = 5000;
+        int threadCount = Runtime.getRuntime().availableProcessors();
+        long seed = System.nanoTime();
+        File input = null;
+        File output = null;
+        File weightsFile = null;
+        int iterations = 200;
+        double rate = 1.0;
+        double k = 0;
+        try{
+            for(int i = 1; i < args.length; i++){
+                switch(args[i]){
+                    case "-games":
+                        games = Integer.parseInt(args[++i]);
+                        break;
+                    case "-nodes":
+                        nodes = Long.parseLong(args[++i]);
+                        break;
+                    case "-threads":
+                        threadCount = Integer.parseInt(args[++i]);
+                        break;
+                    case "-seed":
+                        seed = Long.parseLong(args[++i]);
+                        break;
+                    case "-in":
+                        input = new File(args[++i]);
+                        break;
+                    case "-out":
+                        output = new File(args[++i]);
+                        break;
+                    case "-weights":
+                        weightsFile = new File(args[++i]);
+                        break;
+                    case "-iterations":
+                        iterations = Integer.parseInt(args[++i]);
+                        break;
+                    case "-rate":
+                        rate = Double.parseDouble(args[++i]);
+                        break;
+                    case "-k":
+                        k = Double.parseDouble(args[++i]);
+                        break;
+                    default:
+                        usage();
+                }
+            }
+        }catch(final NumberFormatException | ArrayIndexOutOfBoundsException e){
+            usage();
+        }
+        if(output == null || (args[0].equals("tune") && input == null)){
+            usage();
+        }
+
+        if(args[0].equals("generate")){
+            generate(games, nodes, threadCount, seed, output);
+            return;
+        }
+        final Evaluation start = weightsFile != null ? Evaluation.load(weightsFile) : Evaluation.DEFAULT;
+        final Tuner tuner = new Tuner(input, threadCount);
+        try{
+            if(k <= 0){
+                k = tuner.fitK(toDouble(start.getWeights()));
+                System.out.println("K " + k);
+            }
+            final Evaluation tuned = tuner.tune(start, k, iterations, rate);
+            try(Writer writer = new FileWriter(output)){
+                tuned.write(writer);
+            }
+            System.out.println("Weights written to " + output);
+        }finally{
+            tuner.threads.shutdown();
+        }
+    }
+
+    /**
+     * This method prints usage of the tuner and exits
+     */
+    private static void usage(){
+        System.err.println("Usage: Tuner generate -games n -out file [-nodes n] [-threads n] [-seed n]");
+        System.err.println("       Tuner tune -in file -out file [-weights file] [-iterations n] [-rate r] [-k k] [-threads n]");
+        System.exit(2);
+    }
+
+    /**
+     * This method plays self-play games and writes their quiet positions labelled with the results
+     * @param games number of games
+     * @param nodes node limit of each move
+     * @param threadCount number of games played at the same time
+     * @param seed seed of the random opening moves
+     * @param output file of labelled positions
+     * @throws IOException if the file can not be written
+     * @throws InterruptedException if the thread is interrupted while waiting for the games
+     */
+    private static void generate(final int games, final long nodes, final int threadCount, final long seed, final File output) throws IOException, InterruptedException {
+        final ExecutorService players = Executors.newFixedThreadPool(threadCount);
+        try(FileChannel channel = new FileOutputStream(output).getChannel()){
+            final ByteBuffer header = ByteBuffer.allocate(TrainingData.HEADER_BYTES);
+            TrainingData.writeHeader(header);
+            header.flip();
+            channel.write(header);
+
+            final List<Future<Integer>> results = new ArrayList<>();
+            for(int game = 0; game < games; game++){
+                final long gameSeed = seed + game;
+                results.add(players.submit(() -> {
+                    try(final AlphaBeta player = new AlphaBeta(8)){
+                        return playGame(player, nodes, new Random(gameSeed), channel);
+                    }
+                }));
+            }
+            long written = 0;
+            for(final Future<Integer> result : results){
+                written += result.get();
+            }
+            System.out.println(games + " games, " + written + " positions written to " + output);
+        }catch(final ExecutionException e){
+            throw new IOException("Self-play game failed!", e.getCause());
+        }finally{
+            players.shutdown();
+        }
+    }
+
+    /**
+     * This method plays one self-play game and writes its quiet positions
+     * @param player engine for both players
+     * @param nodes node limit of each move
+     * @param random source of the random opening moves
+     * @param channel file of labelled positions
+     * @return number of written positions
+     * @throws IOException if the file can not be written
+     */
+    private static int playGame(final AlphaBeta player, final long nodes, final Random random, final FileChannel channel) throws IOException {
+        final MutableBoard board = new MutableBoard(Board.createStandardBoard());
+        final SearchLimits limits = new SearchLimits.Builder().setNodes(nodes).build();
+        final IntMoveList moves = new IntMoveList();
+        final IntMoveList captures = new IntMoveList();
+        final List<MutableBoard> quietPositions = new ArrayList<>();
+        int result = TrainingData.DRAW;
+        for(int ply = 0; ply < MAX_PLIES; ply++){
+            if(!board.hasChief(board.getSideToMove())){
+                result = board.getSideToMove().isOrange() ? TrainingData.GREEN_WIN : TrainingData.ORANGE_WIN;
+                break;
+            }
+            moves.clear();
+            board.generateMoves(moves);
+            if(moves.isEmpty()){
+                break;
+            }
+            if(ply < RANDOM_PLIES){
+                board.makeMove(moves.get(random.nextInt(moves.size())));
+                continue;
+            }
+            final SearchResult search = player.search(board, limits);
+            captures.clear();
+            board.generateCaptures(captures);
+            // only quiet positions are labelled, static evaluation of a position in an exchange is meaningless
+            if(captures.isEmpty() && !search.isChiefCaptureScore()){
+                quietPositions.add(new MutableBoard(board));
+            }
+            board.makeMove(search.getBestMove());
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(quietPositions.size() * TrainingData.RECORD_BYTES);
+        for(final MutableBoard position : quietPositions){
+            TrainingData.writeRecord(position, result, buffer);
+        }
+        buffer.flip();
+        synchronized(channel){
+            while(buffer.hasRemaining()){
+                channel.write(buffer);
+            }
+        }
+        return quietPositions.size();
+    }
+
+    /**
+     * This method tunes the weights with Adam optimiser, each iteration is one pass over the positions
+     * @param start starting evaluation
+     * @param k scaling constant of the sigmoid
+     * @param iterations number of iterations
+     * @param rate learning rate, in weight units per iteration
+     * @return tuned evaluation
+     * @throws Exception if the positions can not be read
+     */
+    public Evaluation tune(final Evaluation start, final double k, final int iterations, final double rate) throws Exception {
+        final double[] weights = toDouble(start.getWeights());
+        final double[] firstMoment = new double[Evaluation.NUM_WEIGHTS];
+        final double[] secondMoment = new double[Evaluation.NUM_WEIGHTS];
+        for(int iteration = 1; iteration <= iterations; iteration++){
+            final double[] gradient = new double[Evaluation.NUM_WEIGHTS];
+            final double error = pass(weights, k, gradient);
+            for(int i = 0; i < Evaluation.NUM_WEIGHTS; i++){
+                firstMoment[i] = BETA1 * firstMoment[i] + (1 - BETA1) * gradient[i];
+                secondMoment[i] = BETA2 * secondMoment[i] + (1 - BETA2) * gradient[i] * gradient[i];
+                final double corrected = firstMoment[i] / (1 - Math.pow(BETA1, iteration));
+                final double correctedSquare = secondMoment[i] / (1 - Math.pow(BETA2, iteration));
+                weights[i] -= rate * corrected / (Math.sqrt(correctedSquare) + EPSILON);
+            }
+            System.out.println("iteration " + iteration + " error " + error);
+        }
+        final int[] rounded = new int[Evaluation.NUM_WEIGHTS];
+        for(int i = 0; i < rounded.length; i++){
+            rounded[i] = (int)Math.round(weights[i]);
+        }
+        return new Evaluation(rounded);
+    }
+
+    /**
+     * This method finds the sigmoid scaling constant that fits the results best with given weights
+     * @param weights evaluation weights
+     * @return scaling constant
+     * @throws Exception if the positions can not be read
+     */
+    public double fitK(final double[] weights) throws Exception {
+        // golden section search, error is unimodal in k
+        final double ratio = (Math.sqrt(5) - 1) / 2;
+        double low = 0.05;
+        double high = 3.0;
+        double left = high - ratio * (high - low);
+        double right = low + ratio * (high - low);
+        double leftError = pass(weights, left, null);
+        double rightError = pass(weights, right, null);
+        while(high - low > 0.005){
+            if(leftError < rightError){
+                high = right;
+                right = left;
+                rightError = leftError;
+                left = high - ratio * (high - low);
+                leftError = pass(weights, left, null);
+            }else{
+                low = left;
+                left = right;
+                leftError = rightError;
+                right = low + ratio * (high - low);
+                rightError = pass(weights, right, null);
+            }
+        }
+        return (low + high) / 2;
+    }
+
+    /**
+     * This method makes one pass over the positions, the file is split into one range for each thread
+     * @param weights evaluation weights
+     * @param k scaling constant of the sigmoid
+     * @param gradient array the gradient of the error is added to, or null if only the error is needed
+     * @return mean squared error
+     * @throws Exception if the positions can not be read
+     */
+    private double pass(final double[] weights, final double k, final double[] gradient) throws Exception {
+        final List<Future<double[]>> parts = new ArrayList<>();
+        final long recordsPerThread = (recordCount + threadCount - 1) / threadCount;
+        for(int thread = 0; thread < threadCount; thread++){
+            final long first = thread * recordsPerThread;
+            final long last = Math.min(recordCount, first + recordsPerThread);
+            if(first < last){
+                parts.add(threads.submit(() -> passRange(weights, k, gradient != null, first, last)));
+            }
+        }
+        double error = 0;
+        for(final Future<double[]> part : parts){
+            final double[] partResult = part.get();
+            error += partResult[Evaluation.NUM_WEIGHTS];
+            if(gradient != null){
+                for(int i = 0; i < Evaluation.NUM_WEIGHTS; i++){
+                    gradient[i] += partResult[i] / recordCount;
+                }
+            }
+        }
+        return error / recordCount;
+    }
+
+    /**
+     * This method streams through one range of the positions file
+     * @param weights evaluation weights
+     * @param k scaling constant of the sigmoid
+     * @param withGradient true if the gradient is computed
+     * @param first index of the first record
+     * @param last index after the last record
+     * @return gradient of the summed squared error followed by the summed squared error
+     * @throws IOException if the file can not be read
+     */
+    private double[] passRange(final double[] weights, final double k, final boolean withGradient, final long first, final long last) throws IOException {
+        final double[] result = new double[Evaluation.NUM_WEIGHTS + 1];
+        final int[] features = new int[2 * BoardUtils.NUM_TILES + 4];
+        final int[] coefficients = new int[features.length];
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(RECORDS_PER_READ * TrainingData.RECORD_BYTES);
+        final double scale = k * Math.log(10) / 400;
+        try(FileChannel channel = FileChannel.open(positions.toPath(), StandardOpenOption.READ)){
+            long position = TrainingData.HEADER_BYTES + first * TrainingData.RECORD_BYTES;
+            final long end = TrainingData.HEADER_BYTES + last * TrainingData.RECORD_BYTES;
+            while(position < end){
+                buffer.clear();
+                buffer.limit((int)Math.min(buffer.capacity(), end - position));
+                while(buffer.hasRemaining()){
+                    if(channel.read(buffer, position + buffer.position()) < 0){
+                        throw new IOException("Positions file ended early!");
+                    }
+                }
+                for(int record = 0; record < buffer.limit(); record += TrainingData.RECORD_BYTES){
+                    final int count = extractFeatures(buffer, record, features, coefficients);
+                    double evaluation = 0;
+                    for(int i = 0; i < count; i++){
+                        evaluation += weights[features[i]] * coefficients[i];
+                    }
+                    final double expected = 1 / (1 + Math.exp(-scale * evaluation));
+                    final double difference = TrainingData.getResult(buffer, record) / 2.0 - expected;
+                    result[Evaluation.NUM_WEIGHTS] += difference * difference;
+                    if(withGradient){
+                        final double derivative = -2 * difference * expected * (1 - expected) * scale;
+                        for(int i = 0; i < count; i++){
+                            result[features[i]] += derivative * coefficients[i];
+                        }
+                    }
+                }
+                position += buffer.limit();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * This method lists the weights a position uses and their coefficients, evaluation is the sum of weight times coefficient
+     * Evaluation is from the orange point of view, it matches MutableBoard.evaluate for orange to move
+     * @param buffer buffer with the record
+     * @param record offset of the record in the buffer
+     * @param features array the weight indexes are written to
+     * @param coefficients array the coefficients are written to
+     * @return number of the features
+     */
+    private static int extractFeatures(final ByteBuffer buffer, final int record, final int[] features, final int[] coefficients){
+        int count = 0;
+        final long reversed = TrainingData.getReversedPieces(buffer, record);
+        long orangeAdvancers = 0L;
+        long greenAdvancers = 0L;
+        for(int coordinate = 0; coordinate < BoardUtils.NUM_TILES; coordinate++){
+            final int index = TrainingData.getPiece(buffer, record, coordinate);
+            if(index < 0){
+                continue;
+            }
+            final int side = index / BoardUtils.NUM_PIECE_TYPES;
+            final int type = index % BoardUtils.NUM_PIECE_TYPES;
+            final int sign = side == 0 ? 1 : -1;
+            final int direction = (int)((reversed >>> coordinate) & 1L);
+            final int orangeCoordinate = side == 0 ? coordinate : BoardUtils.NUM_TILES - 1 - coordinate;
+            features[count] = Evaluation.MATERIAL + type;
+            coefficients[count++] = sign;
+            features[count] = Evaluation.pieceSquareIndex(type, direction, orangeCoordinate);
+            coefficients[count++] = sign;
+            if(type == ADVANCER){
+                if(side == 0){
+                    orangeAdvancers |= BoardUtils.tileBit(coordinate);
+                }else{
+                    greenAdvancers |= BoardUtils.tileBit(coordinate);
+                }
+            }
+        }
+        features[count] = Evaluation.ADVANCER_CONNECTED;
+        coefficients[count++] = Evaluation.connectedAdvancers(orangeAdvancers) - Evaluation.connectedAdvancers(greenAdvancers);
+        features[count] = Evaluation.ADVANCER_DOUBLED;
+        coefficients[count++] = Evaluation.doubledAdvancers(orangeAdvancers) - Evaluation.doubledAdvancers(greenAdvancers);
+        features[count] = Evaluation.TRANSFORM_PHASE + TrainingData.getPhase(buffer, record, 0);
+        coefficients[count++] = 1;
+        features[count] = Evaluation.TRANSFORM_PHASE + TrainingData.getPhase(buffer, record, 1);
+        coefficients[count++] = -1;
+        return count;
+    }
+
+    /**
+     * This method converts integer weights to doubles
+     * @param weights integer weights
+     * @return weights as doubles
+     */
+    private static double[] toDouble(final int[] weights){
+        final double[] result = new double[weights.length];
+        for(int i = 0; i < weights.length; i++){
+            result[i] = weights[i];
+        }
+        return result;
+    }
+}